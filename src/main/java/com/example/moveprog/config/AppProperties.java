@@ -1,5 +1,6 @@
 package com.example.moveprog.config;
 
+import com.example.moveprog.enums.TypedBindingSource;
 import com.example.moveprog.enums.VerifyStrategy;
 import com.univocity.parsers.csv.CsvFormat;
 import com.univocity.parsers.csv.CsvParserSettings;
@@ -38,6 +39,10 @@ public class AppProperties {
 
     private Transcode transcode = new Transcode();
 
+    private Backpressure backpressure = new Backpressure();
+
+    private MetaCache metaCache = new MetaCache();
+
     private String jdbcOptions = "?Unicode=true&characterEncoding=utf8&allowLoadLocalInfile=true&useCompression=true";
 
     private LoadJdbc loadJdbc = new LoadJdbc();
@@ -231,8 +236,41 @@ public class AppProperties {
         private int readBufferSize = 8 * 1024 * 1024;
         // 写入缓冲区 (字节)，默认 1MB
         private int writeBufferSize = 1 * 1024 * 1024;
-        // 切分行数
+        // 切分行数 (按字节拆分时是单个拆分的行数上限)
         private int splitRows = 500_000;
+        /**
+         * 拆分目标大小 (字节，未压缩的 CSV 字节)：拆分写到这个大小就滚动，宽表窄表的拆分大小接近，
+         * 装载重试和校验的耗时更均匀；0 表示只按 split-rows 行数拆分
+         */
+        private long splitTargetBytes = 0;
+        /**
+         * 按目标表以往拆分的装载速度 (字节/秒) 学习拆分大小，让每个拆分的装载耗时接近这个秒数
+         * 0 表示不学习；学到的大小限制在 split-target-bytes 的 1/8 ~ 8 倍之间 (需要 split-target-bytes > 0)
+         */
+        private int splitTargetLoadSeconds = 0;
+        /**
+         * 拆分文件是否 gzip 压缩 (文件名加 .gz，装载/校验时透明解压)，用少量 CPU 换磁盘读写量
+         */
+        private boolean splitCompress = false;
+        /**
+         * 拆分文件压缩级别 (1 最快 ~ 9 最小)
+         */
+        @Min(value = 1, message = "压缩级别 split-compress-level 不能小于 1")
+        private int splitCompressLevel = 1;
+        /**
+         * 源文件 (IBM1388) 是否用内存映射读取 (分段滚动映射，解码器直接读映射段，省掉读入堆内缓冲区的拷贝)
+         * 转码和校验 (USE_SOURCE_FILE) 读源文件时生效
+         */
+        private boolean sourceMmapEnabled = true;
+        /**
+         * 每段映射的字节数
+         */
+        @Min(value = 1024 * 1024, message = "映射段大小 source-mmap-segment-size 不能小于 1MB")
+        private int sourceMmapSegmentSize = 64 * 1024 * 1024;
+        /**
+         * 这些文件系统上映射读取往往比流式读取慢 (缺页要走网络)，自动退回流式读取
+         */
+        private List<String> sourceMmapExcludedFileStores = Arrays.asList("nfs", "nfs4", "cifs", "smb2", "smbfs", "fuse", "fuse.sshfs", "9p");
     }
 
     @Data
@@ -253,8 +291,146 @@ public class AppProperties {
          */
         @Min(value = 1, message = "最大转码失败行 max-error-count 不能小于 1")
         private int maxErrorCount = 1000;
+        /**
+         * 错误行异步写出的队列容量 (条)：错误行的 Base64/JSON 格式化和写文件在后台线程进行，队列满时转码线程等待
+         */
+        @Min(value = 1, message = "错误行队列 error-queue-size 不能小于 1")
+        private int errorQueueSize = 1024;
+
+        /**
+         * 转码调度大文件优先 (按发现时记录的源文件大小)，关闭则按 id 顺序
+         */
+        private boolean largestFirst = true;
+        /**
+         * 大文件优先的老化时间 (分钟)：等待超过这个时间的任务不再按大小排队，先到先得
+         */
+        @Min(value = 1, message = "老化时间 largest-first-aging-minutes 不能小于 1")
+        private int largestFirstAgingMinutes = 30;
+
+        /**
+         * 小文件合并转码：源文件不超过这个大小 (字节) 的明细，和同一迁移单下的其它小文件一起转码进共享的拆分，
+         * 减少调度、装载往返、校验查询和状态流转的次数，0 表示关闭
+         * 合并拆分的行号 = 成员的行号基数 + 源文件行号 (基数记录在明细上)，校验和追溯按基数换算回源文件行号
+         */
+        private long coalesceMaxFileSize = 0;
+        /**
+         * 一个合并组的源文件总大小上限 (字节)
+         */
+        @Min(value = 1024 * 1024, message = "合并组大小 coalesce-group-bytes 不能小于 1MB")
+        private long coalesceGroupBytes = 64L * 1024 * 1024;
+        /**
+         * 一个合并组最多的文件数
+         */
+        @Min(value = 2, message = "合并组文件数 coalesce-max-files 不能小于 2")
+        private int coalesceMaxFiles = 500;
+
+        /**
+         * 是否分块转码 (按安全记录边界切块，记录拆分的源文件字节偏移量，支持断点续转和并行)，
+         * 关闭则走流式转码 (输出与分块转码一致，但校验不能按偏移量定位源文件)
+         */
+        private boolean chunkedEnabled = true;
+
+        /**
+         * 是否开启单文件内部并行转码 (按安全记录边界切块，多线程解码/校验，按序提交)
+         */
+        private boolean parallelEnabled = false;
+        /**
+         * 源文件达到多大 (字节) 才走并行转码，小文件走原来的单线程流程
+         */
+        private long parallelMinFileSize = 1024L * 1024 * 1024;
+        /**
+         * 转码分块大小 (字节)，同时也是源文件格式探测的采样大小
+         */
+        @Min(value = 1024 * 1024, message = "转码分块 chunk-size 不能小于 1MB")
+        private int chunkSize = 32 * 1024 * 1024;
+        /**
+         * 并行转码的线程数 (所有文件共享)，0 表示取 CPU 核数
+         */
+        private int parallelism = 0;
+        /**
+         * 单个文件同时在途的最大分块数 (限制内存)，0 表示 parallelism * 2
+         */
+        private int parallelMaxInFlightChunks = 0;
+
+        /**
+         * 是否开启流水线转码 (未走并行的文件: 读取/解析校验/写出各一个线程，阶段间有界队列背压)
+         */
+        private boolean pipelineEnabled = false;
+        /**
+         * 流水线每个阶段队列最多缓存的分块数 (限制内存)
+         */
+        @Min(value = 1, message = "流水线队列 pipeline-queue-size 不能小于 1")
+        private int pipelineQueueSize = 2;
+
+        /**
+         * 是否使用查表解码 (IBM1388 等 SO/SI 混合编码)，查表处理不了的字节仍交给 ICU 解码器
+         */
+        private boolean tableDecoderEnabled = true;
+        /**
+         * 查表解码器构建后是否对全码表做自检 (与 ICU 逐字符比对)，不一致则自动退回 ICU 解码
+         */
+        private boolean tableDecoderSelfCheck = true;
+
+        /**
+         * 断点续转：转码中断 (停机/重启) 后，从最后一个完成的拆分之后继续，不再从头转码
+         * 只对分块转码生效 (需要记录字节偏移量)，完成的拆分文件落盘时会 fsync
+         */
+        private boolean resumeEnabled = true;
+
+        /**
+         * 重试转码时，源文件指纹 (大小/修改时间/CRC32C) 和转码配置都没变，直接复用已有的拆分文件
+         */
+        private boolean reuseUnchangedSource = true;
+        /**
+         * 复用前是否重新计算源文件 CRC32C 比对 (关闭则只比较大小和修改时间)
+         */
+        private boolean reuseVerifyChecksum = true;
+    }
+
+
+    /**
+     * 磁盘背压 (转码和装载之间)
+     * 本机积压 (待装载/装载中/待校验/校验中的拆分字节数) 达到高水位，或作业输出目录可用空间低于下限时，
+     * 调度器不再抢占新的转码任务，正在转码的文件在拆分边界暂停；积压降到低水位且可用空间回到恢复线后继续
+     */
+    @Data
+    public static class Backpressure {
+        /**
+         * 积压高水位 (字节，拆分未压缩大小)，0 表示不按积压限制
+         */
+        private long backlogHighBytes = 0;
+        /**
+         * 积压低水位 (字节)，降到这里才恢复转码
+         */
+        private long backlogLowBytes = 0;
+        /**
+         * 输出目录可用空间下限 (字节)，0 表示不按可用空间限制
+         */
+        private long minFreeBytes = 0;
+        /**
+         * 可用空间恢复线 (字节)，回到这里才恢复转码
+         */
+        private long resumeFreeBytes = 0;
     }
 
+    /**
+     * 元数据库实体缓存 (作业、批次、拆分的不变属性)
+     * 装载/校验/清理一个拆分要反复按 id 查同一个作业、批次和拆分，这里缓存一份，省掉元数据库的往返；
+     * 状态字段不缓存，状态流转时移除对应的拆分
+     */
+    @Data
+    public static class MetaCache {
+        /**
+         * 缓存有效期 (秒)，过期重新查库 (其它节点修改作业配置后最多这么久生效)，0 表示不缓存
+         */
+        @Min(value = 0, message = "实体缓存有效期 ttl-seconds 不能小于 0")
+        private long ttlSeconds = 300;
+        /**
+         * 每类实体最多缓存的条数，超过后清空重来
+         */
+        @Min(value = 1, message = "实体缓存条数 max-entries 不能小于 1")
+        private int maxEntries = 20000;
+    }
 
     /**
      * 目标端装载时, 预先执行sql
@@ -273,6 +449,29 @@ public class AppProperties {
          */
         private int batchSize = 5000;
 
+        /**
+         * JDBC 批量装载的参数类型来源：按列类型在客户端转换一次 (setLong/setBigDecimal/日期时间)，
+         * 转换不了的值仍按字符串绑定；NONE (默认) 表示全部 setString，由数据库转换
+         */
+        @NotNull(message = "参数类型来源 typed-binding 不能为空")
+        private TypedBindingSource typedBinding = TypedBindingSource.NONE;
+
+        /**
+         * JDBC 装载自己拼多行 INSERT ... VALUES (...),(...) (按行字节数控制每条语句不超过 max_allowed_packet)，
+         * 不依赖驱动 rewriteBatchedStatements 的改写；false (默认) 为原来的 addBatch/executeBatch
+         */
+        private boolean multiRowInsert = false;
+        /**
+         * 多行 INSERT 每条语句的大小上限 (字节)，0 表示装载前查询目标库的 max_allowed_packet
+         */
+        @Min(value = 0, message = "max-allowed-packet 不能小于 0")
+        private long maxAllowedPacket = 0;
+        /**
+         * JDBC 装载双缓冲：解析线程解析、转换下一批的同时，装载线程执行上一批 (仍是同一个连接、同一个事务)；
+         * false (默认) 为解析完一批执行一批
+         */
+        private boolean doubleBuffered = false;
+
         private int maxRetries = 3;
         private int queryTimeout = 600; // 10分钟超时
 
@@ -283,6 +482,22 @@ public class AppProperties {
          */
         private boolean useLocalInfile = false;
 
+        /**
+         * 直装模式：转码不写拆分文件，直接经 LOAD DATA LOCAL INFILE 数据流装入目标表 (仍登记拆分记录)
+         * 需要 use-local-infile=true 且校验策略为 USE_SOURCE_FILE (没有拆分文件可比对)
+         */
+        private boolean directLoad = false;
+        /**
+         * 直装数据流的块大小 (字节)
+         */
+        @Min(value = 64 * 1024, message = "直装块大小 direct-load-block-size 不能小于 64KB")
+        private int directLoadBlockSize = 1024 * 1024;
+        /**
+         * 直装数据流最多缓存的块数 (数据库慢时转码等待)
+         */
+        @Min(value = 1, message = "直装缓存块数 direct-load-queue-blocks 不能小于 1")
+        private int directLoadQueueBlocks = 8;
+
         private String tableQuoteChar = "`";
         private String columnQuoteChar = "`";
         // 列名
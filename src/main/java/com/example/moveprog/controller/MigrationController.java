@@ -10,7 +10,9 @@ import com.example.moveprog.enums.DetailStatus;
 import com.example.moveprog.enums.JobStatus;
 import com.example.moveprog.repository.*;
 import com.example.moveprog.service.*;
+import com.example.moveprog.service.impl.ErrorRecordSink;
 import com.example.moveprog.util.MigrationOutputDirectorUtil;
+import com.example.moveprog.util.SplitFileCompression;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.FileSystemResource;
@@ -57,6 +59,8 @@ public class MigrationController {
     private final MigrationArtifactManager migrationArtifactManager;
     private final JobService jobService;
     private final GlobalVerifyService globalVerifyService;
+    private final TableSchemaRegistry schemaRegistry;
+    private final MetaEntityCache metaCache;
 
     private final AppProperties config;
 
@@ -81,8 +85,10 @@ public class MigrationController {
         }
 
         try {
-            Path outPath = Paths.get(job.getOutDirectory());
-            MigrationOutputDirectorUtil.beSureNewDirectory(outPath);
+            // 拆分文件会条带化到全部输出目录，每个都要是新的空目录
+            for (String outputRoot : MigrationOutputDirectorUtil.outputRoots(job)) {
+                MigrationOutputDirectorUtil.beSureNewDirectory(Paths.get(outputRoot));
+            }
         } catch (Exception e) {
             log.error("验证输出目录报错：" + e.getMessage());
             return ResponseEntity.badRequest().body("验证输出目录报错：" + e.getMessage());
@@ -117,6 +123,7 @@ public class MigrationController {
         if ("stop".equalsIgnoreCase(action)) {
             job.setStatus(JobStatus.STOPPED);
             jobRepo.save(job);
+            metaCache.invalidateJob(id);
             jobService.stopJob(job.getId());
             if (controlManager != null) {
                 controlManager.stopJob(id); // 通知内存停止
@@ -126,6 +133,7 @@ public class MigrationController {
         } else if ("resume".equalsIgnoreCase(action)) {
             job.setStatus(JobStatus.ACTIVE);
             jobRepo.save(job);
+            metaCache.invalidateJob(id);
             if (controlManager != null) controlManager.resumeJob(id); // 清除内存停止标记
             log.info("作业 [{}] 已恢复", id);
         }
@@ -171,6 +179,8 @@ public class MigrationController {
             batch.setStatus(BatchStatus.FINISHED); // 或 CLOSED
             batch.setUpdateTime(LocalDateTime.now());
             qianyiRepo.save(batch);
+            schemaRegistry.invalidate(batch.getId());
+            metaCache.invalidateQianyi(batch.getId());
 
             if (config.getJob().isAutoCleanOnClose()) {
                 // 异步执行清理，防止阻塞前端响应 (文件多时可能删很久)
@@ -202,6 +212,8 @@ public class MigrationController {
             detailRepo.deleteByQianyiId(id);
             // 3. 删批次主记录
             qianyiRepo.deleteById(id);
+            schemaRegistry.invalidate(id);
+            metaCache.invalidateQianyi(id);
 
             return ResponseEntity.ok("重试指令已下发（记录已清除，等待下一次扫描）");
         });
@@ -233,15 +245,27 @@ public class MigrationController {
     @PostMapping("/detail/{id}/retry-transcode")
     public ResponseEntity<?> retryTranscode(@PathVariable Long id) {
         // 逻辑：将状态重置为 NEW，触发 TranscodeService 重新运行
+        // (源文件和转码配置都没变时，TranscodeService 直接复用已有拆分，只重试失败的拆分)
+        QianyiDetail detail = detailRepo.findById(id).orElseThrow(() -> new RuntimeException("明细 " + id + "不存在"));
+        if (detail.getCoalesceLeaderId() != null) {
+            // 合并转码的明细共享一个拆分，整组一起重新转码
+            for (QianyiDetail member : detailRepo.findByCoalesceLeaderIdOrderByCoalesceRowNoBaseAsc(detail.getCoalesceLeaderId())) {
+                stateManager.updateDetailStatus(member.getId(), DetailStatus.NEW);
+            }
+            return ResponseEntity.ok("合并组转码重试指令已下发");
+        }
         stateManager.updateDetailStatus(id, DetailStatus.NEW);
         return ResponseEntity.ok("转码重试指令已下发");
     }
 
     /**
      * 【新增】读取转码失败的脏数据文件 (.bad)
+     * 按错误文件旁的偏移索引分页，只读取这一页的内容
      */
     @GetMapping("/detail/{id}/bad-content")
-    public ResponseEntity<?> getBadContent(@PathVariable Long id) {
+    public ResponseEntity<?> getBadContent(@PathVariable Long id,
+                                           @RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = "100") int size) {
 
         QianyiDetail detail = detailRepo.findById(id).orElseThrow(() -> new RuntimeException("明细 " + id + "不存在"));
         String targetIp = detail.getNodeId();
@@ -249,9 +273,10 @@ public class MigrationController {
         // 一行代码搞定：如果在本地就读文件，如果在远端就转发
         return bridgeService.runOrProxy(targetIp, () -> {
             try {
-                // 1. 推算 .bad 文件路径
-                // 假设规则是：在配置的 error 目录下，文件名与源文件相同，后缀加 .bad
-                // 或者您在 TranscodeService 里生成的路径规则
+                if (page < 0 || size < 1 || size > 1000) {
+                    return ResponseEntity.badRequest().body("分页参数错误: page >= 0, 1 <= size <= 1000");
+                }
+                // 1. 推算错误文件路径 (和 TranscodeService 里生成的路径规则一致)
                 QianyiDetail qianyiDetail = detailRepo.findById(id).orElse(null);
                 if (qianyiDetail == null) {
                     return ResponseEntity.badRequest().body("明细 " + id + "不存在");
@@ -261,24 +286,26 @@ public class MigrationController {
                     return ResponseEntity.badRequest().body("job " + qianyiDetail.getJobId() + "不存在");
                 }
 
-                String errorDirectory = MigrationOutputDirectorUtil.transcodeErrorDirectory(migrationJob, qianyiDetail.getQianyiId());
-                Path badFileName = Paths.get(errorDirectory, id + "_error.csv");
+                Path badFileName = Paths.get(MigrationOutputDirectorUtil.transcodeErrorFile(migrationJob, qianyiDetail.getQianyiId(), id));
                 if (!badFileName.toFile().exists()) {
                     return ResponseEntity.ok("暂无失败记录文件 (或文件已被清理)");
                 }
 
-                // 2. 读取前 100 行
-                // 【优化】使用 Stream API 流式读取，只读前 100 行，避免大文件 OOM
+                // 2. 按索引定位到这一页，避免大文件从头扫描
+                ErrorRecordSink.Page errorPage = ErrorRecordSink.readPage(badFileName, page, size);
+                long pages = (errorPage.total() + size - 1) / size;
                 StringBuilder sb = new StringBuilder();
-                sb.append("--- 失败行预览 (Top 100) ---\n");
+                sb.append("--- 失败行预览 (第 ").append(page + 1).append(" / ").append(Math.max(pages, 1))
+                        .append(" 页，共 ").append(errorPage.total()).append(" 条) ---\n");
                 sb.append("文件路径: ").append(badFileName).append("\n\n");
-
-                try (Stream<String> lines = Files.lines(badFileName)) {
-                    lines.limit(100).forEach(line -> sb.append(line).append("\n"));
+                if (errorPage.header() != null) {
+                    sb.append(errorPage.header()).append("\n");
                 }
+                errorPage.lines().forEach(line -> sb.append(line).append("\n"));
 
-                // 无法准确知道是否还有剩余，除非多读一行。但为了性能，这样足够了。
-                sb.append("\n... (如需查看更多，请登录服务器) ...");
+                if (page + 1 < pages) {
+                    sb.append("\n... (下一页: page=").append(page + 1).append("&size=").append(size).append(") ...");
+                }
 
                 return ResponseEntity.ok(sb.toString());
 
@@ -421,6 +448,7 @@ public class MigrationController {
             // PASS (已通过), FAIL_VERIFY (校验失败), FINISHED (已完成)
             // 绝对不能重置正在 LOADING 或 VERIFYING 的任务
             if (split.getStatus() == CsvSplitStatus.LOADING ||
+                    split.getStatus() == CsvSplitStatus.DIRECT_LOADING ||
                     split.getStatus() == CsvSplitStatus.VERIFYING) {
                 return ResponseEntity.badRequest().body("当前状态正在运行中，无法强制重验");
             }
@@ -437,6 +465,7 @@ public class MigrationController {
             split.setStatus(CsvSplitStatus.WAIT_VERIFY);
             split.setErrorMsg(null); // 清空旧的报错/差异信息
             splitRepo.save(split);
+            metaCache.invalidateSplit(split.getId());
 
             // 3. 物理清理 (必须要做)
             // 避免“新验证通过了，但旧的错误文件还在”的尴尬情况
@@ -463,7 +492,8 @@ public class MigrationController {
         return bridgeService.runOrProxy(targetIp, () -> {
             try {
                 // --- 核心：本机下载逻辑 ---
-                File file = new File(split.getSplitFilePath());
+                // 拆分记录保存全路径 (条带化到哪个磁盘都能找到)，有补丁文件时下载补丁文件
+                File file = new File(MigrationOutputDirectorUtil.getActualSplitPath(split).getKey());
 
                 if (!file.exists()) {
                     return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -476,7 +506,8 @@ public class MigrationController {
                 String filename = file.getName();
                 return ResponseEntity.ok()
                         .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                        .header(HttpHeaders.CONTENT_TYPE, "text/csv; charset=UTF-8") // 明确告诉浏览器这是 CSV
+                        .header(HttpHeaders.CONTENT_TYPE, SplitFileCompression.isCompressed(filename)
+                                ? "application/gzip" : "text/csv; charset=UTF-8") // 明确告诉浏览器这是 CSV (压缩的拆分文件原样下载)
                         .contentLength(file.length()) // 加上长度，浏览器能显示进度条
                         .body(resource);
 
@@ -623,7 +654,7 @@ public class MigrationController {
         CsvSplit split = splitRepo.findById(splitId).orElseThrow();
         // 优先下载实际路径（可能是转码后的，也可能是补丁文件）
         // 这里假设 splitFilePath 存储的是绝对路径
-        Path path = Paths.get(split.getSplitFilePath());
+        Path path = Paths.get(MigrationOutputDirectorUtil.getActualSplitPath(split).getKey());
 
         if (!Files.exists(path)) {
             return ResponseEntity.notFound().build();
@@ -634,7 +665,7 @@ public class MigrationController {
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.parseMediaType("text/csv"))
+                .contentType(MediaType.parseMediaType(SplitFileCompression.isCompressed(filename) ? "application/gzip" : "text/csv"))
                 .body(resource);
     }
 
@@ -0,0 +1,57 @@
+package com.example.moveprog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 表结构 (列名、SQL 类型、精度、可空)，来自 DDL 文件或目标库的 information_schema
+ */
+@Data
+public class TableSchema {
+
+    private List<Column> columns = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Column {
+        private String name;
+        /**
+         * 原始类型名 (小写，如 decimal、varchar、datetime)
+         */
+        private String typeName;
+        /**
+         * java.sql.Types，不认识的类型为 Types.OTHER (按字符串装载)
+         */
+        private int sqlType;
+        /**
+         * 精度/长度，没有时为 null
+         */
+        private Long precision;
+        /**
+         * 小数位数，没有时为 null
+         */
+        private Integer scale;
+        private boolean nullable = true;
+    }
+
+    public List<String> getColumnNames() {
+        return columns.stream().map(Column::getName).toList();
+    }
+
+    /**
+     * 按列名查找 (不区分大小写)，找不到返回 null
+     */
+    public Column findColumn(String name) {
+        for (Column column : columns) {
+            if (column.getName().equalsIgnoreCase(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+}
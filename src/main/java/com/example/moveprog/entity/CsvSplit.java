@@ -56,6 +56,34 @@ public class CsvSplit extends BaseNodeEntity {
      */
     @Column(nullable = false)
     private Long rowCount;
+    /**
+     * 拆分的 CSV 字节数 (未压缩)
+     */
+    private Long byteCount;
+    /**
+     * 装载耗时 (毫秒，成功那一次)，用于学习目标表的装载速度
+     */
+    private Long loadMillis;
+
+    /**
+     * 拆分第一条记录在源文件(IBM1388)中的字节偏移量
+     * 该位置一定是记录边界且处于单字节状态，校验时从这里直接定位读取，不需要从头跳行
+     * 流式转码 (无法按字节切块) 时为空
+     */
+    private Long sourceByteOffset;
+    /**
+     * sourceByteOffset 之前的换行数 (从该偏移量开始解析时，行号 = 解析器行号 + sourceLineBase)
+     */
+    private Long sourceLineBase;
+    /**
+     * 拆分最后一条记录之后的字节偏移量 (下一条记录从这里开始)
+     * 拆分完成即是断点续转的检查点：转码中断后从最后一个拆分的这个位置继续
+     */
+    private Long sourceEndByteOffset;
+    /**
+     * sourceEndByteOffset 之前的换行数
+     */
+    private Long sourceEndLineBase;
 
     /**
      * 状态
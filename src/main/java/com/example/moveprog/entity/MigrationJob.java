@@ -37,6 +37,13 @@ public class MigrationJob {
     @Column(nullable = false, length = 255)
     private String outDirectory;
 
+    /**
+     * 额外的输出目录 (其它磁盘，逗号分隔，可为空)
+     * 拆分文件按条带化分散写到 outDirectory 和这些目录，错误文件/校验结果仍只放 outDirectory
+     */
+    @Column(length = 1024)
+    private String extraOutDirectories;
+
     /**
      * 目标数据库名
      */
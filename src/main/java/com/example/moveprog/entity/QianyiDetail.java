@@ -75,6 +75,38 @@ public class QianyiDetail extends BaseNodeEntity {
     @Column(columnDefinition = "bigint default 0")
     private Long transcodeErrorCount = 0L; // 新增字段：转码失败行数
 
+    /**
+     * 发现时 (解析 OK 文件) 的源文件大小 (字节)，转码调度按它大文件优先
+     */
+    @Column(name = "discovered_file_size")
+    private Long discoveredFileSize;
+
+    /**
+     * 小文件合并转码：所在合并组的组长明细 id (合并拆分挂在组长下，组长自己也指向自己)，null 表示单独转码
+     */
+    @Column(name = "coalesce_leader_id")
+    private Long coalesceLeaderId;
+    /**
+     * 合并拆分中本文件的行号基数：拆分/目标表里的行号 = 基数 + 源文件行号
+     */
+    @Column(name = "coalesce_row_no_base")
+    private Long coalesceRowNoBase;
+
+    /**
+     * 源文件指纹 (转码成功后写入，重新转码开始时清空)
+     * 重试转码时大小/修改时间/CRC32C 和转码配置都没变，直接复用已有的拆分文件
+     */
+    private Long sourceFileSize;
+    private Long sourceLastModified; // 毫秒
+    private Long sourceChecksum;     // CRC32C
+    private Long transcodeSettingsChecksum;
+
+    /**
+     * 转码时探测到的源文件 CSV 格式 (SourceCsvFormatUtil.encode)，按字节偏移量校验拆分时直接使用，不再读文件头部探测
+     */
+    @Column(name = "source_csv_format", length = 8)
+    private String sourceCsvFormat;
+
     @Column(name = "update_time", insertable = false, updatable = false,
             columnDefinition = "TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP")
     @org.hibernate.annotations.Generated(org.hibernate.annotations.GenerationTime.ALWAYS)
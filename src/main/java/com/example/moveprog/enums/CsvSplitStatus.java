@@ -3,6 +3,7 @@ package com.example.moveprog.enums;
 public enum CsvSplitStatus {
     WAIT_LOAD("待装载"),
     LOADING("装载中"),
+    DIRECT_LOADING("直装中"), // 直装的拆分边转码边装载，装载和僵尸检测都不会领取
     FAIL_LOAD("装载失败"),
     WAIT_VERIFY("待验证"),
     VERIFYING("验证中"),
@@ -40,6 +41,11 @@ public enum CsvSplitStatus {
                 return target == WAIT_VERIFY || target == FAIL_LOAD || target == WAIT_LOAD;
             }
 
+            // [直装中] -> 装载提交后直接变 [待校验] (失败时拆分记录删除，不经过状态机)
+            case DIRECT_LOADING: {
+                return target == WAIT_VERIFY;
+            }
+
             // 3. [待校验] 或 [校验失败] -> 只能变 [校验中]
             // 注意：如果允许[校验失败]后重新[装载]，这里要加上 target == LOADING
             case WAIT_VERIFY: {
@@ -0,0 +1,8 @@
+package com.example.moveprog.enums;
+
+// JDBC 批量装载的参数类型来源
+public enum TypedBindingSource {
+    NONE,   // 全部 setString，由数据库转换类型
+    DDL,    // 按 DDL 文件里的列类型在客户端转换
+    TARGET  // 按目标表 information_schema 的列类型在客户端转换 (读不到时退回 DDL)
+}
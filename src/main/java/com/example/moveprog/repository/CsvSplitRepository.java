@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -118,6 +119,50 @@ public interface CsvSplitRepository extends JpaRepository<CsvSplit, Long>, JpaSp
     Long sumSplitRows(@Param("jobId") Long jobId,
                       @Param("schema") String schema,
                       @Param("tableName") String tableName);
+    /**
+     * 目标表以往拆分的装载量和装载耗时合计 (学习拆分大小用)
+     * @return [字节数合计, 耗时毫秒合计]
+     */
+    @Query("""
+        SELECT SUM(s.byteCount), SUM(s.loadMillis)
+        FROM CsvSplit s
+        JOIN QianyiDetail d ON s.detailId = d.id
+        WHERE d.targetSchema = :schema
+        AND d.targetTableName = :tableName
+        AND s.byteCount > 0
+        AND s.loadMillis > 0
+        """)
+    List<Object[]> sumLoadStatsByTable(@Param("schema") String schema,
+                                       @Param("tableName") String tableName);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CsvSplit s SET s.loadMillis = :loadMillis WHERE s.id = :id")
+    int updateLoadMillis(@Param("id") Long id, @Param("loadMillis") Long loadMillis);
+
+    /**
+     * 直装拆分装载提交后补上行数、字节数和结束位置，转入待验证 (只更新仍在直装中的拆分)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CsvSplit s SET s.rowCount = :rowCount, s.byteCount = :byteCount, " +
+            "s.sourceEndByteOffset = :endByteOffset, s.sourceEndLineBase = :endLineBase, " +
+            "s.status = 'WAIT_VERIFY', s.errorMsg = :msg " +
+            "WHERE s.id = :id AND s.status = 'DIRECT_LOADING'")
+    int completeDirectSplit(@Param("id") Long id,
+                            @Param("rowCount") Long rowCount,
+                            @Param("byteCount") Long byteCount,
+                            @Param("endByteOffset") Long endByteOffset,
+                            @Param("endLineBase") Long endLineBase,
+                            @Param("msg") String msg);
+
+    /**
+     * 本机指定状态的拆分字节数之和 (磁盘背压统计积压用)
+     */
+    @Query("SELECT COALESCE(SUM(s.byteCount), 0) FROM CsvSplit s WHERE s.nodeId = :nodeId AND s.status IN :statuses")
+    long sumByteCountByNodeIdAndStatusIn(@Param("nodeId") String nodeId,
+                                         @Param("statuses") Collection<CsvSplitStatus> statuses);
+
 // ==========================================
     // 仪表盘统计专用查询
     // ==========================================
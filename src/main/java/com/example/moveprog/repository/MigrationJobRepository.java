@@ -6,6 +6,8 @@ import com.example.moveprog.enums.JobStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * 迁移作业
  */
@@ -14,4 +16,6 @@ public interface MigrationJobRepository extends JpaRepository<MigrationJob, Long
 
     long countByStatus(JobStatus status);
 
+    List<MigrationJob> findByStatus(JobStatus status);
+
 }
\ No newline at end of file
@@ -76,6 +76,63 @@ public interface QianyiDetailRepository extends JpaRepository<QianyiDetail, Long
             @Param("status") String status,
             @Param("nodeId") String nodeId);
 
+    /**
+     * 抢占转码任务 (大文件优先)：最长处理时间优先 (LPT)，大文件先开始，避免最后才轮到的大文件拖长整批的完成时间
+     * 老化规则：进入该状态 (update_time) 超过 agingMinutes 分钟的任务排在最前 (先到先得)，小文件不会被一直饿着
+     * 没有记录文件大小的 (老数据) 排在最后
+     */
+    @Query(value = """
+        SELECT * FROM qianyi_detail
+        WHERE status = :status
+        AND node_id = :nodeId
+        ORDER BY (update_time < NOW() - INTERVAL :agingMinutes MINUTE) DESC,
+                 CASE WHEN update_time < NOW() - INTERVAL :agingMinutes MINUTE THEN update_time END,
+                 discovered_file_size DESC,
+                 id
+        LIMIT 5
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<QianyiDetail> findAndLockLargestTop5ByStatusAndNodeId(
+            @Param("status") String status,
+            @Param("nodeId") String nodeId,
+            @Param("agingMinutes") int agingMinutes);
+
+    /**
+     * 抢占可以合并转码的小文件：同一迁移单、状态是 NEW、本机、源文件不超过 maxFileSize
+     * 没有记录文件大小的 (老数据) 不参与合并
+     */
+    @Query(value = """
+        SELECT * FROM qianyi_detail
+        WHERE qianyi_id = :qianyiId
+        AND status = :status
+        AND node_id = :nodeId
+        AND discovered_file_size <= :maxFileSize
+        ORDER BY id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<QianyiDetail> findAndLockCoalesceCandidates(
+            @Param("qianyiId") Long qianyiId,
+            @Param("status") String status,
+            @Param("nodeId") String nodeId,
+            @Param("maxFileSize") long maxFileSize,
+            @Param("limit") int limit);
+
+    /**
+     * 合并组的全部成员 (按行号基数排序，即合并拆分里的先后顺序)
+     */
+    List<QianyiDetail> findByCoalesceLeaderIdOrderByCoalesceRowNoBaseAsc(Long coalesceLeaderId);
+
+    /**
+     * 更新合并转码信息 (全部传 null 表示单独转码)
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE QianyiDetail d SET d.coalesceLeaderId = :leaderId, d.coalesceRowNoBase = :rowNoBase WHERE d.id = :id")
+    void updateCoalesce(@Param("id") Long id,
+                        @Param("leaderId") Long leaderId,
+                        @Param("rowNoBase") Long rowNoBase);
+
     // 统计也是一样
     //long countByQianyiIdAndStatusNotAndNodeId(Long qianyiId, DetailStatus status, String nodeId);
 
@@ -114,6 +171,27 @@ public interface QianyiDetailRepository extends JpaRepository<QianyiDetail, Long
     @Query("UPDATE QianyiDetail d SET d.sourceRowCount = :count WHERE d.id = :id")
     void updateSourceRowCount(Long id, Long count);
 
+    /**
+     * 保存转码时探测到的源文件 CSV 格式 (null 表示没有)
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE QianyiDetail d SET d.sourceCsvFormat = :format WHERE d.id = :id")
+    void updateSourceCsvFormat(@Param("id") Long id, @Param("format") String format);
+
+    /**
+     * 更新源文件指纹 (全部传 null 表示清空)
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE QianyiDetail d SET d.sourceFileSize = :size, d.sourceLastModified = :lastModified, " +
+            "d.sourceChecksum = :checksum, d.transcodeSettingsChecksum = :settingsChecksum WHERE d.id = :id")
+    void updateSourceFingerprint(@Param("id") Long id,
+                                 @Param("size") Long size,
+                                 @Param("lastModified") Long lastModified,
+                                 @Param("checksum") Long checksum,
+                                 @Param("settingsChecksum") Long settingsChecksum);
+
     /**
      * 调度器专用
      * @param id
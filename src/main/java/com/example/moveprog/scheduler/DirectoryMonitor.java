@@ -201,6 +201,7 @@ public class DirectoryMonitor {
                 detail.setTargetSchema(qianyi.getTargetSchema());
                 detail.setTargetTableName(qianyi.getTargetTableName());
                 detail.setSourceCsvPath(absCsvPath);
+                detail.setDiscoveredFileSize(new File(absCsvPath).length());
                 detail.setStatus(DetailStatus.NEW);
                 detail.setProgress(0);
                 detailRepo.save(detail);
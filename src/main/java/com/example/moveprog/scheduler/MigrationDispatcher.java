@@ -2,6 +2,7 @@ package com.example.moveprog.scheduler;
 
 import com.example.moveprog.config.AppProperties;
 import com.example.moveprog.entity.CsvSplit;
+import com.example.moveprog.entity.MigrationJob;
 import com.example.moveprog.entity.QianyiDetail;
 import com.example.moveprog.enums.CsvSplitStatus;
 import com.example.moveprog.enums.DetailStatus;
@@ -9,6 +10,8 @@ import com.example.moveprog.enums.JobStatus;
 import com.example.moveprog.repository.CsvSplitRepository;
 import com.example.moveprog.repository.MigrationJobRepository;
 import com.example.moveprog.repository.QianyiDetailRepository;
+import com.example.moveprog.util.MigrationOutputDirectorUtil;
+import com.example.moveprog.service.JobControlManager;
 import com.example.moveprog.service.LoadService;
 import com.example.moveprog.service.StateManager;
 import com.example.moveprog.service.TranscodeService;
@@ -26,8 +29,15 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
 
@@ -45,6 +55,7 @@ public class MigrationDispatcher {
     private final LoadService loadService;
     private final VerifyService verifyService;
     private final StateManager stateManager;
+    private final JobControlManager jobControlManager;
 
     // 注入 AppProperties 用于获取配置...
     private final AppProperties appProperties;
@@ -174,11 +185,77 @@ public class MigrationDispatcher {
 
         // 只有当有活动作业时，才去执行繁重的任务抢占逻辑
         // Modify to use 'self' to trigger Transactional proxy
-        self.dispatchTranscode(myIp);
+        // 磁盘背压期间不抢占新的转码任务 (装载/校验照常，消化积压)
+        if (!updateTranscodeBackpressure(myIp)) {
+            self.dispatchTranscode(myIp);
+        }
         self.dispatchLoad(myIp);
         self.dispatchVerify(myIp);
     }
 
+    /**
+     * 磁盘背压：按本机拆分积压字节数和作业输出目录可用空间更新转码暂停状态 (高水位暂停，低水位恢复)
+     * 暂停状态放在 JobControlManager，正在转码的文件在拆分边界检查
+     * @return true 表示转码暂停中
+     */
+    private boolean updateTranscodeBackpressure(String myIp) {
+        AppProperties.Backpressure backpressure = appProperties.getBackpressure();
+        long high = backpressure.getBacklogHighBytes();
+        long minFree = backpressure.getMinFreeBytes();
+        if (high <= 0 && minFree <= 0) {
+            jobControlManager.setTranscodePaused(false);
+            return false;
+        }
+
+        long backlog = high > 0 ? splitRepo.sumByteCountByNodeIdAndStatusIn(myIp, BACKLOG_STATUSES) : 0;
+        long free = minFree > 0 ? minFreeSpaceOfActiveJobs() : Long.MAX_VALUE;
+        boolean paused = jobControlManager.isTranscodePaused();
+        if (!paused) {
+            if ((high > 0 && backlog >= high) || free < minFree) {
+                log.warn("磁盘背压：暂停转码。本机拆分积压 {} 字节 (高水位 {})，输出目录可用空间 {} 字节 (下限 {})",
+                        backlog, high, free, minFree);
+                paused = true;
+            }
+        } else {
+            boolean backlogOk = high <= 0 || backlog <= Math.min(backpressure.getBacklogLowBytes(), high);
+            boolean freeOk = minFree <= 0 || free >= Math.max(backpressure.getResumeFreeBytes(), minFree);
+            if (backlogOk && freeOk) {
+                log.info("磁盘背压解除：恢复转码。本机拆分积压 {} 字节，输出目录可用空间 {} 字节", backlog, free);
+                paused = false;
+            }
+        }
+        jobControlManager.setTranscodePaused(paused);
+        return paused;
+    }
+
+    /**
+     * 还占着磁盘、等着装载/校验的拆分状态
+     */
+    private static final List<CsvSplitStatus> BACKLOG_STATUSES = List.of(
+            CsvSplitStatus.WAIT_LOAD, CsvSplitStatus.LOADING, CsvSplitStatus.WAIT_VERIFY, CsvSplitStatus.VERIFYING);
+
+    /**
+     * 活动作业中可用空间最少的那个 (一个作业的多个输出目录在不同磁盘上时，可用空间相加)
+     */
+    private long minFreeSpaceOfActiveJobs() {
+        long min = Long.MAX_VALUE;
+        for (MigrationJob job : jobRepo.findByStatus(JobStatus.ACTIVE)) {
+            Map<FileStore, Long> stores = new HashMap<>();
+            for (String root : MigrationOutputDirectorUtil.outputRoots(job)) {
+                try {
+                    FileStore store = Files.getFileStore(Paths.get(root));
+                    stores.put(store, store.getUsableSpace());
+                } catch (IOException e) {
+                    log.warn("取输出目录可用空间失败: {}", root, e);
+                }
+            }
+            if (!stores.isEmpty()) {
+                min = Math.min(min, stores.values().stream().mapToLong(Long::longValue).sum());
+            }
+        }
+        return min;
+    }
+
     /**
      * 机器 A 只负责救援 机器 A 的僵尸任务
      * 每 10 分钟运行一次
@@ -208,8 +285,11 @@ public class MigrationDispatcher {
      */
     @Transactional // 必须开启事务
     public void dispatchTranscode(String myIp) {
-        // 1. 使用 SKIP LOCKED 抢占 5 个任务
-        List<QianyiDetail> details = detailRepo.findAndLockTop5ByStatusAndNodeId(DetailStatus.NEW.toString(), myIp);
+        // 1. 使用 SKIP LOCKED 抢占 5 个任务 (默认大文件优先，等待过久的任务再往前排)
+        AppProperties.Transcode transcode = appProperties.getTranscode();
+        List<QianyiDetail> details = transcode.isLargestFirst()
+                ? detailRepo.findAndLockLargestTop5ByStatusAndNodeId(DetailStatus.NEW.toString(), myIp, transcode.getLargestFirstAgingMinutes())
+                : detailRepo.findAndLockTop5ByStatusAndNodeId(DetailStatus.NEW.toString(), myIp);
         if (details.isEmpty()) return;
 
         for (QianyiDetail d : details) {
@@ -218,13 +298,19 @@ public class MigrationDispatcher {
             int rows = detailRepo.updateStatus(d.getId(), DetailStatus.NEW, DetailStatus.TRANSCODING);
 
             if (rows > 0) {
+                // 小文件顺带抢占同一迁移单的其它小文件，合并转码 (前面已经被合并走的，上面的状态更新会失败)
+                List<Long> group = claimCoalesceGroup(d, myIp);
                 // 3. 【修复】注册事务同步回调，确保事务提交后再触发异步任务
                 // 防止 Worker 线程启动太快，事务还没提交，导致 Worker 读到旧状态而退出
                 TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
                     @Override
                     public void afterCommit() {
                         transcodeExecutor.execute(() -> {
-                            transcodeService.execute(d.getId());
+                            if (group.size() > 1) {
+                                transcodeService.executeCoalesced(group);
+                            } else {
+                                transcodeService.execute(d.getId());
+                            }
                         });
                     }
                 });
@@ -232,6 +318,41 @@ public class MigrationDispatcher {
         }
     }
 
+    /**
+     * 小文件合并转码：在同一事务内抢占同一迁移单下的其它小文件 (同样标记为转码中)
+     * @return 合并组的明细 id，第一个是组长 (只有自己表示单独转码)
+     */
+    private List<Long> claimCoalesceGroup(QianyiDetail leader, String myIp) {
+        AppProperties.Transcode transcode = appProperties.getTranscode();
+        List<Long> group = new ArrayList<>();
+        group.add(leader.getId());
+        long maxFileSize = transcode.getCoalesceMaxFileSize();
+        if (maxFileSize <= 0 || leader.getDiscoveredFileSize() == null || leader.getDiscoveredFileSize() > maxFileSize) {
+            return group;
+        }
+
+        long groupBytes = leader.getDiscoveredFileSize();
+        List<QianyiDetail> candidates = detailRepo.findAndLockCoalesceCandidates(leader.getQianyiId(),
+                DetailStatus.NEW.toString(), myIp, maxFileSize, transcode.getCoalesceMaxFiles());
+        for (QianyiDetail candidate : candidates) {
+            if (group.size() >= transcode.getCoalesceMaxFiles()) {
+                break;
+            }
+            if (candidate.getId().equals(leader.getId())
+                    || groupBytes + candidate.getDiscoveredFileSize() > transcode.getCoalesceGroupBytes()) {
+                continue;
+            }
+            if (detailRepo.updateStatus(candidate.getId(), DetailStatus.NEW, DetailStatus.TRANSCODING) > 0) {
+                group.add(candidate.getId());
+                groupBytes += candidate.getDiscoveredFileSize();
+            }
+        }
+        if (group.size() > 1) {
+            log.info("合并转码: 组长 Detail[{}], 文件数: {}, 总大小: {}", leader.getId(), group.size(), groupBytes);
+        }
+        return group;
+    }
+
     /**
      * --- 阶段 2: 调度装载 (针对 Split) ---
      *  【变化点】这里不再查 Detail，而是直接查 Split 表
@@ -32,7 +32,7 @@ public class StartupTaskResetter implements ApplicationRunner {
         String currentNodeIp = appProperties.getCurrentNodeIp();
 
         // 1. 恢复 Detail: TRANSCODING -> NEW
-        // 意味着上次转码没做完就挂了，必须重头再来
+        // 意味着上次转码没做完就挂了，重新调度 (开启断点续转时，已完成的拆分保留，从最后一个拆分之后继续)
         int countDetail = detailRepo.resetStatus(DetailStatus.TRANSCODING, DetailStatus.NEW, currentNodeIp);
         if (countDetail > 0) {
             log.warn("检测到 {} 个文件在转码中途崩溃，已重置为 NEW 等待重新调度。", countDetail);
@@ -40,6 +40,7 @@ public class StartupTaskResetter implements ApplicationRunner {
 
         // 2. 恢复 Split: LOADING -> WAIT_LOAD
         // 意味着装载线程挂了，重置回去让调度器重新捡起来
+        // (DIRECT_LOADING 的直装拆分没有拆分文件，不能重置为待装载；随所属明细重新转码/续转时清理)
         int countLoad = splitRepo.resetStatus(CsvSplitStatus.LOADING, CsvSplitStatus.WAIT_LOAD, currentNodeIp);
         if (countLoad > 0) {
             log.warn("检测到 {} 个分片在装载中途崩溃，已重置为 WAIT_LOAD。", countLoad);
@@ -1,10 +1,14 @@
 package com.example.moveprog.service;
 
+import java.io.IOException;
 import java.util.Iterator;
 
 /**
  * 通用行数据迭代器
  */
 public interface CloseableRowIterator<T> extends Iterator<T[]>, AutoCloseable {
-    // 继承了 hasNext(), next() 和 close()
-}
\ No newline at end of file
+    // 继承了 hasNext(), next()
+
+    @Override
+    void close() throws IOException;
+}
@@ -3,8 +3,6 @@ package com.example.moveprog.service;
 import com.example.moveprog.config.AppProperties;
 import com.example.moveprog.entity.CsvSplit;
 import com.example.moveprog.entity.Qianyi;
-import com.example.moveprog.repository.CsvSplitRepository;
-import com.example.moveprog.repository.QianyiRepository;
 import com.example.moveprog.util.MigrationOutputDirectorUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,8 +22,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class JdbcHelper {
 
-    private final QianyiRepository qianyiRepo;
-    private final CsvSplitRepository csvSplitRepository;
+    private final MetaEntityCache metaCache;
+    private final TableSchemaRegistry schemaRegistry;
 
     private final AppProperties config;
 
@@ -41,7 +39,7 @@ public class JdbcHelper {
     }
 
     public String qianyiTableName(Long qianyiId) {
-        Qianyi qianyi = qianyiRepo.findById(qianyiId).orElseThrow();
+        Qianyi qianyi = metaCache.findQianyi(qianyiId).orElseThrow();
         return tableNameQuote(qianyi.getTargetSchema(), qianyi.getTargetTableName());
     }
 
@@ -91,30 +89,33 @@ public class JdbcHelper {
      * @return Pair<SQL, 参数列表>
      */
     public Pair<String, List<Object>> deleteSql(Long splitId) {
-        CsvSplit csvSplit = csvSplitRepository.findById(splitId).orElseThrow();
-        Qianyi qianyi = qianyiRepo.findById(csvSplit.getQianyiId()).orElseThrow();
-        String tableName = qianyiTableName(qianyi.getId());
+        CsvSplit csvSplit = metaCache.findSplit(splitId).orElseThrow();
+        Qianyi qianyi = metaCache.findQianyi(csvSplit.getQianyiId()).orElseThrow();
+        // 不用 DDL，不走表结构缓存 (DDL 文件丢了也要能清理已装载的数据)
+        String tableName = tableNameQuote(qianyi.getTargetSchema(), qianyi.getTargetTableName());
 
         String sql = "DELETE FROM " + tableName + " WHERE " + columnQuote(config.getLoadJdbc().getColumnNameCsvId()) + "=?";
         return Pair.of(sql, Collections.singletonList(splitId));
     }
 
     public Pair<String, List<Object>> verifySelectSql(Long splitId) throws IOException {
-        CsvSplit csvSplit = csvSplitRepository.findById(splitId).orElseThrow();
+        CsvSplit csvSplit = metaCache.findSplit(splitId).orElseThrow();
 
-        Qianyi qianyi = qianyiRepo.findById(csvSplit.getQianyiId()).orElseThrow();
-        String tableName = qianyiTableName(qianyi.getId());
+        Qianyi qianyi = metaCache.findQianyi(csvSplit.getQianyiId()).orElseThrow();
+        TableSchemaRegistry.Entry schema = schemaRegistry.get(qianyi);
 
-        String ddlFilePath = qianyi.getDdlFilePath();
-        List<String> columnNames = new ArrayList<>(SchemaParseUtil.parseColumnNamesFromDdl(ddlFilePath));
-        columnNames.add(config.getLoadJdbc().getColumnNameSourceRowNo());
-        String columnList = columnNames.stream().map(c -> columnQuote(c)).collect(Collectors.joining(","));
+        String sql = schema.statement(TableSchemaRegistry.Statement.VERIFY_SELECT, () -> {
+            String tableName = tableNameQuote(qianyi.getTargetSchema(), qianyi.getTargetTableName());
+            List<String> columnNames = new ArrayList<>(schema.getColumnNames());
+            columnNames.add(config.getLoadJdbc().getColumnNameSourceRowNo());
+            String columnList = columnNames.stream().map(c -> columnQuote(c)).collect(Collectors.joining(","));
 
-        // SQL: 强制按 source_row_no 排序，保证流式读取顺序与文件一致
-        // 使用占位符 ?
-        String sql = "SELECT " + columnList + " FROM " + tableName +
-                " WHERE " + columnQuote(config.getLoadJdbc().getColumnNameCsvId()) + " = ?" +
-                " ORDER BY " + columnQuote(config.getLoadJdbc().getColumnNameSourceRowNo()) + " ASC";
+            // SQL: 强制按 source_row_no 排序，保证流式读取顺序与文件一致
+            // 使用占位符 ?
+            return "SELECT " + columnList + " FROM " + tableName +
+                    " WHERE " + columnQuote(config.getLoadJdbc().getColumnNameCsvId()) + " = ?" +
+                    " ORDER BY " + columnQuote(config.getLoadJdbc().getColumnNameSourceRowNo()) + " ASC";
+        });
 
         return Pair.of(sql, Collections.singletonList(csvSplit.getId()));
     }
@@ -125,68 +126,98 @@ public class JdbcHelper {
      */
     public Pair<String,List<String>> loadJdbcSql(Long splitId) throws IOException {
 
-        CsvSplit csvSplit = csvSplitRepository.findById(splitId).orElseThrow();
+        CsvSplit csvSplit = metaCache.findSplit(splitId).orElseThrow();
 
-        Qianyi qianyi = qianyiRepo.findById(csvSplit.getQianyiId()).orElseThrow();
-        String queroTableName = qianyiTableName(qianyi.getId());
+        Qianyi qianyi = metaCache.findQianyi(csvSplit.getQianyiId()).orElseThrow();
+        TableSchemaRegistry.Entry schema = schemaRegistry.get(qianyi);
 
-        String ddlFilePath = qianyi.getDdlFilePath();
-        List<String> columnNameList = new ArrayList<>(SchemaParseUtil.parseColumnNamesFromDdl(ddlFilePath));
+        List<String> columnNameList = new ArrayList<>(schema.getColumnNames());
         columnNameList.add(config.getLoadJdbc().getColumnNameCsvId());
         columnNameList.add(config.getLoadJdbc().getColumnNameSourceRowNo());
 
-        StringBuilder sql = new StringBuilder("INSERT INTO ").append(queroTableName).append(" (");
-        sql.append(columnNameList.stream().map(c -> columnQuote(c)).collect(Collectors.joining(","))).append(") VALUES (");
-        sql.append(columnNameList.stream().map(c -> "?").collect(Collectors.joining(",")));
-        sql.append(")");
+        String sql = schema.statement(TableSchemaRegistry.Statement.INSERT, () -> {
+            String queroTableName = tableNameQuote(qianyi.getTargetSchema(), qianyi.getTargetTableName());
+            StringBuilder insert = new StringBuilder("INSERT INTO ").append(queroTableName).append(" (");
+            insert.append(columnNameList.stream().map(c -> columnQuote(c)).collect(Collectors.joining(","))).append(") VALUES (");
+            insert.append(columnNameList.stream().map(c -> "?").collect(Collectors.joining(",")));
+            insert.append(")");
+            return insert.toString();
+        });
 
-        return Pair.of(sql.toString(), columnNameList);
+        return Pair.of(sql, columnNameList);
     }
 
 
-    public String loadDataInfileSql(Long splitId) throws IOException {
+    /**
+     * 多行 INSERT 的语句头: INSERT INTO table (col1, col2, csv_id, source_row_no) VALUES
+     * 后面由调用方按行数拼 (?, ...),(?, ...)
+     * @return Pair<语句头, 语句列 (数据列 + csv_id + 行号)>
+     */
+    public Pair<String,List<String>> loadJdbcInsertHead(Long splitId) throws IOException {
 
-        CsvSplit csvSplit = csvSplitRepository.findById(splitId).orElseThrow();
+        CsvSplit csvSplit = metaCache.findSplit(splitId).orElseThrow();
 
-        Qianyi qianyi = qianyiRepo.findById(csvSplit.getQianyiId()).orElseThrow();
-        String queroTableName = qianyiTableName(qianyi.getId());
+        Qianyi qianyi = metaCache.findQianyi(csvSplit.getQianyiId()).orElseThrow();
+        TableSchemaRegistry.Entry schema = schemaRegistry.get(qianyi);
 
-        String ddlFilePath = qianyi.getDdlFilePath();
+        List<String> columnNameList = new ArrayList<>(schema.getColumnNames());
+        columnNameList.add(config.getLoadJdbc().getColumnNameCsvId());
+        columnNameList.add(config.getLoadJdbc().getColumnNameSourceRowNo());
 
-        Pair<String, Boolean> actualSplitPath = MigrationOutputDirectorUtil.getActualSplitPath(csvSplit);
+        String head = schema.statement(TableSchemaRegistry.Statement.INSERT_HEAD, () -> {
+            String queroTableName = tableNameQuote(qianyi.getTargetSchema(), qianyi.getTargetTableName());
+            return "INSERT INTO " + queroTableName + " ("
+                    + columnNameList.stream().map(c -> columnQuote(c)).collect(Collectors.joining(",")) + ") VALUES ";
+        });
 
-        String safePath = actualSplitPath.getKey().replace("\\", "/");
-        // 【安全修复】对路径进行转义
-        safePath = escapeStringLiteral(safePath);
+        return Pair.of(head, columnNameList);
+    }
 
-        AppProperties.CsvDetailConfig utf8Split = config.getCsv().getUtf8Split();
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("LOAD DATA LOCAL INFILE '").append(safePath).append("' ");
-        sb.append("INTO TABLE ").append(queroTableName).append(" ");
-        sb.append("CHARACTER SET utf8mb4 ");
+    public String loadDataInfileSql(Long splitId) throws IOException {
 
-        // 【安全修复】转义 CSV 格式选项
-        sb.append("FIELDS TERMINATED BY '").append(escapeStringLiteral(String.valueOf(utf8Split.getDelimiter()))).append("' ");
-        sb.append("OPTIONALLY ENCLOSED BY '").append(escapeStringLiteral(String.valueOf(utf8Split.getQuote()))).append("' ");
-        sb.append("LINES TERMINATED BY '").append(escapeStringLiteral(utf8Split.getLineSeparator())).append("' ");
+        CsvSplit csvSplit = metaCache.findSplit(splitId).orElseThrow();
 
-        // --- 关键部分：列映射 ---
-        // CSV 文件的结构是: [DDL列1, DDL列2, ... DDL列N, 行号]
-        // SQL 语法: (col1, col2, ..., @var_lineno)
+        Qianyi qianyi = metaCache.findQianyi(csvSplit.getQianyiId()).orElseThrow();
+        TableSchemaRegistry.Entry schema = schemaRegistry.get(qianyi);
 
-        sb.append("(");
-        List<String> columnNames = new ArrayList<>(SchemaParseUtil.parseColumnNamesFromDdl(ddlFilePath));
-        // 1. 拼接DDL中的业务列名
-        for (String col : columnNames) {
-            sb.append(columnQuote(col)).append(", ");
-        }
-        sb.append(columnQuote(config.getLoadJdbc().getColumnNameSourceRowNo()));
-        sb.append(")");
-        // -- 【关键】在这里把当前的 csvid 赋值给每一行
-        sb.append(" SET ").append(columnQuote(config.getLoadJdbc().getColumnNameCsvId())).append("=").append(splitId);
+        Pair<String, Boolean> actualSplitPath = MigrationOutputDirectorUtil.getActualSplitPath(csvSplit);
+
+        String safePath = actualSplitPath.getKey().replace("\\", "/");
+        // 【安全修复】对路径进行转义
+        safePath = escapeStringLiteral(safePath);
 
-        return sb.toString();
+        // 文件路径之后的部分 (表名、格式、列映射) 每个迁移单只拼一次
+        String template = schema.statement(TableSchemaRegistry.Statement.LOAD_DATA, () -> {
+            String queroTableName = tableNameQuote(qianyi.getTargetSchema(), qianyi.getTargetTableName());
+            AppProperties.CsvDetailConfig utf8Split = config.getCsv().getUtf8Split();
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("INTO TABLE ").append(queroTableName).append(" ");
+            sb.append("CHARACTER SET utf8mb4 ");
+
+            // 【安全修复】转义 CSV 格式选项
+            sb.append("FIELDS TERMINATED BY '").append(escapeStringLiteral(String.valueOf(utf8Split.getDelimiter()))).append("' ");
+            sb.append("OPTIONALLY ENCLOSED BY '").append(escapeStringLiteral(String.valueOf(utf8Split.getQuote()))).append("' ");
+            sb.append("LINES TERMINATED BY '").append(escapeStringLiteral(utf8Split.getLineSeparator())).append("' ");
+
+            // --- 关键部分：列映射 ---
+            // CSV 文件的结构是: [DDL列1, DDL列2, ... DDL列N, 行号]
+            // SQL 语法: (col1, col2, ..., @var_lineno)
+
+            sb.append("(");
+            // 1. 拼接DDL中的业务列名
+            for (String col : schema.getColumnNames()) {
+                sb.append(columnQuote(col)).append(", ");
+            }
+            sb.append(columnQuote(config.getLoadJdbc().getColumnNameSourceRowNo()));
+            sb.append(")");
+            // -- 【关键】在这里把当前的 csvid 赋值给每一行
+            sb.append(" SET ").append(columnQuote(config.getLoadJdbc().getColumnNameCsvId())).append("=");
+            return sb.toString();
+        });
+
+        return "LOAD DATA LOCAL INFILE '" + safePath + "' " + template + splitId;
     }
 
 
@@ -1,17 +1,22 @@
 package com.example.moveprog.service;
 
 import com.example.moveprog.exception.JobStoppedException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Component
+@Slf4j
 public class JobControlManager {
 
     // 内存中的“停止名单” (存放已停止的 JobID)
     private Set<Long> stoppedJobIds = ConcurrentHashMap.newKeySet();
 
+    // 磁盘背压 (调度器根据积压和可用空间设置)：为 true 时正在转码的文件在拆分边界等待
+    private volatile boolean transcodePaused = false;
+
     /**
      * 前端点击停止时调用
      */
@@ -36,4 +41,32 @@ public class JobControlManager {
         }
     }
 
+    public void setTranscodePaused(boolean paused) {
+        this.transcodePaused = paused;
+    }
+
+    public boolean isTranscodePaused() {
+        return transcodePaused;
+    }
+
+    /**
+     * 转码在拆分边界调用：磁盘背压期间等待恢复 (等待中作业被停止或线程被中断则抛异常，不能在背压期间继续转码)
+     */
+    public void awaitTranscodeResume(Long jobId) {
+        if (!transcodePaused) {
+            return;
+        }
+        log.info("磁盘背压，作业 [{}] 的转码在拆分边界暂停", jobId);
+        while (transcodePaused) {
+            checkJobState(jobId);
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JobStoppedException("作业 [" + jobId + "] 的转码在磁盘背压等待中被中断。");
+            }
+        }
+        log.info("磁盘背压解除，作业 [{}] 的转码继续", jobId);
+    }
+
 }
\ No newline at end of file
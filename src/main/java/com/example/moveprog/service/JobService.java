@@ -26,6 +26,8 @@ public class JobService {
     private final QianyiRepository qianyiRepository;
     private final TargetDatabaseConnectionManager targetDatabaseConnectionManager;
     private final MigrationArtifactManager migrationArtifactManager;
+    private final TableSchemaRegistry schemaRegistry;
+    private final MetaEntityCache metaCache;
 
     private final AppProperties config;
 
@@ -44,7 +46,9 @@ public class JobService {
         if (!dir.exists()) {
             dir.mkdirs(); // 或者抛错，看需求
         }
-        return jobRepo.save(job);
+        MigrationJob saved = jobRepo.save(job);
+        metaCache.invalidateJob(saved.getId());
+        return saved;
     }
 
     @Transactional
@@ -56,6 +60,7 @@ public class JobService {
     @Transactional
     public void deleteJob(Long id) {
         jobRepo.deleteById(id);
+        metaCache.invalidateJob(id);
     }
 
     /**
@@ -71,6 +76,8 @@ public class JobService {
         // 2. 更新数据库状态
         batch.setStatus(BatchStatus.FINISHED); // 或 CLOSED
         qianyiRepository.save(batch);
+        schemaRegistry.invalidate(batchId);
+        metaCache.invalidateQianyi(batchId);
 
         // 3. 【核心】触发清理 (根据配置)
         // 建议从配置读取: app.job.auto-clean-on-close = true
@@ -1,12 +1,21 @@
 package com.example.moveprog.service;
 
 import com.example.moveprog.config.AppProperties;
+import com.example.moveprog.dto.TableSchema;
 import com.example.moveprog.entity.*;
 import com.example.moveprog.enums.CsvSplitStatus;
+import com.example.moveprog.enums.TypedBindingSource;
 import com.example.moveprog.exception.JobStoppedException;
 import com.example.moveprog.repository.*;
+import com.example.moveprog.service.impl.LocalInfileStream;
+import com.example.moveprog.service.impl.MultiRowInsertWriter;
+import com.example.moveprog.service.impl.TranscodePipeline;
+import com.example.moveprog.service.impl.TypedParameterBinder;
 import com.example.moveprog.util.CharsetFactory;
 import com.example.moveprog.util.MigrationOutputDirectorUtil;
+import com.example.moveprog.util.SplitFileCompression;
+import com.example.moveprog.util.BlockingHandoff;
+import com.mysql.cj.jdbc.JdbcStatement;
 import com.univocity.parsers.csv.CsvParser;
 import com.univocity.parsers.csv.CsvParserSettings;
 import lombok.RequiredArgsConstructor;
@@ -14,13 +23,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.stereotype.Service;
 
-import java.io.FileInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -33,11 +48,12 @@ public class LoadService {
     private final StateManager stateManager;
 
     private final CsvSplitRepository splitRepo;
-    private final QianyiRepository qianyiRepo;
 
     private final JobControlManager jobControlManager;
     private final TargetDatabaseConnectionManager targetDatabaseConnectionManager;
     private final JdbcHelper jdbcHelper;
+    private final MetaEntityCache metaCache;
+    private final TableSchemaRegistry schemaRegistry;
     private final MigrationArtifactManager migrationArtifactManager;
 
     private final AppProperties config;
@@ -57,11 +73,16 @@ public class LoadService {
             // 【埋点1】刚进来先查一下
             jobControlManager.checkJobState(csvSplit.getJobId()); // 如果抛异常，直接被下面捕获
 
-            Qianyi qianyi = qianyiRepo.findById(csvSplit.getQianyiId()).orElseThrow();
+            // 直装的拆分没有中间文件，只能重新转码 (重试也没有意义)
+            if (!Files.exists(Paths.get(MigrationOutputDirectorUtil.getActualSplitPath(csvSplit).getKey()))) {
+                throw new RuntimeException("拆分文件不存在 (直装模式不生成拆分文件)，请重新转码: " + csvSplit.getSplitFilePath());
+            }
+
+            Qianyi qianyi = metaCache.findQianyi(csvSplit.getQianyiId()).orElseThrow();
 
             // 2. 解析 DDL 获取列名列表 (用于构造 LOAD DATA 语句)
             // 假设 DDL 文件路径存在 batch.getDdlFilePath() 中
-            List<String> columnNames = SchemaParseUtil.parseColumnNamesFromDdl(qianyi.getDdlFilePath());
+            List<String> columnNames = schemaRegistry.get(qianyi).getColumnNames();
 
             // 3. 获取待装载切分文件 (待装载)
             loadSingleSplitFileWithRetry(csvSplit, columnNames);
@@ -100,8 +121,10 @@ public class LoadService {
                 }
 
                 // --- 您的核心装载逻辑 (保留您原有的逻辑) ---
+                long start = System.currentTimeMillis();
                 loadSingleSplitFile(split);
                 // ---------------------------------------
+                recordLoadMillis(split, System.currentTimeMillis() - start);
 
                 // 如果运行到这里没有抛异常，说明成功了，直接返回
                 return;
@@ -127,6 +150,17 @@ public class LoadService {
 
     }
 
+    /**
+     * 记录装载耗时 (学习拆分大小用)，记录失败不影响装载结果
+     */
+    private void recordLoadMillis(CsvSplit split, long millis) {
+        try {
+            splitRepo.updateLoadMillis(split.getId(), millis);
+        } catch (Exception e) {
+            log.warn("记录装载耗时失败 Split[{}]: {}", split.getId(), e.getMessage());
+        }
+    }
+
     /**
      * 单个切分文件装载 (原子操作：删 + 插)
      * 单次装载逻辑 (不要在这里更新 DB 状态，只管抛异常)
@@ -166,72 +200,327 @@ public class LoadService {
 
     /**
      * 【新增】使用 JDBC PreparedStatement 批量插入
+     * addBatch/executeBatch (默认) 或多行 INSERT；开启双缓冲时解析线程解析、转换下一批，当前线程同时执行上一批
+     * (语句都在当前线程执行，同一个连接、同一个事务)
      */
     private void loadByJdbcBatch(Connection conn, Long splitId) throws Exception {
+        AppProperties.LoadJdbc loadJdbc = config.getLoadJdbc();
+        boolean multiRow = loadJdbc.isMultiRowInsert();
 
-        Pair<String,List<String>> loadJdbcSqlPair = jdbcHelper.loadJdbcSql(splitId);
+        Pair<String,List<String>> loadJdbcSqlPair = multiRow ? jdbcHelper.loadJdbcInsertHead(splitId) : jdbcHelper.loadJdbcSql(splitId);
         String sql = loadJdbcSqlPair.getLeft();
         List<String> loadSqlColumns = loadJdbcSqlPair.getRight();
+        int dataColumns = loadSqlColumns.size() - 2;
 
-        log.info("using JDBC Batch Insert: {}", sql);
+        log.info("using JDBC {}: {}", multiRow ? "multi-row INSERT" : "Batch Insert", sql);
 
-        CsvSplit csvSplit = splitRepo.findById(splitId).orElseThrow();
+        CsvSplit csvSplit = metaCache.findSplit(splitId).orElseThrow();
 
-        // 2. 准备 CSV 解析器
-        AppProperties.CsvDetailConfig utf8Config = config.getCsv().getUtf8Split();
-        CsvParserSettings settings = utf8Config.toParserSettings(); // 复用配置
-        CsvParser parser = new CsvParser(settings);
-        Charset charset = CharsetFactory.resolveCharset(utf8Config.getEncoding());
-
-        int batchSize = config.getLoadJdbc().getBatchSize();
+        int batchSize = loadJdbc.getBatchSize();
         if (batchSize <= 0) batchSize = 5000;
 
-        try (PreparedStatement ps = conn.prepareStatement(sql);
-             InputStreamReader reader = new InputStreamReader(
-                     new FileInputStream(MigrationOutputDirectorUtil.getActualSplitPath(csvSplit).getKey()), charset)) {
-            // 【关键】设置超时，防止死锁或网络丢包导致线程永久挂起
-            // 建议在 application.yml 里配置 load-jdbc.query-timeout: 600
-            int timeout = config.getLoadJdbc().getQueryTimeout();
-            if (timeout > 0) {
-                ps.setQueryTimeout(timeout);
+        // 按列类型在客户端转换参数 (数据列 = 语句列去掉 csv_id 和行号)
+        TypedParameterBinder binder = resolveParameterBinder(conn, csvSplit, loadSqlColumns.subList(0, dataColumns));
+        RowBatchParser batchParser = new RowBatchParser(csvSplit, dataColumns, binder, multiRow, batchSize);
+
+        long start = System.currentTimeMillis();
+        try (JdbcBatchExecutor executor = multiRow
+                ? new MultiRowInsertExecutor(new MultiRowInsertWriter(conn, sql, dataColumns, csvSplit.getId(), binder,
+                        resolveMaxAllowedPacket(conn), batchSize, loadJdbc.getQueryTimeout()))
+                : new PreparedBatchExecutor(conn, sql, dataColumns, csvSplit.getId(), binder, loadJdbc.getQueryTimeout())) {
+            if (loadJdbc.isDoubleBuffered()) {
+                executeDoubleBuffered(batchParser, executor, splitId);
+            } else {
+                batchParser.parse(batch -> {
+                    executor.execute(batch);
+                    return true;
+                });
             }
+            executor.finish();
+            executor.logSummary(splitId, System.currentTimeMillis() - start);
+        }
+    }
 
-            parser.beginParsing(reader);
-            String[] row;
-            long count = 0;
-
-            while ((row = parser.parseNext()) != null) {
-                // CSV行结构: [业务列1, 业务列2, ..., csv拆分id, 行号]
-                // 刚好与我们的 Insert SQL 参数顺序对应
-                if (row.length + 1 != loadSqlColumns.size()) {
-                    throw new RuntimeException("CSV列数不匹配！RowLength=" + row.length +
-                            " (含行号), SQLExpected=" + (loadSqlColumns.size()-2));
+    /**
+     * 双缓冲：解析线程解析、转换下一批 (队列里最多再攒一批)，当前线程执行上一批
+     * 两边大部分时间在等对方 (执行批次等数据库)，用阻塞队列交接，等待时不占 CPU
+     * 任一边失败 (含叫停的 JobStoppedException) 时另一边退出，原始异常在当前线程抛出，由调用方回滚
+     */
+    private void executeDoubleBuffered(RowBatchParser batchParser, JdbcBatchExecutor executor, Long splitId) throws Exception {
+        BlockingHandoff<RowBatch> queue = new BlockingHandoff<>(1);
+        TranscodePipeline pipeline = new TranscodePipeline();
+        try {
+            pipeline.start("load-parse-" + splitId, () -> {
+                try {
+                    batchParser.parse(batch -> queue.put(batch, pipeline::isAborted));
+                } finally {
+                    queue.close();
                 }
+            });
 
-                // 填充参数
-                for (int i = 0; i < row.length-1; i++) {
-                    // 这里简化处理，全部 setString，依赖 JDBC 驱动做类型转换
-                    // 如果遇到特殊类型（如 Blob/Binary），可能需要更精细的处理
-                    ps.setString(i + 1, row[i]);
-                }
-                ps.setLong(loadSqlColumns.size()-1, csvSplit.getId());
-                ps.setLong(loadSqlColumns.size(), Long.parseLong(row[row.length-1])); // ibm csv中行号
+            RowBatch batch;
+            while (null != (batch = queue.take(pipeline::isAborted))) {
+                executor.execute(batch);
+            }
+            // 队列结束可能是解析线程失败，先把它的异常抛出来，不能当作正常结束
+            pipeline.rethrowIfFailed();
+        } finally {
+            // 执行失败时中止解析线程
+            pipeline.close();
+        }
+    }
 
-                ps.addBatch();
+    /**
+     * 解析好的一批行
+     * @param rows 每行: 数据列 (TypedParameterBinder.convert 的结果) + 行号 (Long)
+     * @param rowBytes 多行 INSERT 用的每行预估字节数 (addBatch 模式为 null)
+     */
+    private record RowBatch(List<Object[]> rows, long[] rowBytes) {
+    }
+
+    @FunctionalInterface
+    private interface RowBatchSink {
+        /**
+         * @return false 表示停止解析 (流水线已中止)
+         */
+        boolean accept(RowBatch batch) throws Exception;
+    }
+
+    /**
+     * 拆分文件按批解析：每行按列类型转换好，多行 INSERT 还要量好字节数
+     */
+    private class RowBatchParser {
+        private final CsvSplit csvSplit;
+        private final int dataColumns;
+        private final TypedParameterBinder binder;
+        private final boolean measure;
+        private final int batchSize;
+
+        RowBatchParser(CsvSplit csvSplit, int dataColumns, TypedParameterBinder binder, boolean measure, int batchSize) {
+            this.csvSplit = csvSplit;
+            this.dataColumns = dataColumns;
+            this.binder = binder;
+            this.measure = measure;
+            this.batchSize = batchSize;
+        }
 
-                if ((count+1) % 1000 == 0) {
-                    jobControlManager.checkJobState(csvSplit.getJobId()); // 发现停止则抛异常
+        void parse(RowBatchSink sink) throws Exception {
+            // 准备 CSV 解析器
+            AppProperties.CsvDetailConfig utf8Config = config.getCsv().getUtf8Split();
+            CsvParserSettings settings = utf8Config.toParserSettings(); // 复用配置
+            CsvParser parser = new CsvParser(settings);
+            Charset charset = CharsetFactory.resolveCharset(utf8Config.getEncoding());
+
+            try (InputStreamReader reader = new InputStreamReader(
+                    SplitFileCompression.openInput(Paths.get(MigrationOutputDirectorUtil.getActualSplitPath(csvSplit).getKey())), charset)) {
+                parser.beginParsing(reader);
+                String[] row;
+                long count = 0;
+                RowBatch batch = newBatch();
+
+                while ((row = parser.parseNext()) != null) {
+                    // CSV行结构: [业务列1, 业务列2, ..., 行号]，语句参数再加上 csv拆分id
+                    if (row.length != dataColumns + 1) {
+                        throw new RuntimeException("CSV列数不匹配！RowLength=" + row.length +
+                                " (含行号), SQLExpected=" + dataColumns);
+                    }
+
+                    // 数值/日期时间在客户端转换，其它类型保持字符串
+                    Object[] values = new Object[dataColumns + 1];
+                    for (int i = 0; i < dataColumns; i++) {
+                        values[i] = binder.convert(i, row[i]);
+                    }
+                    values[dataColumns] = Long.parseLong(row[dataColumns]); // ibm csv中行号
+                    if (measure) {
+                        batch.rowBytes()[batch.rows().size()] = MultiRowInsertWriter.rowBytes(values, dataColumns);
+                    }
+                    batch.rows().add(values);
+
+                    if (++count % 1000 == 0) {
+                        jobControlManager.checkJobState(csvSplit.getJobId()); // 发现停止则抛异常
+                    }
+
+                    if (batch.rows().size() == batchSize) {
+                        if (!sink.accept(batch)) {
+                            return;
+                        }
+                        batch = newBatch();
+                    }
+                }
+                // 剩余的
+                if (!batch.rows().isEmpty()) {
+                    sink.accept(batch);
                 }
+            }
+        }
+
+        private RowBatch newBatch() {
+            return new RowBatch(new ArrayList<>(batchSize), measure ? new long[batchSize] : null);
+        }
+    }
+
+    /**
+     * 执行解析好的批 (都在装载线程、同一个连接上)
+     */
+    private interface JdbcBatchExecutor extends AutoCloseable {
+        void execute(RowBatch batch) throws SQLException;
+
+        void finish() throws SQLException;
 
-                if (++count % batchSize == 0) {
-                    ps.executeBatch();
-                    ps.clearBatch();
+        void logSummary(Long splitId, long millis);
+
+        @Override
+        void close() throws SQLException;
+    }
+
+    /**
+     * 单行 INSERT + addBatch/executeBatch (依赖驱动 rewriteBatchedStatements 改写)
+     */
+    private static class PreparedBatchExecutor implements JdbcBatchExecutor {
+        private final PreparedStatement ps;
+        private final int dataColumns;
+        private final long csvId;
+        private final TypedParameterBinder binder;
+        private long rowCount = 0;
+        private long batchCount = 0;
+
+        PreparedBatchExecutor(Connection conn, String sql, int dataColumns, long csvId, TypedParameterBinder binder,
+                              int queryTimeout) throws SQLException {
+            this.ps = conn.prepareStatement(sql);
+            this.dataColumns = dataColumns;
+            this.csvId = csvId;
+            this.binder = binder;
+            // 【关键】设置超时，防止死锁或网络丢包导致线程永久挂起
+            // 建议在 application.yml 里配置 load-jdbc.query-timeout: 600
+            if (queryTimeout > 0) {
+                ps.setQueryTimeout(queryTimeout);
+            }
+        }
+
+        @Override
+        public void execute(RowBatch batch) throws SQLException {
+            for (Object[] values : batch.rows()) {
+                for (int i = 0; i < dataColumns; i++) {
+                    binder.bindValue(ps, i + 1, i, values[i]);
                 }
+                ps.setLong(dataColumns + 1, csvId);
+                ps.setLong(dataColumns + 2, (Long) values[dataColumns]);
+                ps.addBatch();
             }
-            // 提交剩余的
             ps.executeBatch();
             ps.clearBatch();
+            rowCount += batch.rows().size();
+            batchCount++;
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public void logSummary(Long splitId, long millis) {
+            log.info("JDBC Batch 装载 Split[{}]: {} 行, {} 批, 耗时 {} ms", splitId, rowCount, batchCount, millis);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            ps.close();
+        }
+    }
+
+    /**
+     * 多行 INSERT (每条语句按行字节数控制在 max_allowed_packet 以内，满块语句复用)
+     */
+    private static class MultiRowInsertExecutor implements JdbcBatchExecutor {
+        private final MultiRowInsertWriter writer;
+
+        MultiRowInsertExecutor(MultiRowInsertWriter writer) {
+            this.writer = writer;
+            log.info("multi-row INSERT 每条最多 {} 行", writer.getMaxRows());
+        }
+
+        @Override
+        public void execute(RowBatch batch) throws SQLException {
+            List<Object[]> rows = batch.rows();
+            for (int i = 0; i < rows.size(); i++) {
+                writer.add(rows.get(i), batch.rowBytes()[i]);
+            }
+        }
+
+        @Override
+        public void finish() throws SQLException {
+            writer.finish();
+        }
+
+        @Override
+        public void logSummary(Long splitId, long millis) {
+            long statements = Math.max(writer.getStatementCount(), 1);
+            log.info("多行 INSERT 装载 Split[{}]: {} 行, {} 次往返 (其中 {} 次受 max_allowed_packet 限制), 平均每次 {} 行 / {} KB, 耗时 {} ms",
+                    splitId, writer.getRowCount(), writer.getStatementCount(), writer.getPacketLimitedCount(),
+                    writer.getRowCount() / statements, writer.getByteCount() / statements / 1024, millis);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            writer.close();
+        }
+    }
+
+    /**
+     * 多行 INSERT 每条语句的大小上限：配置优先，否则查目标库 @@max_allowed_packet (查不到按 4MB)
+     */
+    private long resolveMaxAllowedPacket(Connection conn) {
+        long configured = config.getLoadJdbc().getMaxAllowedPacket();
+        if (configured > 0) {
+            return configured;
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT @@max_allowed_packet")) {
+            if (rs.next() && rs.getLong(1) > 0) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            log.warn("查询 max_allowed_packet 失败，按 4MB 拼多行 INSERT: {}", e.getMessage());
+        }
+        return 4L * 1024 * 1024;
+    }
+
+    /**
+     * 按配置取表结构 (目标表 information_schema 或 DDL 文件)，生成参数绑定器
+     * 取不到表结构时全部按字符串绑定 (和原来一样)
+     */
+    private TypedParameterBinder resolveParameterBinder(Connection conn, CsvSplit csvSplit, List<String> dataColumns) {
+        TypedBindingSource source = config.getLoadJdbc().getTypedBinding();
+        if (source == TypedBindingSource.NONE) {
+            return new TypedParameterBinder(null, dataColumns);
         }
+        Qianyi qianyi = metaCache.findQianyi(csvSplit.getQianyiId()).orElseThrow();
+        TableSchema schema = null;
+        try {
+            TableSchemaRegistry.Entry cached = schemaRegistry.get(qianyi);
+            if (source == TypedBindingSource.TARGET) {
+                // 目标表结构每个迁移单只查一次 information_schema
+                schema = cached.getTargetSchema();
+                if (schema == null) {
+                    try {
+                        schema = SchemaParseUtil.readTableSchema(conn, qianyi.getTargetSchema(), qianyi.getTargetTableName());
+                        if (!schema.getColumns().isEmpty()) {
+                            cached.setTargetSchema(schema);
+                        }
+                    } catch (SQLException e) {
+                        log.warn("读取目标表结构失败，按 DDL 文件的列类型绑定: {}", e.getMessage());
+                    }
+                }
+            }
+            if (schema == null || schema.getColumns().isEmpty()) {
+                schema = cached.getDdlSchema();
+            }
+        } catch (IOException e) {
+            log.warn("解析 DDL 文件列类型失败，全部按字符串绑定: {}", e.getMessage());
+        }
+        TypedParameterBinder binder = new TypedParameterBinder(schema, dataColumns);
+        log.info("JDBC 批量装载按类型绑定的列数: {}/{}", binder.getTypedColumnCount(), dataColumns.size());
+        return binder;
     }
 
     // 【新增优化】 会话级加速配置, 比如执行
@@ -254,6 +543,18 @@ public class LoadService {
         // Step 2: 构造 LOAD DATA SQL
         String loadSql = jdbcHelper.loadDataInfileSql(splitId);
 
+        // 压缩的拆分文件：驱动读不了 gz，改为把解压后的数据流交给驱动
+        String splitPath = MigrationOutputDirectorUtil.getActualSplitPath(metaCache.findSplit(splitId).orElseThrow()).getKey();
+        if (SplitFileCompression.isCompressed(splitPath)) {
+            try (InputStream in = SplitFileCompression.openInput(Paths.get(splitPath));
+                 Statement stmt = conn.createStatement()) {
+                stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(in);
+                log.info("sql：{} (解压数据流)", loadSql);
+                stmt.executeUpdate(loadSql);
+            }
+            return;
+        }
+
         // 执行装载
         // 注意：如果是 MySQL，必须在 URL 加上 allowLoadLocalInfile=true
         // 且这里的 loadSql 可能需要转为 InputStream 方式发送，或者直接 execute
@@ -263,6 +564,99 @@ public class LoadService {
         targetDatabaseConnectionManager.executeUpdateSql(conn, loadSql);
     }
 
+    /**
+     * 直装：转码结果不落拆分文件，经 LOAD DATA LOCAL INFILE 的数据流直接装入目标表
+     * 拆分记录需要先保存 (装载语句里要用拆分 id)，返回的句柄由转码线程写入已编码的 CSV 字节
+     */
+    public DirectSplitLoad openDirectLoad(CsvSplit split) {
+        return new DirectSplitLoad(split);
+    }
+
+    /**
+     * 一个拆分的直装：装载线程执行 LOAD DATA (单独的连接和事务)，转码线程写数据
+     * complete() 等待装载提交；未 complete 就 close() 则中止并回滚
+     */
+    public class DirectSplitLoad implements Closeable {
+        private final LocalInfileStream stream;
+        private final TranscodePipeline loader = new TranscodePipeline();
+        private boolean completed = false;
+
+        private DirectSplitLoad(CsvSplit split) {
+            AppProperties.LoadJdbc loadJdbc = config.getLoadJdbc();
+            this.stream = new LocalInfileStream(loadJdbc.getDirectLoadBlockSize(), loadJdbc.getDirectLoadQueueBlocks());
+            loader.start("direct-load-" + split.getId(), () -> {
+                try {
+                    loadByLocalInfileStream(split, stream);
+                } finally {
+                    // 装载结束 (或失败) 后写入端不能再阻塞
+                    stream.abort();
+                }
+            });
+        }
+
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            try {
+                stream.write(bytes, offset, length);
+            } catch (IOException e) {
+                throwLoadFailure(e);
+            }
+        }
+
+        /**
+         * 数据写完，等待数据库装载并提交
+         */
+        public void complete() throws IOException {
+            try {
+                stream.finish();
+            } catch (IOException e) {
+                throwLoadFailure(e);
+            }
+            loader.close();
+            loader.rethrowIfFailed();
+            completed = true;
+        }
+
+        /**
+         * 写入失败一般是装载线程先失败了，抛出装载线程的原始异常
+         */
+        private void throwLoadFailure(IOException e) throws IOException {
+            loader.close();
+            loader.rethrowIfFailed();
+            throw e;
+        }
+
+        @Override
+        public void close() {
+            if (!completed) {
+                stream.abort();
+            }
+            loader.close();
+        }
+    }
+
+    private void loadByLocalInfileStream(CsvSplit split, LocalInfileStream stream) throws Exception {
+        String loadSql = jdbcHelper.loadDataInfileSql(split.getId());
+        try (Connection conn = targetDatabaseConnectionManager.getConnection(split.getJobId(), false)) {
+            conn.setAutoCommit(false);
+            try {
+                executeSqlsBeforeLoad(conn);
+                try (Statement stmt = conn.createStatement()) {
+                    // 驱动从数据流读取内容，忽略语句里的文件名 (同样需要 allowLoadLocalInfile=true)
+                    stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(stream);
+                    log.info("直装 Split[{}]: {}", split.getId(), loadSql);
+                    stmt.executeUpdate(loadSql);
+                }
+                if (stream.isAborted()) {
+                    throw new IOException("直装数据流已中止");
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
 
 
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.example.moveprog.service;
+
+import com.example.moveprog.config.AppProperties;
+import com.example.moveprog.entity.CsvSplit;
+import com.example.moveprog.entity.MigrationJob;
+import com.example.moveprog.entity.Qianyi;
+import com.example.moveprog.repository.CsvSplitRepository;
+import com.example.moveprog.repository.MigrationJobRepository;
+import com.example.moveprog.repository.QianyiRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 元数据库实体的读穿透缓存 (作业、批次、拆分)
+ * 一个拆分从装载到清理要反复按 id 查同一个作业、批次和拆分 (路径、表名、连接配置)，
+ * 几百个拆分并发时这些查询会占满元数据库连接池。这里按 id 缓存一份快照，每次返回快照的副本 (调用方改了也不影响缓存)。
+ * 快照只保留不变的属性：状态、错误信息、耗时等会变的字段置空，需要状态的地方仍然查库 (repository.findById)。
+ * 拆分状态流转、作业启停/修改、批次结单/重试时移除对应的缓存；其它节点的修改靠有效期 (ttl-seconds) 兜底。
+ */
+@Component
+@Slf4j
+public class MetaEntityCache {
+
+    private final AppProperties config;
+
+    private final Cache<MigrationJob> jobs;
+    private final Cache<Qianyi> qianyis;
+    private final Cache<CsvSplit> splits;
+
+    public MetaEntityCache(MigrationJobRepository jobRepo, QianyiRepository qianyiRepo,
+                           CsvSplitRepository splitRepo, AppProperties config) {
+        this.config = config;
+        this.jobs = new Cache<>("作业", jobRepo::findById, MigrationJob::new, job -> job.setStatus(null));
+        this.qianyis = new Cache<>("批次", qianyiRepo::findById, Qianyi::new, qianyi -> {
+            qianyi.setStatus(null);
+            qianyi.setErrorMsg(null);
+            qianyi.setUpdateTime(null);
+        });
+        this.splits = new Cache<>("拆分", splitRepo::findById, CsvSplit::new, split -> {
+            split.setStatus(null);
+            split.setErrorMsg(null);
+            split.setLoadMillis(null);
+            split.setUpdateTime(null);
+        });
+    }
+
+    /**
+     * 作业 (状态为 null)
+     */
+    public Optional<MigrationJob> findJob(Long jobId) {
+        return jobs.find(jobId);
+    }
+
+    /**
+     * 批次 (状态、错误信息为 null)
+     */
+    public Optional<Qianyi> findQianyi(Long qianyiId) {
+        return qianyis.find(qianyiId);
+    }
+
+    /**
+     * 拆分 (状态、错误信息、装载耗时为 null)
+     */
+    public Optional<CsvSplit> findSplit(Long splitId) {
+        return splits.find(splitId);
+    }
+
+    public void invalidateJob(Long jobId) {
+        jobs.invalidate(jobId);
+    }
+
+    public void invalidateQianyi(Long qianyiId) {
+        qianyis.invalidate(qianyiId);
+    }
+
+    public void invalidateSplit(Long splitId) {
+        splits.invalidate(splitId);
+    }
+
+    private record Cached<T>(T snapshot, long loadedNanos) {
+    }
+
+    /**
+     * 一类实体的缓存
+     */
+    private final class Cache<T> {
+        private final String name;
+        private final Function<Long, Optional<T>> loader;
+        private final Supplier<T> factory;
+        private final Consumer<T> stripMutable;
+        private final Map<Long, Cached<T>> entries = new ConcurrentHashMap<>();
+
+        Cache(String name, Function<Long, Optional<T>> loader, Supplier<T> factory, Consumer<T> stripMutable) {
+            this.name = name;
+            this.loader = loader;
+            this.factory = factory;
+            this.stripMutable = stripMutable;
+        }
+
+        Optional<T> find(Long id) {
+            long ttlNanos = TimeUnit.SECONDS.toNanos(config.getMetaCache().getTtlSeconds());
+            if (ttlNanos <= 0) {
+                return loader.apply(id);
+            }
+            Cached<T> cached = entries.get(id);
+            if (cached != null && System.nanoTime() - cached.loadedNanos() < ttlNanos) {
+                return Optional.of(copy(cached.snapshot()));
+            }
+            Optional<T> loaded = loader.apply(id);
+            if (loaded.isEmpty()) {
+                entries.remove(id);
+                return loaded;
+            }
+            T snapshot = copy(loaded.get());
+            stripMutable.accept(snapshot);
+            if (entries.size() >= config.getMetaCache().getMaxEntries()) {
+                log.debug("{}缓存达到上限 {} 条，清空", name, entries.size());
+                entries.clear();
+            }
+            entries.put(id, new Cached<>(snapshot, System.nanoTime()));
+            return Optional.of(copy(snapshot));
+        }
+
+        void invalidate(Long id) {
+            if (id != null) {
+                entries.remove(id);
+            }
+        }
+
+        private T copy(T source) {
+            T target = factory.get();
+            BeanUtils.copyProperties(source, target);
+            return target;
+        }
+    }
+}
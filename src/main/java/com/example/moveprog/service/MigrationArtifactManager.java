@@ -5,8 +5,7 @@ import com.example.moveprog.entity.MigrationJob;
 import com.example.moveprog.entity.Qianyi;
 import com.example.moveprog.entity.QianyiDetail;
 import com.example.moveprog.repository.CsvSplitRepository;
-import com.example.moveprog.repository.MigrationJobRepository;
-import com.example.moveprog.repository.QianyiRepository;
+import com.example.moveprog.service.impl.ErrorRecordSink;
 import com.example.moveprog.util.MigrationOutputDirectorUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,8 +24,7 @@ import java.util.Objects;
 @Slf4j
 @RequiredArgsConstructor
 public class MigrationArtifactManager {
-    private final MigrationJobRepository jobRepository;
-    private final QianyiRepository qianyiRepository;
+    private final MetaEntityCache metaCache;
     private final CsvSplitRepository splitRepo;
 
     /**
@@ -35,7 +33,7 @@ public class MigrationArtifactManager {
     public void cleanVerifyArtifacts(CsvSplit csvSplit) {
         try {
             Long jobId = csvSplit.getJobId();
-            MigrationJob migrationJob = jobRepository.findById(jobId).orElseThrow();
+            MigrationJob migrationJob = metaCache.findJob(jobId).orElseThrow();
 
             // 删除差异内容文件 (.diff)
             String verifyResultFile = MigrationOutputDirectorUtil.verifyResultFile(migrationJob, csvSplit.getQianyiId(), csvSplit.getId());
@@ -50,7 +48,7 @@ public class MigrationArtifactManager {
 
     public void deleteEmptyVerifyResultFile(CsvSplit csvSplit) throws IOException {
         Long jobId = csvSplit.getJobId();
-        MigrationJob migrationJob = jobRepository.findById(jobId).orElseThrow();
+        MigrationJob migrationJob = metaCache.findJob(jobId).orElseThrow();
 
         String verifyResultFile = MigrationOutputDirectorUtil.verifyResultFile(migrationJob, csvSplit.getQianyiId(), csvSplit.getId());
         File diffFile = new File(verifyResultFile);
@@ -83,13 +81,14 @@ public class MigrationArtifactManager {
             }
 
             Long jobId = detail.getJobId();
-            MigrationJob migrationJob = jobRepository.findById(jobId).orElseThrow();
+            MigrationJob migrationJob = metaCache.findJob(jobId).orElseThrow();
 
             String errorFile = MigrationOutputDirectorUtil.transcodeErrorFile(migrationJob, detail.getQianyiId(), detail.getId());
             boolean result = Files.deleteIfExists(Paths.get(errorFile));
             if (result) {
                 log.info("已清理拆分失败文件: {}", errorFile);
             }
+            Files.deleteIfExists(ErrorRecordSink.indexFile(Paths.get(errorFile)));
         } catch (Exception e) {
             log.warn("清理拆分文件失败: {}", detail.getId(), e);
         }
@@ -120,18 +119,23 @@ public class MigrationArtifactManager {
      * 场景：结单成功后，清理该批次下的所有物理文件
      */
     public void cleanBatchArtifacts(Long qianyiId) {
-        Qianyi qianyi = qianyiRepository.findById(qianyiId).orElse(null);
+        Qianyi qianyi = metaCache.findQianyi(qianyiId).orElse(null);
         if (Objects.isNull(qianyi)) {
             return;
         }
-        MigrationJob migrationJob = jobRepository.findById(qianyi.getJobId()).orElse(null);
+        MigrationJob migrationJob = metaCache.findJob(qianyi.getJobId()).orElse(null);
         if (Objects.isNull(migrationJob)) {
             return;
         }
 
         log.info("开始执行批次[{}]的终极清理...", qianyiId);
-        String batchOutDirStr = MigrationOutputDirectorUtil.batchOutDirectory(migrationJob, qianyiId);
-        Path batchOutPath = Paths.get(batchOutDirStr).toAbsolutePath().normalize();
+        // 拆分文件条带化到多个输出目录时，每个输出目录下都有该批次的目录
+        for (String batchOutDirStr : MigrationOutputDirectorUtil.batchOutDirectories(migrationJob, qianyiId)) {
+            deleteBatchDirectory(Paths.get(batchOutDirStr).toAbsolutePath().normalize(), qianyiId);
+        }
+    }
+
+    private void deleteBatchDirectory(Path batchOutPath, Long qianyiId) {
         // 【新增】防御性检查：再次确认要删除的目录是否安全
         // 确保它确实包含 qianyiId，防止 MigrationOutputDirectorUtil 逻辑变更导致删错父目录
         if (!batchOutPath.endsWith(qianyiId.toString())) {
@@ -1,12 +1,23 @@
 package com.example.moveprog.service;
 
+import com.example.moveprog.dto.TableSchema;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class SchemaParseUtil {
 
@@ -43,5 +54,125 @@ public class SchemaParseUtil {
         return columns;
     }
 
+    /**
+     * DDL 类型部分: 类型名 [(精度[,小数位])] [其它修饰，如 NOT NULL]
+     */
+    private static final Pattern DDL_TYPE = Pattern.compile("^([A-Za-z][A-Za-z0-9_]*)\\s*(?:\\(\\s*(\\d+)\\s*(?:,\\s*(\\d+)\\s*)?\\))?(.*)$");
+
+    /**
+     * 常见类型名 (MySQL/DB2) 到 java.sql.Types 的映射
+     */
+    private static final Map<String, Integer> SQL_TYPES = Map.ofEntries(
+            Map.entry("tinyint", Types.TINYINT),
+            Map.entry("smallint", Types.SMALLINT),
+            Map.entry("mediumint", Types.INTEGER),
+            Map.entry("int", Types.INTEGER),
+            Map.entry("integer", Types.INTEGER),
+            Map.entry("bigint", Types.BIGINT),
+            Map.entry("decimal", Types.DECIMAL),
+            Map.entry("dec", Types.DECIMAL),
+            Map.entry("numeric", Types.NUMERIC),
+            Map.entry("float", Types.REAL),
+            Map.entry("real", Types.REAL),
+            Map.entry("double", Types.DOUBLE),
+            Map.entry("date", Types.DATE),
+            Map.entry("time", Types.TIME),
+            Map.entry("datetime", Types.TIMESTAMP),
+            Map.entry("timestamp", Types.TIMESTAMP),
+            Map.entry("char", Types.CHAR),
+            Map.entry("character", Types.CHAR),
+            Map.entry("graphic", Types.CHAR),
+            Map.entry("varchar", Types.VARCHAR),
+            Map.entry("vargraphic", Types.VARCHAR),
+            Map.entry("text", Types.LONGVARCHAR),
+            Map.entry("tinytext", Types.LONGVARCHAR),
+            Map.entry("mediumtext", Types.LONGVARCHAR),
+            Map.entry("longtext", Types.LONGVARCHAR),
+            Map.entry("clob", Types.CLOB)
+    );
+
+    /**
+     * 类型名转 java.sql.Types，不认识的返回 Types.OTHER
+     */
+    public static int sqlTypeOf(String typeName) {
+        if (typeName == null) {
+            return Types.OTHER;
+        }
+        return SQL_TYPES.getOrDefault(typeName.trim().toLowerCase(Locale.ROOT), Types.OTHER);
+    }
+
+    /**
+     * 解析 DDL CSV 文件获取表结构 (列名和 parseColumnNamesFromDdl 一致)
+     * 格式: 列名,类型[(精度[,小数位])] 或 列名 类型[(精度[,小数位])] [NOT NULL]
+     * 没写类型或类型不认识的列为 Types.OTHER
+     */
+    public static TableSchema parseTableSchemaFromDdl(String ddlPath) throws IOException {
+        TableSchema schema = new TableSchema();
+        try (BufferedReader br = Files.newBufferedReader(Paths.get(ddlPath), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith("--")) continue; // 跳过注释
+
+                // 列名的取法和 parseColumnNamesFromDdl 完全一致 (装载语句的列名来自那里)，列名之后的部分是类型
+                String[] parts = line.split(",");
+                if (parts.length == 1) {
+                    parts = line.split("\\s+");
+                }
+                if (parts.length == 0) {
+                    continue;
+                }
+                String colName = parts[0].trim().replaceAll("^[\"`']+|[\"`']$", "");
+                if (colName.isEmpty()) {
+                    continue;
+                }
+                TableSchema.Column column = new TableSchema.Column(colName, null, Types.OTHER, null, null, true);
+                String typePart = line.substring(parts[0].length()).replaceFirst("^[,\\s]+", "");
+                if (!typePart.isEmpty()) {
+                    Matcher matcher = DDL_TYPE.matcher(typePart);
+                    if (matcher.matches()) {
+                        column.setTypeName(matcher.group(1).toLowerCase(Locale.ROOT));
+                        column.setSqlType(sqlTypeOf(matcher.group(1)));
+                        column.setPrecision(matcher.group(2) == null ? null : Long.parseLong(matcher.group(2)));
+                        column.setScale(matcher.group(3) == null ? null : Integer.parseInt(matcher.group(3)));
+                        column.setNullable(!matcher.group(4).toUpperCase(Locale.ROOT).contains("NOT NULL"));
+                    }
+                }
+                schema.getColumns().add(column);
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * 从目标库 information_schema 读取表结构 (按列顺序)，表不存在时返回空的表结构
+     * @param schemaName 为空时取连接的当前库
+     */
+    public static TableSchema readTableSchema(Connection conn, String schemaName, String tableName) throws SQLException {
+        String sql = "SELECT COLUMN_NAME, DATA_TYPE, NUMERIC_PRECISION, NUMERIC_SCALE, CHARACTER_MAXIMUM_LENGTH, IS_NULLABLE" +
+                " FROM information_schema.columns WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) AND TABLE_NAME = ?" +
+                " ORDER BY ORDINAL_POSITION";
+        TableSchema schema = new TableSchema();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, schemaName == null || schemaName.isEmpty() ? null : schemaName);
+            ps.setString(2, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String typeName = rs.getString("DATA_TYPE").toLowerCase(Locale.ROOT);
+                    long numericPrecision = rs.getLong("NUMERIC_PRECISION");
+                    Long precision = rs.wasNull() ? null : numericPrecision;
+                    if (precision == null) {
+                        long length = rs.getLong("CHARACTER_MAXIMUM_LENGTH");
+                        precision = rs.wasNull() ? null : length;
+                    }
+                    int numericScale = rs.getInt("NUMERIC_SCALE");
+                    Integer scale = rs.wasNull() ? null : numericScale;
+                    schema.getColumns().add(new TableSchema.Column(rs.getString("COLUMN_NAME"), typeName, sqlTypeOf(typeName),
+                            precision, scale, "YES".equalsIgnoreCase(rs.getString("IS_NULLABLE"))));
+                }
+            }
+        }
+        return schema;
+    }
 
 }
@@ -24,6 +24,7 @@ public class StateManager {
     @Autowired private CsvSplitRepository splitRepo;
     @Autowired private QianyiDetailRepository detailRepo;
     @Autowired private MigrationJobRepository jobRepo;
+    @Autowired private MetaEntityCache metaCache;
 
     /**
      * 【核心】尝试切换 Split 状态 (双事务的核心：独立事务提交)
@@ -49,9 +50,21 @@ public class StateManager {
         split.setStatus(target);
         if (msg != null) split.setErrorMsg(msg);
         splitRepo.save(split);
+        metaCache.invalidateSplit(splitId);
         return true;
     }
 
+    /**
+     * 直装拆分装载完成：定向更新行数、字节数、结束位置和状态 (不回写整个拆分实体，不覆盖库里的其它字段)
+     */
+    public void completeDirectSplit(Long splitId, long rowCount, long byteCount, Long endByteOffset, Long endLineBase) {
+        int rows = splitRepo.completeDirectSplit(splitId, rowCount, byteCount, endByteOffset, endLineBase, "直装完成");
+        metaCache.invalidateSplit(splitId);
+        if (rows == 0) {
+            throw new RuntimeException("直装拆分[" + splitId + "]已不在直装中，无法登记装载完成");
+        }
+    }
+
     /**
      * 父级状态流转 (Transcode用)
      */
@@ -77,6 +90,7 @@ public class StateManager {
             throw new RuntimeException("当前状态不允许重试");
         }
         splitRepo.save(split);
+        metaCache.invalidateSplit(splitId);
     }
 
     /**
@@ -99,6 +113,7 @@ public class StateManager {
         for (CsvSplit s : splits) {
             switch (s.getStatus()) {
                 case LOADING:
+                case DIRECT_LOADING:
                 case VERIFYING:
                 case WAIT_LOAD:
                 case WAIT_VERIFY:
@@ -133,6 +148,20 @@ public class StateManager {
             detailRepo.save(detail);
             log.info("父文件 Detail[{}] 状态同步为: {}", detailId, newStatus);
         }
+
+        // 合并转码的拆分挂在组长下，组内其它明细跟随组长的状态 (已重新排队转码的不动)
+        if (detailId.equals(detail.getCoalesceLeaderId())) {
+            for (QianyiDetail member : detailRepo.findByCoalesceLeaderIdOrderByCoalesceRowNoBaseAsc(detailId)) {
+                if (!member.getId().equals(detailId) && member.getStatus() != newStatus && isTranscoded(member.getStatus())) {
+                    member.setStatus(newStatus);
+                    detailRepo.save(member);
+                }
+            }
+        }
+    }
+
+    private static boolean isTranscoded(DetailStatus status) {
+        return status == DetailStatus.PROCESSING_CHILDS || status == DetailStatus.FINISHED || status == DetailStatus.FINISHED_WITH_ERROR;
     }
 
 }
\ No newline at end of file
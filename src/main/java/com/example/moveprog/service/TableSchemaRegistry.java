@@ -0,0 +1,137 @@
+package com.example.moveprog.service;
+
+import com.example.moveprog.dto.TableSchema;
+import com.example.moveprog.entity.Qianyi;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 迁移单 (Qianyi) 的表结构和 SQL 语句缓存
+ * 一个迁移单有很多拆分，每个拆分的装载/校验都重新读 DDL 文件、重新拼带引号的 SQL 没有必要：
+ * 按迁移单 id 缓存解析出的列名、类型和拼好的语句 (INSERT、多行 INSERT 语句头、LOAD DATA 模板、校验 SELECT)。
+ * 每次取用时比对 DDL 文件的修改时间和大小，变了就重新解析；结单/重试批次时移除。
+ */
+@Component
+@Slf4j
+public class TableSchemaRegistry {
+
+    /**
+     * 缓存的语句
+     */
+    public enum Statement {
+        INSERT,        // INSERT INTO t (列..., csv_id, 行号) VALUES (?, ...)
+        INSERT_HEAD,   // INSERT INTO t (列..., csv_id, 行号) VALUES  (多行 INSERT 的语句头)
+        LOAD_DATA,     // LOAD DATA 语句文件路径之后的部分，最后接拆分 id
+        VERIFY_SELECT  // SELECT 列..., 行号 FROM t WHERE csv_id=? ORDER BY 行号
+    }
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 取迁移单的缓存项，DDL 文件变了 (或还没有缓存) 则重新解析列名
+     */
+    public Entry get(Qianyi qianyi) throws IOException {
+        String ddlFilePath = qianyi.getDdlFilePath();
+        long[] stamp = ddlStamp(ddlFilePath);
+        Entry entry = entries.get(qianyi.getId());
+        if (entry != null && entry.matches(ddlFilePath, stamp)) {
+            return entry;
+        }
+        if (entry != null) {
+            log.info("迁移单[{}]的 DDL 文件有变化，重新解析表结构: {}", qianyi.getId(), ddlFilePath);
+        }
+        Entry loaded = new Entry(ddlFilePath, stamp, List.copyOf(SchemaParseUtil.parseColumnNamesFromDdl(ddlFilePath)));
+        entries.put(qianyi.getId(), loaded);
+        return loaded;
+    }
+
+    /**
+     * 移除迁移单的缓存 (结单、重试批次)
+     */
+    public void invalidate(Long qianyiId) {
+        if (entries.remove(qianyiId) != null) {
+            log.debug("移除迁移单[{}]的表结构缓存", qianyiId);
+        }
+    }
+
+    /**
+     * DDL 文件的修改时间和大小，取不到时为 -1 (文件不存在时解析本身会报错)
+     */
+    private static long[] ddlStamp(String ddlFilePath) {
+        try {
+            Path path = Paths.get(ddlFilePath);
+            return new long[]{Files.getLastModifiedTime(path).toMillis(), Files.size(path)};
+        } catch (Exception e) {
+            return new long[]{-1, -1};
+        }
+    }
+
+    /**
+     * 一个迁移单的缓存项，列名在创建时解析，其它内容第一次用到时生成
+     */
+    public static class Entry {
+        private final String ddlFilePath;
+        private final long[] ddlStamp;
+        private final List<String> columnNames;
+        private volatile TableSchema ddlSchema;
+        private volatile TableSchema targetSchema;
+        private final Map<Statement, String> statements = new ConcurrentHashMap<>();
+
+        Entry(String ddlFilePath, long[] ddlStamp, List<String> columnNames) {
+            this.ddlFilePath = ddlFilePath;
+            this.ddlStamp = ddlStamp;
+            this.columnNames = columnNames;
+        }
+
+        private boolean matches(String ddlFilePath, long[] stamp) {
+            return Objects.equals(this.ddlFilePath, ddlFilePath) && ddlStamp[0] == stamp[0] && ddlStamp[1] == stamp[1];
+        }
+
+        /**
+         * DDL 中的业务列名 (不可修改)
+         */
+        public List<String> getColumnNames() {
+            return columnNames;
+        }
+
+        /**
+         * DDL 文件里的列类型 (第一次用到时解析)
+         */
+        public TableSchema getDdlSchema() throws IOException {
+            TableSchema schema = ddlSchema;
+            if (schema == null) {
+                schema = SchemaParseUtil.parseTableSchemaFromDdl(ddlFilePath);
+                ddlSchema = schema;
+            }
+            return schema;
+        }
+
+        /**
+         * 目标表的结构 (information_schema)，还没读过时为 null
+         */
+        public TableSchema getTargetSchema() {
+            return targetSchema;
+        }
+
+        public void setTargetSchema(TableSchema targetSchema) {
+            this.targetSchema = targetSchema;
+        }
+
+        /**
+         * 取缓存的语句，没有则用 builder 拼好后缓存
+         */
+        public String statement(Statement statement, Supplier<String> builder) {
+            return statements.computeIfAbsent(statement, key -> builder.get());
+        }
+    }
+}
@@ -37,6 +37,7 @@ public class TargetDatabaseConnectionManager {
     private final CsvSplitRepository splitRepo;
     private final QianyiDetailRepository qianyiDetailRepo;
     private final JdbcHelper jdbcHelper;
+    private final MetaEntityCache metaCache;
     private final AppProperties appProperties;
 
     // 【新增】注入 MeterRegistry 用于监控注册
@@ -147,8 +148,8 @@ public class TargetDatabaseConnectionManager {
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void deleteLoadOldData(Long splitId) throws SQLException, IOException {
-        CsvSplit csvSplit = splitRepo.findById(splitId).orElseThrow();
-        MigrationJob migrationJob = jobRepo.findById(csvSplit.getJobId()).orElseThrow();
+        CsvSplit csvSplit = metaCache.findSplit(splitId).orElseThrow();
+        MigrationJob migrationJob = metaCache.findJob(csvSplit.getJobId()).orElseThrow();
         try (Connection conn = getConnection(migrationJob.getId(), false)) {
             // 1. 显式关闭自动提交 (防御性编程)
             conn.setAutoCommit(false);
@@ -183,7 +184,7 @@ public class TargetDatabaseConnectionManager {
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void deleteSplitsAndLoadData(Long detailId) throws SQLException {
         QianyiDetail qianyiDetail = qianyiDetailRepo.findById(detailId).orElseThrow();
-        MigrationJob migrationJob = jobRepo.findById(qianyiDetail.getJobId()).orElseThrow();
+        MigrationJob migrationJob = metaCache.findJob(qianyiDetail.getJobId()).orElseThrow();
 
         List<CsvSplit> csvSplits = splitRepo.findByDetailId(detailId);
         if (Objects.nonNull(csvSplits) && !csvSplits.isEmpty()) {
@@ -7,34 +7,63 @@ import com.example.moveprog.entity.Qianyi;
 import com.example.moveprog.entity.QianyiDetail;
 import com.example.moveprog.enums.CsvSplitStatus;
 import com.example.moveprog.enums.DetailStatus;
+import com.example.moveprog.enums.VerifyStrategy;
 import com.example.moveprog.exception.JobStoppedException;
 import com.example.moveprog.repository.CsvSplitRepository;
 import com.example.moveprog.repository.MigrationJobRepository;
 import com.example.moveprog.repository.QianyiDetailRepository;
 import com.example.moveprog.repository.QianyiRepository;
+import com.example.moveprog.service.impl.ErrorRecordSink;
+import com.example.moveprog.service.impl.OutputRootStriper;
+import com.example.moveprog.service.impl.SourceChunk;
+import com.example.moveprog.service.impl.SourceChunkReader;
+import com.example.moveprog.service.impl.TranscodePipeline;
+import com.example.moveprog.service.impl.Utf8CsvRowEncoder;
+import com.example.moveprog.service.impl.Utf8SplitWriter;
 import com.example.moveprog.util.CharsetFactory;
+import com.example.moveprog.util.EbcdicTableDecoder;
 import com.example.moveprog.util.FastEscapeHandler;
 import com.example.moveprog.util.MigrationOutputDirectorUtil;
+import com.example.moveprog.util.RoundTripCharTable;
+import com.example.moveprog.util.SourceCsvFormatUtil;
+import com.example.moveprog.util.SourceFileReaderUtil;
+import com.example.moveprog.util.SourceFingerprintUtil;
+import com.example.moveprog.util.SourceRecordScanner;
+import com.example.moveprog.util.SplitFileCompression;
+import com.example.moveprog.util.SpscRingBuffer;
 import com.google.gson.Gson;
+import com.univocity.parsers.csv.CsvFormat;
 import com.univocity.parsers.csv.CsvParser;
 import com.univocity.parsers.csv.CsvParserSettings;
 import com.univocity.parsers.csv.CsvWriter;
 import com.univocity.parsers.csv.CsvWriterSettings;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
 
 /**
  * 转码服务
@@ -53,12 +82,20 @@ public class TranscodeService {
     private final JobControlManager jobControlManager;
     private final TargetDatabaseConnectionManager targetDatabaseConnectionManager;
     private final MigrationArtifactManager migrationArtifactManager;
+    private final LoadService loadService;
+    private final TableSchemaRegistry schemaRegistry;
 
     // 注入 AppProperties 用于获取配置...
     private final AppProperties config;
 
     private final Gson gson = new Gson();
 
+    // 拆分文件多磁盘条带化 (所有文件共享，记录各输出目录的写入速度)
+    private final OutputRootStriper outputStriper = new OutputRootStriper();
+
+    // 并行转码的分块线程池 (所有文件共享，懒加载)
+    private volatile ForkJoinPool chunkPool;
+
     // 去掉了 @Async，去掉了锁，纯同步逻辑。
     public void execute(Long detailId) {
         QianyiDetail detail = detailRepo.findById(detailId).orElseThrow();
@@ -68,11 +105,35 @@ public class TranscodeService {
         log.info(">>> 开始转码, detail id: {}, 源文件: {}", detail.getId(), detail.getSourceCsvPath());
 
         try {
+            // 重试转码：源文件和转码配置都没变，已有的拆分文件直接复用
+            if (reuseUnchangedSplits(detail)) {
+                stateManager.updateDetailStatus(detailId, DetailStatus.PROCESSING_CHILDS);
+                stateManager.refreshDetailStatus(detailId);
+                log.info("<<< 源文件未变化，复用已有拆分 Detail: {}", detailId);
+                return;
+            }
+            Path sourceFile = Paths.get(detail.getSourceCsvPath());
+            long sourceSize = Files.size(sourceFile);
+            long sourceLastModified = Files.getLastModifiedTime(sourceFile).toMillis();
+            long settingsChecksum = transcodeSettingsChecksum(detail);
+
             // 【关键】开始真正的逻辑前，先清理掉可能的旧脏数据
             // 如果是重试的任务，可能之前已经生成了一部分 Split
-            cleanUpOldSplits(detailId);
+            // 开启断点续转时，源文件和转码配置都没变才保留已完成的拆分，从最后一个拆分之后继续
+            ResumePoint resumePoint = prepareResume(detail, sourceSize, sourceLastModified, settingsChecksum);
+
+            // 转码没完成之前 CRC32C 为空，指纹不能被当作可复用；大小/修改时间/转码配置先记下，供断点续转比对
+            detailRepo.updateSourceFingerprint(detailId, sourceSize, sourceLastModified, null, settingsChecksum);
+            if (detail.getCoalesceLeaderId() != null) {
+                // 以前是合并转码的，这次单独转码
+                detailRepo.updateCoalesce(detailId, null, null);
+            }
+            if (resumePoint == null) {
+                cleanUpOldSplits(detailId);
+            }
 
-            transcodeSingleSourceFile(detail.getQianyiId(), detail.getId(), detail.getSourceCsvPath());
+            long checksum = transcodeSingleSourceFile(detail.getQianyiId(), detail.getId(), detail.getSourceCsvPath(), resumePoint);
+            detailRepo.updateSourceFingerprint(detailId, sourceSize, sourceLastModified, checksum, settingsChecksum);
 
             // 转码完成，进入"子任务处理中"状态
             stateManager.updateDetailStatus(detailId, DetailStatus.PROCESSING_CHILDS);
@@ -114,14 +175,349 @@ public class TranscodeService {
         }
     }
 
+    /**
+     * 小文件合并转码：一组小文件按顺序转码进同一个拆分 (挂在组长，即第一个明细下)
+     * 每个文件的行号加上自己的行号基数 (前面文件的最大行号之和)，拆分里的行号严格递增，且能换算回源文件行号
+     * 错误行仍写到各自明细的错误文件 (源文件行号)，行数/错误数也记在各自明细上；任何一个文件失败则整组失败
+     * @param detailIds 合并组的明细 id，第一个是组长
+     */
+    public void executeCoalesced(List<Long> detailIds) {
+        List<QianyiDetail> members = new ArrayList<>();
+        for (Long detailId : detailIds) {
+            QianyiDetail detail = detailRepo.findById(detailId).orElse(null);
+            if (detail != null && detail.getStatus() == DetailStatus.TRANSCODING) {
+                members.add(detail);
+            }
+        }
+        if (members.isEmpty()) {
+            return;
+        }
+        if (members.size() == 1) {
+            execute(members.get(0).getId());
+            return;
+        }
+        QianyiDetail leader = members.get(0);
+        log.info(">>> 开始合并转码, 组长 detail id: {}, 文件数: {}", leader.getId(), members.size());
+
+        try {
+            // 合并的拆分不记录源文件字节偏移量，不支持断点续转和复用，每次都清理后重新转码
+            // 先登记组长 (行号基数转码时填)，转码失败后重试也能找到整组
+            for (QianyiDetail member : members) {
+                detailRepo.updateSourceFingerprint(member.getId(), null, null, null, null);
+                detailRepo.updateCoalesce(member.getId(), leader.getId(), null);
+                cleanUpOldSplits(member.getId());
+            }
+            transcodeCoalescedGroup(leader, members);
+
+            for (QianyiDetail member : members) {
+                stateManager.updateDetailStatus(member.getId(), DetailStatus.PROCESSING_CHILDS);
+            }
+            log.info("<<< 合并转码完成, 组长 Detail: {}", leader.getId());
+        } catch (JobStoppedException e) {
+            // 同单独转码：保持 TRANSCODING，由 StartupTaskResetter 重置为 NEW
+            log.warn("合并转码被中断: {}, 组长 Detail: {}", e.getMessage(), leader.getId());
+        } catch (Exception e) {
+            log.error("合并转码失败, 组长 Detail: {}", leader.getId(), e);
+            for (QianyiDetail member : members) {
+                stateManager.updateDetailStatus(member.getId(), DetailStatus.FAIL_TRANSCODE);
+            }
+        }
+    }
+
+    /**
+     * 合并组逐个文件流式转码 (都是小文件，不分块)，写进组长下的一个拆分文件
+     */
+    private void transcodeCoalescedGroup(QianyiDetail leader, List<QianyiDetail> members) throws IOException {
+        AppProperties.CsvDetailConfig ibmSource = config.getCsv().getIbmSource();
+        AppProperties.Performance perfConfig = config.getPerformance();
+        Charset ibmCharset = CharsetFactory.resolveCharset(ibmSource.getEncoding());
+        CharsetEncoder ibmEncoder = ibmCharset.newEncoder();
+        boolean isTunneling = ibmSource.isTunneling();
+
+        Qianyi qianyi = qianyiRepo.findById(leader.getQianyiId()).orElseThrow();
+        MigrationJob migrationJob = jobRepository.findById(qianyi.getJobId()).orElseThrow();
+        int expectedColumns = schemaRegistry.get(qianyi).getColumnNames().size();
+
+        AppProperties.CsvDetailConfig utf8Split = config.getCsv().getUtf8Split();
+        Utf8CsvRowEncoder rowEncoder = Utf8CsvRowEncoder.supports(utf8Split) ? new Utf8CsvRowEncoder(utf8Split) : null;
+        RowBuffer rowBuffer = new RowBuffer(); // 整组复用
+
+        Files.createDirectories(Paths.get(MigrationOutputDirectorUtil.transcodeErrorDirectory(migrationJob, qianyi.getId())));
+        Path outPath = nextSplitPath(migrationJob, qianyi.getId(), leader.getId(), 1, perfConfig.isSplitCompress());
+
+        long rowNoBase = 0;      // 当前文件的行号基数
+        long recordCount = 0;    // 拆分的行数 (和其它拆分一样包含错误行)
+        long writtenRows = 0;
+        Long firstRowNo = null;
+        CsvWriterContext writer = createUtf8Writer(outPath, 1L, 1L, rowEncoder);
+        try {
+            for (QianyiDetail member : members) {
+                jobControlManager.checkJobState(migrationJob.getId());
+                Path sourcePath = Paths.get(member.getSourceCsvPath());
+                long lastLine = 0;   // 最后一条记录的源文件行号
+                long rows = 0;
+                long errorCount = 0;
+                ErrorRecordSink errorSink = null;
+                try (Reader reader = SourceFileReaderUtil.openReader(sourcePath, CharsetFactory.createDecoder(ibmCharset, false),
+                        SourceFileReaderUtil.mmapSegmentSize(sourcePath, perfConfig), perfConfig.getReadBufferSize(), null)) {
+                    CsvParser parser = new CsvParser(ibmSource.toParserSettings());
+                    parser.beginParsing(reader);
+                    String[] originalLine;
+                    while (null != (originalLine = parser.parseNext())) {
+                        lastLine = parser.getContext().currentLine();
+                        rows++;
+
+                        checkRow(originalLine, expectedColumns, ibmCharset, ibmEncoder, isTunneling, rowBuffer);
+                        if (rowBuffer.errorType != null) {
+                            if (errorSink == null) {
+                                errorSink = openErrorSink(Paths.get(MigrationOutputDirectorUtil.transcodeErrorFile(migrationJob, qianyi.getId(), member.getId())), false);
+                            }
+                            if (rows == 1) {
+                                throwException(rows, rowBuffer.errorType, originalLine, rowBuffer.columnErrors, ibmCharset);
+                            }
+                            submitErrorRecord(errorSink, lastLine, rowBuffer.errorType, originalLine, rowBuffer.columnErrors, ibmCharset);
+                            errorCount++;
+                            if (errorCount > config.getTranscode().getMaxErrorCount()) {
+                                throw new RuntimeException("错误行数超过阈值 (" + config.getTranscode().getMaxErrorCount() + ")，判定为系统性错误，流程终止！源文件: " + sourcePath);
+                            }
+                            continue;
+                        }
+
+                        long rowNo = rowNoBase + lastLine;
+                        if (firstRowNo == null) {
+                            firstRowNo = rowNo;
+                        }
+                        writer.writeRow(rowBuffer.rowToWrite, rowNo, rowBuffer);
+                        writtenRows++;
+                    }
+                } finally {
+                    if (errorSink != null) errorSink.close();
+                    detailRepo.updateErrorCount(member.getId(), errorCount);
+                }
+
+                detailRepo.updateSourceRowCount(member.getId(), rows);
+                detailRepo.updateCoalesce(member.getId(), leader.getId(), rowNoBase);
+                recordCount += rows;
+                rowNoBase += lastLine;
+            }
+        } finally {
+            writer.close();
+        }
+        recordSplitWrite(migrationJob, outPath, writer.getBytesWritten(), writer.getWriteNanos());
+
+        if (writtenRows == 0) {
+            // 和单独转码一样，没有有效行不登记拆分
+            Files.deleteIfExists(outPath);
+            return;
+        }
+        saveSplit(migrationJob.getId(), qianyi.getId(), leader.getId(), outPath, firstRowNo, recordCount, writer.getBytesWritten(),
+                null, null, null, null, CsvSplitStatus.WAIT_LOAD);
+    }
+
+    /**
+     * 源文件指纹和转码配置都和上次成功转码时一致，且需要重新装载的拆分文件都还在，则复用已有拆分
+     * 失败的拆分重置为待装载，已通过的保持不变
+     * @return false 表示需要重新转码
+     */
+    private boolean reuseUnchangedSplits(QianyiDetail detail) {
+        AppProperties.Transcode transcodeConfig = config.getTranscode();
+        if (!transcodeConfig.isReuseUnchangedSource() || detail.getSourceChecksum() == null) {
+            return false;
+        }
+        try {
+            Path sourcePath = Paths.get(detail.getSourceCsvPath());
+            if (!Files.exists(sourcePath)
+                    || !Objects.equals(detail.getSourceFileSize(), Files.size(sourcePath))
+                    || !Objects.equals(detail.getSourceLastModified(), Files.getLastModifiedTime(sourcePath).toMillis())
+                    || !Objects.equals(detail.getTranscodeSettingsChecksum(), transcodeSettingsChecksum(detail))) {
+                return false;
+            }
+            List<CsvSplit> splits = splitRepo.findByDetailId(detail.getId());
+            for (CsvSplit split : splits) {
+                if (!Objects.equals(split.getNodeId(), config.getCurrentNodeIp())) {
+                    return false;
+                }
+                if (needsSplitFile(split.getStatus()) && !Files.exists(Paths.get(split.getSplitFilePath()))) {
+                    log.info("拆分文件已不存在，重新转码: {}", split.getSplitFilePath());
+                    return false;
+                }
+            }
+            if (transcodeConfig.isReuseVerifyChecksum()
+                    && SourceFingerprintUtil.crc32c(sourcePath) != detail.getSourceChecksum()) {
+                log.info("源文件 CRC32C 变化，重新转码, detail: {}", detail.getId());
+                return false;
+            }
+
+            for (CsvSplit split : splits) {
+                if (split.getStatus() == CsvSplitStatus.FAIL_LOAD || split.getStatus() == CsvSplitStatus.FAIL_VERIFY) {
+                    stateManager.resetSplitForRetry(split.getId());
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("检查源文件指纹失败，重新转码, detail: {}", detail.getId(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 该状态的拆分后续还要读拆分文件 (装载)
+     */
+    private static boolean needsSplitFile(CsvSplitStatus status) {
+        return status == CsvSplitStatus.WAIT_LOAD || status == CsvSplitStatus.LOADING
+                || status == CsvSplitStatus.FAIL_LOAD || status == CsvSplitStatus.FAIL_VERIFY;
+    }
+
+    /**
+     * 影响拆分文件内容的配置 (源/目标 CSV 格式、拆分行数、压缩、直装、DDL) 的校验和
+     */
+    private long transcodeSettingsChecksum(QianyiDetail detail) throws IOException {
+        Qianyi qianyi = qianyiRepo.findById(detail.getQianyiId()).orElseThrow();
+        AppProperties.Performance performance = config.getPerformance();
+        StringBuilder settings = new StringBuilder()
+                .append(config.getCsv().getIbmSource()).append('|')
+                .append(config.getCsv().getUtf8Split()).append('|')
+                .append(performance.getSplitRows()).append('|')
+                .append(performance.getSplitTargetBytes()).append('|')
+                .append(performance.isSplitCompress()).append('|')
+                .append(useDirectLoad()).append('|')
+                .append(qianyi.getDdlFilePath());
+        if (qianyi.getDdlFilePath() != null && Files.exists(Paths.get(qianyi.getDdlFilePath()))) {
+            settings.append('|').append(SourceFingerprintUtil.crc32c(Paths.get(qianyi.getDdlFilePath())));
+        }
+        return SourceFingerprintUtil.crc32c(settings.toString());
+    }
+
+    /**
+     * 断点续转的准备：已完成的拆分都记录了结束位置时，保留它们，返回最后一个拆分之后的续转位置
+     * 源文件大小/修改时间或转码配置与上次开始转码时记下的不一致 (源文件被更正/替换、拆分或 CSV/DDL 配置改了)，不能续转
+     * 未完成的直装拆分 (没有结束位置) 连同已装载的数据一起删除，错误文件截到续转位置
+     * @return null 表示不能续转 (未开启、没有拆分、源文件或配置变了、拆分缺少结束位置等)，需要从头转码
+     */
+    private ResumePoint prepareResume(QianyiDetail detail, long sourceSize, long sourceLastModified, long settingsChecksum) {
+        if (!config.getTranscode().isResumeEnabled()) {
+            return null;
+        }
+        List<CsvSplit> splits = new ArrayList<>(splitRepo.findByDetailId(detail.getId()));
+        if (splits.isEmpty()) {
+            return null;
+        }
+        if (!Objects.equals(detail.getSourceFileSize(), sourceSize)
+                || !Objects.equals(detail.getSourceLastModified(), sourceLastModified)
+                || !Objects.equals(detail.getTranscodeSettingsChecksum(), settingsChecksum)) {
+            log.info("源文件或转码配置已变化，不能续转, detail: {}", detail.getId());
+            return null;
+        }
+        splits.sort(Comparator.comparing(CsvSplit::getId));
+
+        // 直装中断：最后一个拆分还在直装中，没有结束位置，也没有行数
+        CsvSplit unfinished = null;
+        CsvSplit last = splits.get(splits.size() - 1);
+        if (last.getStatus() == CsvSplitStatus.DIRECT_LOADING) {
+            unfinished = last;
+            splits.remove(splits.size() - 1);
+        }
+        if (splits.isEmpty()) {
+            return null;
+        }
+        long rowCount = 0;
+        for (CsvSplit split : splits) {
+            if (split.getSourceEndByteOffset() == null || split.getSourceEndLineBase() == null
+                    || !Objects.equals(split.getNodeId(), config.getCurrentNodeIp())) {
+                return null;
+            }
+            rowCount += split.getRowCount();
+        }
+        CsvSplit checkpoint = splits.get(splits.size() - 1);
+
+        try {
+            Path sourcePath = Paths.get(detail.getSourceCsvPath());
+            if (checkpoint.getSourceEndByteOffset() > Files.size(sourcePath)) {
+                log.warn("源文件比检查点短，不能续转, detail: {}", detail.getId());
+                return null;
+            }
+            if (unfinished != null) {
+                targetDatabaseConnectionManager.deleteLoadOldData(unfinished.getId());
+                splitRepo.deleteById(unfinished.getId());
+            }
+            Qianyi qianyi = qianyiRepo.findById(detail.getQianyiId()).orElseThrow();
+            MigrationJob migrationJob = jobRepository.findById(qianyi.getJobId()).orElseThrow();
+            Path errorPath = Paths.get(MigrationOutputDirectorUtil.transcodeErrorFile(migrationJob, detail.getQianyiId(), detail.getId()));
+            List<Long> errorLines = truncateErrorFile(errorPath, checkpoint.getSourceEndLineBase());
+            // 拆分的行数包含了拆分范围内的错误行，有效行号 = 拆分行数 + 拆分之间的错误行数 + 1
+            long errorsInSplits = errorLines.stream()
+                    .filter(line -> splits.stream().anyMatch(split -> line > split.getStartRowNo() && line <= split.getSourceEndLineBase()))
+                    .count();
+            long errorCount = errorLines.size();
+
+            ResumePoint resumePoint = new ResumePoint(checkpoint.getSourceEndByteOffset(), checkpoint.getSourceEndLineBase(),
+                    rowCount - errorsInSplits + errorCount + 1, splits.size() + 1, errorCount);
+            log.info("断点续转 detail: {}, 已完成拆分: {}, 续转位置: {}, 行号: {}",
+                    detail.getId(), splits.size(), resumePoint.byteOffset, resumePoint.lineBase);
+            return resumePoint;
+        } catch (Exception e) {
+            log.warn("断点续转准备失败，从头转码, detail: {}", detail.getId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 错误文件只保留续转位置之前的错误行 (错误行按源文件行号顺序写入)
+     * @return 保留的错误行的源文件行号
+     */
+    private List<Long> truncateErrorFile(Path errorPath, long lastLine) throws IOException {
+        List<Long> keptLines = new ArrayList<>();
+        if (!Files.exists(errorPath)) {
+            return keptLines;
+        }
+        CsvParserSettings settings = new CsvParserSettings();
+        settings.getFormat().setDelimiter(',');
+        settings.setMaxCharsPerColumn(-1);
+        List<String[]> kept = new ArrayList<>();
+        String[] header = null;
+        CsvParser parser = new CsvParser(settings);
+        try (Reader in = Files.newBufferedReader(errorPath, StandardCharsets.UTF_8)) {
+            parser.beginParsing(in);
+            String[] row;
+            while (null != (row = parser.parseNext())) {
+                if (header == null) {
+                    header = row;
+                } else if (Long.parseLong(row[0]) <= lastLine) {
+                    kept.add(row);
+                    keptLines.add(Long.parseLong(row[0]));
+                } else {
+                    break;
+                }
+            }
+        } finally {
+            parser.stopParsing();
+        }
+
+        Path tmp = errorPath.resolveSibling(errorPath.getFileName() + ".tmp");
+        CsvWriter writer = createErrorWriter(tmp);
+        try {
+            if (header != null) {
+                writer.writeRow(header);
+            }
+            kept.forEach(writer::writeRow);
+        } finally {
+            writer.close();
+        }
+        Files.move(tmp, errorPath, StandardCopyOption.REPLACE_EXISTING);
+        ErrorRecordSink.rebuildIndex(errorPath);
+        return keptLines;
+    }
+
     /**
      * IBM1388 csv文件转码为utf8 csv文件，并拆分成多个文件(便于并发处理)
      * @param qianyiId 迁移单（对应一个ok文件)
      * @param detailId 迁移明细(对应一个IBM1388源csv文件)
      * @param sourcePath 源IBM1388 csv文件
+     * @param resumePoint 断点续转位置，null 表示从头转码
+     * @return 源文件的 CRC32C (转码时边读边算)
      * @throws IOException
      */
-    private void transcodeSingleSourceFile(Long qianyiId, Long detailId, String sourcePath) throws IOException {
+    private long transcodeSingleSourceFile(Long qianyiId, Long detailId, String sourcePath, ResumePoint resumePoint) throws IOException {
         // 1. 获取配置参数
         AppProperties.CsvDetailConfig ibmSource = config.getCsv().getIbmSource();
         AppProperties.Performance perfConfig = config.getPerformance();
@@ -133,22 +529,55 @@ public class TranscodeService {
 
         Qianyi findQianyiById = qianyiRepo.findById(qianyiId).orElseThrow();
         MigrationJob migrationJob = jobRepository.findById(findQianyiById.getJobId()).orElseThrow();
-        List<String> ddlFilePath = SchemaParseUtil.parseColumnNamesFromDdl(findQianyiById.getDdlFilePath());
+        List<String> ddlFilePath = schemaRegistry.get(findQianyiById).getColumnNames();
         String errorDirectory = MigrationOutputDirectorUtil.transcodeErrorDirectory(migrationJob, qianyiId);
         Path transcodeSplitResultDirectory = MigrationOutputDirectorUtil.transcodeSplitResultDirectory(migrationJob, qianyiId, detailId);
 
         int expectedColumns = ddlFilePath.size();
+        // 拆分按字节滚动的目标大小 (0 表示只按行数)
+        long splitTargetBytes = resolveSplitTargetBytes(findQianyiById);
 
         // 【修改点 1】新增：创建 Encoder (用于新版验证) 和获取配置开关
         CharsetEncoder ibmEncoder = ibmCharset.newEncoder();
         boolean isTunneling = ibmSource.isTunneling();
 
-        // 1. 创建 IBM-1388 严格模式 Reader
-        try (Reader reader = new InputStreamReader(
-                // 使用 buffered 包装，缓冲区设为 8MB
-                new BufferedInputStream(Files.newInputStream(Paths.get(sourcePath)), perfConfig.getReadBufferSize()),
-                // 创建严格模式的 Reader
-                CharsetFactory.createDecoder(ibmCharset, strictMode));
+        // 【分块转码】按安全记录边界切块处理，能记录每个拆分在源文件中的字节偏移量 (校验时直接定位)
+        // 超大文件的分块交给线程池并行，结果与单线程完全一致
+        // 查表解码器 (null 表示关闭或不支持，走 ICU 解码)
+        EbcdicTableDecoder tableDecoder = resolveTableDecoder(ibmCharset);
+
+        CsvFormat chunkFormat = SourceCsvFormatUtil.detectFormat(Paths.get(sourcePath), ibmCharset, ibmSource);
+        SourceRecordScanner scanner = config.getTranscode().isChunkedEnabled()
+                ? SourceRecordScanner.forFormat(ibmCharset, chunkFormat, ibmSource.isIgnoreLeadingWhitespaces()) : null;
+        if (scanner != null) {
+            // 校验按字节偏移量定位时用同一个格式，不用再读源文件头部探测
+            detailRepo.updateSourceCsvFormat(detailId, SourceCsvFormatUtil.encode(chunkFormat));
+            Files.createDirectories(Paths.get(errorDirectory));
+            Files.createDirectories(transcodeSplitResultDirectory);
+            ChunkTranscodeContext chunkContext = new ChunkTranscodeContext(migrationJob, qianyiId, detailId,
+                    ibmCharset, tableDecoder, chunkFormat, expectedColumns, isTunneling, splitTargetBytes);
+            return transcodeInChunks(Paths.get(sourcePath), scanner, chunkContext, resumePoint);
+        }
+        if (resumePoint != null) {
+            // 流式转码不支持续转 (源文件格式变了)，清理后从头转码
+            cleanUpOldSplits(detailId);
+        }
+
+        // 关闭了分块转码，或分隔符/换行/引号不是单字节无法按字节切块，走流式转码 (不记录字节偏移量)
+
+        // 1. 创建 IBM-1388 严格模式 Reader (边读边算源文件 CRC32C 指纹)
+        // 优先内存映射读取，慢文件系统上退回流式读取
+        CRC32C sourceChecksum = new CRC32C();
+        int mmapSegmentSize = SourceFileReaderUtil.mmapSegmentSize(Paths.get(sourcePath), perfConfig);
+        try (Reader reader = tableDecoder != null
+                // 查表解码，内部自带 readBufferSize 大小的字节缓冲
+                ? tableDecoder.newReader(SourceFileReaderUtil.openInputStream(Paths.get(sourcePath), 0L, mmapSegmentSize, sourceChecksum),
+                        CharsetFactory.createDecoder(ibmCharset, strictMode), perfConfig.getReadBufferSize())
+                // 流式读取时缓冲区为 readBufferSize，映射读取时解码器直接读映射段
+                : SourceFileReaderUtil.openReader(Paths.get(sourcePath),
+                        // 创建严格模式的 Reader
+                        CharsetFactory.createDecoder(ibmCharset, strictMode),
+                        mmapSegmentSize, perfConfig.getReadBufferSize(), sourceChecksum);
         ) {
             // 根据大机实际情况配置，这里假设是标准CSV
             CsvParserSettings parserSettings = ibmSource.toParserSettings();
@@ -159,11 +588,14 @@ public class TranscodeService {
             String[] originalLine;
             long currentLineNoFromContext; // 大机csv源文件的行号(绝对行号)
             long lineNo = 1; // 有效行号（实际读取的，不包括忽略的空行，跳过的行等)
+            RowBuffer rowBuffer = new RowBuffer(); // 整个文件复用
+            AppProperties.CsvDetailConfig utf8Split = config.getCsv().getUtf8Split();
+            Utf8CsvRowEncoder rowEncoder = Utf8CsvRowEncoder.supports(utf8Split) ? new Utf8CsvRowEncoder(utf8Split) : null;
 
             // 初始化第一个 Writer
             int fileIndex = 1;
             CsvWriterContext csvWriterContext = null;
-            CsvWriter errorWriter = null; // 新增：错误文件 Writer
+            ErrorRecordSink errorSink = null; // 错误文件 (异步写出)
             Path currentOutPath = null;
             long errorCount = 0;
 
@@ -180,57 +612,26 @@ public class TranscodeService {
                     }
                     currentLineNoFromContext = parser.getContext().currentLine();
 
-                    // 1. 准备要写入的数据对象 (默认就是原始数据)
-                    String[] rowToWrite = originalLine;
-                    boolean[] unescaped = new boolean[originalLine.length];
-                    for(int i=0; i<originalLine.length; i++){
-                        unescaped[i] = false;
-                    }
-                    // 如果配置啦tunneling
-                    if (isTunneling) {
-                        // 2. 解析生僻字 (用于入库)
-                        // 解析出真实的汉字行 (例如把 "张\2CC56\三" 变成 "张𬱖三")
-                        rowToWrite = new String[originalLine.length];
-                        for(int i=0; i<originalLine.length; i++) {
-                            Pair<Boolean, String> unescapeCall = FastEscapeHandler.unescape(originalLine[i]);
-                            unescaped[i] = unescapeCall.getLeft();
-                            rowToWrite[i] = unescapeCall.getRight();
-                        }
-                    }
-
-                    // --- 【方案B 植入点】开始 ---
-                    String errorType = null;
-                    List<ColumnErrorDetail> columnErrors = null;
-                    if (expectedColumns > 0 && rowToWrite.length != expectedColumns) {
-                        errorType = "COLUMN_COUNT_MISMATCH";
-                    }
-                    // --- 2. 列级检测：稳定性验证 ---
-                    else {
-                        columnErrors = validateRowStability(originalLine, rowToWrite, unescaped, ibmCharset, ibmEncoder, isTunneling);
-                        if (!columnErrors.isEmpty()) {
-                            errorType = "STABILITY_CHECK_FAILED";
-                        }
-                    }
+                    // 1. 生僻字还原 + 列数/稳定性检测
+                    checkRow(originalLine, expectedColumns, ibmCharset, ibmEncoder, isTunneling, rowBuffer);
+                    String[] rowToWrite = rowBuffer.rowToWrite;
+                    String errorType = rowBuffer.errorType;
+                    List<ColumnErrorDetail> columnErrors = rowBuffer.columnErrors;
 
                     // --- 3. 发现错误，写入错误文件 ---
                     if (errorType != null) {
-                        if (errorWriter == null) {
+                        if (errorSink == null) {
                             Path errorPath = Paths.get(MigrationOutputDirectorUtil.transcodeErrorFile(migrationJob, qianyiId, detailId));
-                            errorWriter = createErrorWriter(errorPath);
                             // 表头：包含行级Base64 和 列级JSON
-                            errorWriter.writeRow(new String[]{
-                                    "LineNo", "ErrorType",
-                                    "Row_Base64_IBM_Approx", "Row_Base64_UTF8",
-                                    "Column_Details_JSON"
-                            });
+                            errorSink = openErrorSink(errorPath, false);
                         }
 
                         if ((1 == lineNo) && (null != errorType)) {
                             throwException(lineNo, errorType, originalLine, columnErrors, ibmCharset);
                         }
 
-                        // 调用封装好的错误写入逻辑
-                        writeErrorRecord(errorWriter, currentLineNoFromContext, errorType, originalLine, columnErrors, ibmCharset);
+                        // 调用封装好的错误写入逻辑 (格式化和写文件在后台线程)
+                        submitErrorRecord(errorSink, currentLineNoFromContext, errorType, originalLine, columnErrors, ibmCharset);
 
                         errorCount++;
                         // 【策略 2：阈值熔断】
@@ -246,18 +647,12 @@ public class TranscodeService {
                     // --- 以下是正常的成功处理逻辑 ---
                     // 懒加载创建文件
                     if (csvWriterContext == null) {
-                        currentOutPath = Paths.get(MigrationOutputDirectorUtil.transcodeSplitFile(migrationJob, qianyiId, detailId, fileIndex));
-                        csvWriterContext = createUtf8Writer(currentOutPath, lineNo, currentLineNoFromContext);
+                        currentOutPath = nextSplitPath(migrationJob, qianyiId, detailId, fileIndex, perfConfig.isSplitCompress());
+                        csvWriterContext = createUtf8Writer(currentOutPath, lineNo, currentLineNoFromContext, rowEncoder);
                     }
 
                     // 2. 注入行号 (放到最后一列)
-                    Object[] newRow = new Object[rowToWrite.length + 1];
-                    for(int i=0; i<rowToWrite.length; i++) {
-                        newRow[i] = rowToWrite[i];
-                    }
-                    newRow[rowToWrite.length] = currentLineNoFromContext; // ia-ibm1388-lineno
-
-                    csvWriterContext.csvWriter.writeRow(newRow);
+                    csvWriterContext.writeRow(rowToWrite, currentLineNoFromContext, rowBuffer); // ia-ibm1388-lineno
                     lineNo++;
 
                     // 进度更新 (每 5000 行更新一次，避免频繁 IO)
@@ -267,15 +662,19 @@ public class TranscodeService {
                         // detailRepo.save(detail);
                     }
 
-                    // 3. 切分文件
-                    if (lineNo-csvWriterContext.startLine >= perfConfig.getSplitRows()) {
+                    // 3. 切分文件 (行数或字节数达到)
+                    if (shouldRollSplit(lineNo-csvWriterContext.startLine, csvWriterContext.getBytesWritten(), splitTargetBytes)) {
                         Long startLine = csvWriterContext.startLine;
                         Long startLineFromContext = csvWriterContext.startLineFromContext;
                         csvWriterContext.close();
+                        long byteCount = csvWriterContext.getBytesWritten();
+                        recordSplitWrite(migrationJob, currentOutPath, byteCount, csvWriterContext.getWriteNanos());
                         csvWriterContext = null;
                         fileIndex++;
                         // 保存切分记录到数据库
-                        saveSplit(findQianyiById.getJobId(), qianyiId, detailId, currentOutPath, startLineFromContext, lineNo-startLine);
+                        saveSplit(findQianyiById.getJobId(), qianyiId, detailId, currentOutPath, startLineFromContext, lineNo-startLine, byteCount, null, null, null, null, CsvSplitStatus.WAIT_LOAD);
+                        // 磁盘背压：在拆分边界等待装载追上来
+                        jobControlManager.awaitTranscodeResume(findQianyiById.getJobId());
                     }
                 }
 
@@ -283,8 +682,9 @@ public class TranscodeService {
                     Long startLine = csvWriterContext.startLine;
                     Long startLineFromContext = csvWriterContext.startLineFromContext;
                     csvWriterContext.close();
+                    recordSplitWrite(migrationJob, currentOutPath, csvWriterContext.getBytesWritten(), csvWriterContext.getWriteNanos());
                     // 保存切分记录到数据库
-                    saveSplit(findQianyiById.getJobId(), qianyiId, detailId, currentOutPath, startLineFromContext, lineNo-startLine);
+                    saveSplit(findQianyiById.getJobId(), qianyiId, detailId, currentOutPath, startLineFromContext, lineNo-startLine, csvWriterContext.getBytesWritten(), null, null, null, null, CsvSplitStatus.WAIT_LOAD);
                 }
 
                 detailRepo.updateSourceRowCount(detailId, lineNo-1);
@@ -292,67 +692,850 @@ public class TranscodeService {
                 if (csvWriterContext != null) {
                     csvWriterContext.close();
                 }
-                if (errorWriter != null) errorWriter.close(); // 别忘了关闭错误文件流
+                if (errorSink != null) errorSink.close(); // 别忘了关闭错误文件流 (等已提交的错误行写完)
                 // 【核心修改】无论成功失败，都更新错误行数到数据库
                 // 注意：这里需要能访问到 detail 对象，或者传入了 detailId 后重新查
                 detailRepo.updateErrorCount(detailId, errorCount);
             }
+            return sourceChecksum.getValue();
         }
     }
 
-    private CsvWriterContext createUtf8Writer(Path path, Long startLineNo, Long startLineFromContext) throws IOException {
+    /**
+     * @param rowEncoder 不为 null 时 (目标是 UTF-8) 使用 FileChannel 直写，否则使用 CsvWriter
+     */
+    private CsvWriterContext createUtf8Writer(Path path, Long startLineNo, Long startLineFromContext, Utf8CsvRowEncoder rowEncoder) throws IOException {
         AppProperties.Performance performance = config.getPerformance();
+        if (rowEncoder != null) {
+            return new CsvWriterContext(newSplitWriter(path, rowEncoder), startLineNo, startLineFromContext);
+        }
         AppProperties.CsvDetailConfig utf8Split = config.getCsv().getUtf8Split();
         CsvWriterSettings settings = utf8Split.toWriterSettings();
 
-        Writer out = new BufferedWriter(new OutputStreamWriter(
-                Files.newOutputStream(path), Charset.forName(utf8Split.getEncoding())),
+        // 在压缩之前计数 (未压缩字节数，有写缓冲的滞后)
+        CountingOutputStream counter = new CountingOutputStream(SplitFileCompression.openOutput(path, performance.getSplitCompressLevel()));
+        Writer out = new BufferedWriter(new OutputStreamWriter(counter, Charset.forName(utf8Split.getEncoding())),
                 performance.getWriteBufferSize()); // 加大写缓冲
-        return new CsvWriterContext(new CsvWriter(out, settings), startLineNo, startLineFromContext);
+        return new CsvWriterContext(new CsvWriter(out, settings), counter, startLineNo, startLineFromContext);
+    }
+
+    /**
+     * 拆分是否该滚动：行数达到 split-rows，或 (按字节拆分时) 字节数达到目标大小
+     */
+    private boolean shouldRollSplit(long rows, long bytes, long splitTargetBytes) {
+        return rows >= config.getPerformance().getSplitRows() || (splitTargetBytes > 0 && bytes >= splitTargetBytes);
+    }
+
+    /**
+     * 拆分目标大小：配置了 split-target-load-seconds 时，按同一目标表以往拆分的装载速度 (字节/秒) 估算，
+     * 使每个拆分的装载耗时接近该秒数，结果限制在 split-target-bytes 的 1/8 ~ 8 倍；没有历史数据时用 split-target-bytes
+     */
+    private long resolveSplitTargetBytes(Qianyi qianyi) {
+        AppProperties.Performance performance = config.getPerformance();
+        long target = performance.getSplitTargetBytes();
+        if (target <= 0 || performance.getSplitTargetLoadSeconds() <= 0) {
+            return target;
+        }
+        List<Object[]> stats = splitRepo.sumLoadStatsByTable(qianyi.getTargetSchema(), qianyi.getTargetTableName());
+        if (stats.isEmpty() || stats.get(0)[0] == null || stats.get(0)[1] == null) {
+            return target;
+        }
+        long bytes = ((Number) stats.get(0)[0]).longValue();
+        long millis = ((Number) stats.get(0)[1]).longValue();
+        if (bytes <= 0 || millis <= 0) {
+            return target;
+        }
+        double bytesPerSecond = bytes * 1000.0 / millis;
+        long learned = (long) (bytesPerSecond * performance.getSplitTargetLoadSeconds());
+        long clamped = Math.max(target / 8, Math.min(target * 8, learned));
+        log.info("拆分目标大小按装载速度学习: 表 {}.{}, 装载速度 {} 字节/秒, 目标 {} 字节", qianyi.getTargetSchema(), qianyi.getTargetTableName(),
+                (long) bytesPerSecond, clamped);
+        return clamped;
+    }
+
+    /**
+     * 计数输出流 (统计写入的字节数)
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+        private long nanos = 0; // 下游 (压缩 + 写文件) 的耗时
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - start;
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - start;
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getNanos() {
+            return nanos;
+        }
+    }
+
+    /**
+     * 下一个拆分文件的路径 (并创建目录)：作业配置了多个输出目录时，连续的拆分按条带化分散到各个磁盘
+     */
+    private Path nextSplitPath(MigrationJob migrationJob, Long qianyiId, Long detailId, int fileIndex, boolean compressed) throws IOException {
+        String root = outputStriper.next(MigrationOutputDirectorUtil.outputRoots(migrationJob));
+        Path path = Paths.get(MigrationOutputDirectorUtil.transcodeSplitFile(root, qianyiId, detailId, fileIndex, compressed));
+        Files.createDirectories(path.getParent());
+        return path;
+    }
+
+    /**
+     * 拆分写完后记录所在输出目录的写入速度 (条带化的权重)
+     */
+    private void recordSplitWrite(MigrationJob migrationJob, Path splitPath, long bytes, long writeNanos) {
+        for (String root : MigrationOutputDirectorUtil.outputRoots(migrationJob)) {
+            if (splitPath.startsWith(Paths.get(root))) {
+                outputStriper.recordWrite(root, bytes, writeNanos);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 拆分文件写出器，文件名以 .gz 结尾时压缩写出
+     */
+    private Utf8SplitWriter newSplitWriter(Path path, Utf8CsvRowEncoder rowEncoder) throws IOException {
+        AppProperties.Performance performance = config.getPerformance();
+        Deflater deflater = SplitFileCompression.isCompressed(path.toString())
+                ? new Deflater(performance.getSplitCompressLevel(), true) : null;
+        return new Utf8SplitWriter(path, rowEncoder, performance.getWriteBufferSize(), deflater);
     }
 
     private class CsvWriterContext {
         private CsvWriter csvWriter;
+        private Utf8SplitWriter splitWriter; // UTF-8 直写 (与 csvWriter 二选一)
         private Long startLine; // lineNo
         private Long startLineFromContext; // 改拆分第一行在源ibm csv中的行号
-        public CsvWriterContext(CsvWriter csvWriter, Long startLine, Long startLineFromContext) {
+        private CountingOutputStream counter; // csvWriter 写出的字节数
+        public CsvWriterContext(CsvWriter csvWriter, CountingOutputStream counter, Long startLine, Long startLineFromContext) {
             this.csvWriter = csvWriter;
+            this.counter = counter;
             this.startLine = startLine;
             this.startLineFromContext = startLineFromContext;
         }
-        public void close() {
+        public CsvWriterContext(Utf8SplitWriter splitWriter, Long startLine, Long startLineFromContext) {
+            this.splitWriter = splitWriter;
+            this.startLine = startLine;
+            this.startLineFromContext = startLineFromContext;
+        }
+        public void close() throws IOException {
             if (null != csvWriter) {
                 csvWriter.close();
             }
+            if (null != splitWriter) {
+                splitWriter.close();
+            }
         }
         public Long getStartLine() {
             return startLine;
         }
+        /**
+         * 已写入的字节数 (未压缩)
+         */
+        public long getBytesWritten() {
+            return splitWriter != null ? splitWriter.getBytesWritten() : counter.getCount();
+        }
+        /**
+         * 写出耗时 (纳秒，条带化估算磁盘速度用)
+         */
+        public long getWriteNanos() {
+            return splitWriter != null ? splitWriter.getWriteNanos() : counter.getNanos();
+        }
         public Long getStartLineFromContext() {
             return this.startLineFromContext;
         }
-        public void write(String[] newRow) {
-            this.write(newRow);
+        /**
+         * 写一行：数据列 + 行号列
+         */
+        public void writeRow(String[] row, long lineNo, RowBuffer rowBuffer) throws IOException {
+            if (splitWriter != null) {
+                splitWriter.writeRow(row, lineNo);
+            } else {
+                csvWriter.writeRow(rowBuffer.outputRow(row, lineNo));
+            }
         }
     }
 
-    private void throwException(long lineNo, String errorType, String[] row, List<ColumnErrorDetail> colErrors, Charset ibmCharset) {
-        String[] errorInfo = formatErrorInfo(lineNo, errorType, row, colErrors, ibmCharset);
-        throw new RuntimeException(Arrays.stream(errorInfo).collect(Collectors.joining("\n")));
+    // ==========================================
+    // 分块转码
+    // 读取线程按安全记录边界切块 -> 解码/校验/渲染/编码 -> 调用线程按块顺序提交
+    // 超大文件的分块交给 ForkJoin 线程池并行处理，其它文件在调用线程上逐块处理 (或开启流水线，读取/解析/写出各一个线程)
+    // 拆分/行号/错误文件的规则全部在按序提交时执行，和流式转码逐行一致
+    // ==========================================
+
+    private boolean useParallel(Path sourcePath) throws IOException {
+        AppProperties.Transcode transcodeConfig = config.getTranscode();
+        return transcodeConfig.isParallelEnabled() && Files.size(sourcePath) >= transcodeConfig.getParallelMinFileSize();
     }
 
     /**
-     * 写入错误记录
+     * @return 源文件的 CRC32C
      */
-    private void writeErrorRecord(CsvWriter errorWriter, long lineNo, String errorType, String[] row, List<ColumnErrorDetail> colErrors, Charset ibmCharset) {
+    private long transcodeInChunks(Path sourcePath, SourceRecordScanner scanner, ChunkTranscodeContext ctx,
+                                   ResumePoint resumePoint) throws IOException {
+        AppProperties.Transcode transcodeConfig = config.getTranscode();
+        ChunkCommitter committer = new ChunkCommitter(ctx, scanner, resumePoint);
+        if (!useParallel(sourcePath)) {
+            if (transcodeConfig.isPipelineEnabled()) {
+                return transcodeInPipeline(sourcePath, scanner, ctx, committer, resumePoint);
+            }
+            try (SourceChunkReader chunkReader = openChunkReader(sourcePath, scanner, resumePoint)) {
+                SourceChunk chunk;
+                while (null != (chunk = chunkReader.next())) {
+                    committer.commit(transcodeChunk(chunk, ctx));
+                }
+                committer.finish();
+                return chunkReader.getChecksum();
+            } finally {
+                committer.close();
+            }
+        }
+
+        ForkJoinPool pool = getChunkPool();
+        // 在途分块数限制内存占用：读取线程最多领先提交线程 maxInFlight 个分块
+        int maxInFlight = transcodeConfig.getParallelMaxInFlightChunks() > 0
+                ? transcodeConfig.getParallelMaxInFlightChunks() : pool.getParallelism() * 2;
+        log.info("并行转码 detail: {}, 分块大小: {}, 并行度: {}, 在途分块: {}",
+                ctx.detailId, transcodeConfig.getChunkSize(), pool.getParallelism(), maxInFlight);
+
+        Deque<Future<ChunkResult>> inFlight = new ArrayDeque<>();
+        try (SourceChunkReader chunkReader = openChunkReader(sourcePath, scanner, resumePoint)) {
+            SourceChunk chunk;
+            while (null != (chunk = chunkReader.next())) {
+                SourceChunk submitted = chunk;
+                inFlight.addLast(pool.submit(() -> transcodeChunk(submitted, ctx)));
+                if (inFlight.size() >= maxInFlight) {
+                    committer.commit(awaitChunk(inFlight.pollFirst()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                committer.commit(awaitChunk(inFlight.pollFirst()));
+            }
+            committer.finish();
+            return chunkReader.getChecksum();
+        } finally {
+            // 失败/叫停时丢弃还没提交的分块
+            for (Future<ChunkResult> future : inFlight) {
+                future.cancel(true);
+            }
+            committer.close();
+        }
+    }
+
+    /**
+     * 流水线转码：读取线程切块 -> 解析线程解码/校验/编码 -> 调用线程按序写出
+     * 阶段之间用有界环形队列衔接，写出慢时解析和读取自动等待 (背压)；
+     * 任一阶段失败 (含叫停、错误行超限) 时其余阶段退出，原始异常在调用线程抛出
+     */
+    private long transcodeInPipeline(Path sourcePath, SourceRecordScanner scanner, ChunkTranscodeContext ctx,
+                                     ChunkCommitter committer, ResumePoint resumePoint) throws IOException {
+        AppProperties.Transcode transcodeConfig = config.getTranscode();
+        SpscRingBuffer<SourceChunk> readQueue = new SpscRingBuffer<>(transcodeConfig.getPipelineQueueSize());
+        SpscRingBuffer<ChunkResult> resultQueue = new SpscRingBuffer<>(transcodeConfig.getPipelineQueueSize());
+        log.info("流水线转码 detail: {}, 分块大小: {}, 队列长度: {}",
+                ctx.detailId, transcodeConfig.getChunkSize(), transcodeConfig.getPipelineQueueSize());
+
+        TranscodePipeline pipeline = new TranscodePipeline();
+        AtomicLong checksum = new AtomicLong();
         try {
-            String[] errorInfo = formatErrorInfo(lineNo, errorType, row, colErrors, ibmCharset);
-            errorWriter.writeRow(errorInfo);
+            pipeline.start("transcode-read-" + ctx.detailId, () -> {
+                try (SourceChunkReader chunkReader = openChunkReader(sourcePath, scanner, resumePoint)) {
+                    SourceChunk chunk;
+                    while (null != (chunk = chunkReader.next())) {
+                        if (!readQueue.put(chunk, pipeline::isAborted)) {
+                            return;
+                        }
+                    }
+                    checksum.set(chunkReader.getChecksum());
+                } finally {
+                    readQueue.close();
+                }
+            });
+            pipeline.start("transcode-parse-" + ctx.detailId, () -> {
+                try {
+                    SourceChunk chunk;
+                    while (null != (chunk = readQueue.take(pipeline::isAborted))) {
+                        if (!resultQueue.put(transcodeChunk(chunk, ctx), pipeline::isAborted)) {
+                            return;
+                        }
+                    }
+                } finally {
+                    resultQueue.close();
+                }
+            });
+
+            ChunkResult result;
+            while (null != (result = resultQueue.take(pipeline::isAborted))) {
+                committer.commit(result);
+            }
+            // 队列结束可能是上游失败，先把上游的异常抛出来，不能当作正常结束
+            pipeline.rethrowIfFailed();
+            committer.finish();
+            return checksum.get();
+        } finally {
+            // 写出失败 (错误行超限等) 时中止上游阶段
+            pipeline.close();
+            committer.close();
+        }
+    }
+
+    /**
+     * 续转时从检查点 (最后一个完成的拆分之后) 开始切块
+     */
+    private SourceChunkReader openChunkReader(Path sourcePath, SourceRecordScanner scanner, ResumePoint resumePoint) throws IOException {
+        int chunkSize = config.getTranscode().getChunkSize();
+        int mmapSegmentSize = SourceFileReaderUtil.mmapSegmentSize(sourcePath, config.getPerformance());
+        if (resumePoint == null) {
+            return new SourceChunkReader(sourcePath, scanner, chunkSize, 0L, 0L, mmapSegmentSize);
+        }
+        return new SourceChunkReader(sourcePath, scanner, chunkSize, resumePoint.byteOffset, resumePoint.lineBase, mmapSegmentSize);
+    }
+
+    /**
+     * 直装需要 LOAD DATA LOCAL INFILE，且校验只能读源文件 (没有拆分文件)
+     * 只用于分块转码，流式转码 (多字节分隔符) 仍写拆分文件
+     */
+    private boolean useDirectLoad() {
+        AppProperties.LoadJdbc loadJdbc = config.getLoadJdbc();
+        if (!loadJdbc.isDirectLoad()) {
+            return false;
+        }
+        if (!loadJdbc.isUseLocalInfile() || config.getVerify().getStrategy() != VerifyStrategy.USE_SOURCE_FILE) {
+            log.warn("直装模式需要 use-local-infile=true 且校验策略为 USE_SOURCE_FILE，仍然写拆分文件");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 在线程池中处理一个分块：解码 -> 解析 -> 校验 -> 渲染为目标 CSV -> 编码为目标字节
+     * 只产出结果，不做任何有副作用的操作 (写文件/入库都在按序提交时做)
+     */
+    private ChunkResult transcodeChunk(SourceChunk chunk, ChunkTranscodeContext ctx) throws IOException {
+        AppProperties.CsvDetailConfig utf8Split = config.getCsv().getUtf8Split();
+        // encoder 非线程安全，每个分块单独创建
+        CharsetEncoder ibmEncoder = ctx.ibmCharset.newEncoder();
+        ChunkResult result = new ChunkResult(chunk);
+
+        // 目标是 UTF-8 时直接编码为字节，否则经 CsvWriter 渲染为字符再编码
+        Utf8CsvRowEncoder rowEncoder = Utf8CsvRowEncoder.supports(utf8Split) ? new Utf8CsvRowEncoder(utf8Split) : null;
+        CharArrayWriter rendered = rowEncoder == null ? new CharArrayWriter(chunk.getLength()) : null;
+        CsvWriter csvWriter = rowEncoder == null ? new CsvWriter(rendered, utf8Split.toWriterSettings()) : null;
+        if (rowEncoder != null) {
+            result.allocateBytes(chunk.getLength() + chunk.getLength() / 2 + 1024);
+        }
+        try (Reader reader = newChunkReader(chunk, ctx)) {
+            CsvParser parser = new CsvParser(SourceCsvFormatUtil.fixedFormatSettings(config.getCsv().getIbmSource(), ctx.format, chunk.getStartOffset() == 0));
+            parser.beginParsing(reader);
+            RowBuffer rowBuffer = new RowBuffer(); // 整个分块复用 (同一时刻只在一个线程里)
+
+            String[] originalLine;
+            while (null != (originalLine = parser.parseNext())) {
+                if (result.size % 1000 == 999) {
+                    jobControlManager.checkJobState(ctx.migrationJob.getId());
+                }
+                // 分块内的相对行号 + 分块之前的换行数 = 源文件绝对行号
+                long sourceLineNo = chunk.getLineBase() + parser.getContext().currentLine();
+
+                checkRow(originalLine, ctx.expectedColumns, ctx.ibmCharset, ibmEncoder, ctx.isTunneling, rowBuffer);
+                if (rowBuffer.errorType != null) {
+                    String[] errorInfo = null;
+                    try {
+                        errorInfo = formatErrorInfo(sourceLineNo, rowBuffer.errorType, originalLine, rowBuffer.columnErrors, ctx.ibmCharset);
+                    } catch (Exception e) {
+                        log.error("写入错误日志失败 Line:{}", sourceLineNo, e);
+                    }
+                    result.addError(sourceLineNo, errorInfo);
+                    continue;
+                }
+
+                if (rowEncoder != null) {
+                    result.addEncodedRow(rowEncoder, rowBuffer.rowToWrite, sourceLineNo); // ia-ibm1388-lineno
+                } else {
+                    csvWriter.writeRow(rowBuffer.outputRow(rowBuffer.rowToWrite, sourceLineNo)); // ia-ibm1388-lineno
+                    result.addRow(sourceLineNo, rendered.size());
+                }
+            }
+        }
+        if (rowEncoder != null) {
+            result.finishEncodedRows();
+        } else {
+            csvWriter.flush();
+            result.encode(rendered.toCharArray(), Charset.forName(utf8Split.getEncoding()));
+        }
+        return result;
+    }
+
+    /**
+     * 分块解码：有查表解码器时整块查表解码，否则走 ICU 解码器
+     * (分块总是从安全边界开始，处于单字节状态)
+     */
+    private Reader newChunkReader(SourceChunk chunk, ChunkTranscodeContext ctx) throws IOException {
+        if (ctx.tableDecoder != null) {
+            CharBuffer chars = ctx.tableDecoder.decode(chunk.getData(), 0, chunk.getLength(),
+                    CharsetFactory.createDecoder(ctx.ibmCharset, false));
+            return new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+        }
+        return new InputStreamReader(
+                new ByteArrayInputStream(chunk.getData(), 0, chunk.getLength()),
+                CharsetFactory.createDecoder(ctx.ibmCharset, false));
+    }
+
+    private EbcdicTableDecoder resolveTableDecoder(Charset ibmCharset) {
+        AppProperties.Transcode transcode = config.getTranscode();
+        if (!transcode.isTableDecoderEnabled()) {
+            return null;
+        }
+        return EbcdicTableDecoder.forCharset(ibmCharset, transcode.isTableDecoderSelfCheck());
+    }
+
+    /**
+     * 启动时构建查表解码器并跑完自检，不让第一个转码线程 (以及等它的其它转码线程) 承担这段耗时
+     */
+    @PostConstruct
+    public void warmUpTableDecoder() {
+        try {
+            resolveTableDecoder(CharsetFactory.resolveCharset(config.getCsv().getIbmSource().getEncoding()));
         } catch (Exception e) {
-            log.error("写入错误日志失败 Line:{}", lineNo, e);
+            log.warn("查表解码器预热失败，转码时再构建: {}", e.getMessage());
+        }
+    }
+
+    private ChunkResult awaitChunk(Future<ChunkResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobStoppedException("并行转码被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
         }
     }
 
+    private ForkJoinPool getChunkPool() {
+        if (chunkPool == null) {
+            synchronized (this) {
+                if (chunkPool == null) {
+                    int parallelism = config.getTranscode().getParallelism() > 0
+                            ? config.getTranscode().getParallelism() : Runtime.getRuntime().availableProcessors();
+                    chunkPool = new ForkJoinPool(parallelism, pool -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                        thread.setName("TranscodeChunk-" + thread.getPoolIndex());
+                        return thread;
+                    }, null, false);
+                }
+            }
+        }
+        return chunkPool;
+    }
+
+    @PreDestroy
+    public void shutdownChunkPool() {
+        if (chunkPool != null) {
+            chunkPool.shutdownNow();
+        }
+    }
+
+    private static class ChunkTranscodeContext {
+        private final MigrationJob migrationJob;
+        private final Long qianyiId;
+        private final Long detailId;
+        private final Charset ibmCharset;
+        private final EbcdicTableDecoder tableDecoder;
+        private final CsvFormat format;
+        private final int expectedColumns;
+        private final boolean isTunneling;
+        private final long splitTargetBytes;
+
+        ChunkTranscodeContext(MigrationJob migrationJob, Long qianyiId, Long detailId, Charset ibmCharset,
+                              EbcdicTableDecoder tableDecoder, CsvFormat format,
+                              int expectedColumns, boolean isTunneling, long splitTargetBytes) {
+            this.migrationJob = migrationJob;
+            this.qianyiId = qianyiId;
+            this.detailId = detailId;
+            this.ibmCharset = ibmCharset;
+            this.tableDecoder = tableDecoder;
+            this.format = format;
+            this.expectedColumns = expectedColumns;
+            this.isTunneling = isTunneling;
+            this.splitTargetBytes = splitTargetBytes;
+        }
+    }
+
+    /**
+     * 一个分块的处理结果 (按源文件顺序排列的记录)
+     */
+    private static class ChunkResult {
+        private final SourceChunk chunk;
+        private long[] sourceLineNos = new long[1024];
+        private int[] ends = new int[1024]; // 正常行: 该行在 bytes 中的结束位置; 错误行: -1
+        private final List<String[]> errorInfos = new ArrayList<>();
+        private int size = 0;
+        private byte[] bytes;
+        private ByteBuffer encoded; // 直接编码模式下的输出缓冲
+
+        ChunkResult(SourceChunk chunk) {
+            this.chunk = chunk;
+        }
+
+        void addRow(long sourceLineNo, int charEnd) {
+            add(sourceLineNo, charEnd);
+        }
+
+        void allocateBytes(int capacity) {
+            encoded = ByteBuffer.allocate(capacity);
+        }
+
+        /**
+         * 直接编码为 UTF-8 字节，ends 即字节位置
+         */
+        void addEncodedRow(Utf8CsvRowEncoder rowEncoder, String[] cells, long sourceLineNo) {
+            int maxBytes = rowEncoder.maxRowBytes(cells);
+            if (encoded.remaining() < maxBytes) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(encoded.capacity() * 2, encoded.position() + maxBytes));
+                encoded.flip();
+                bigger.put(encoded);
+                encoded = bigger;
+            }
+            rowEncoder.encodeRow(cells, sourceLineNo, encoded);
+            add(sourceLineNo, encoded.position());
+        }
+
+        void finishEncodedRows() {
+            bytes = encoded.array();
+            encoded = null;
+        }
+
+        void addError(long sourceLineNo, String[] errorInfo) {
+            add(sourceLineNo, -1);
+            errorInfos.add(errorInfo);
+        }
+
+        private void add(long sourceLineNo, int end) {
+            if (size == ends.length) {
+                sourceLineNos = Arrays.copyOf(sourceLineNos, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            sourceLineNos[size] = sourceLineNo;
+            ends[size] = end;
+            size++;
+        }
+
+        /**
+         * 把渲染好的字符按行编码为目标字节，ends 由字符位置换算为字节位置
+         * 替换策略和 OutputStreamWriter 一致，保证输出字节与单线程完全相同
+         */
+        void encode(char[] chars, Charset charset) {
+            CharsetEncoder encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer in = CharBuffer.wrap(chars);
+            ByteBuffer out = ByteBuffer.allocate(chars.length + chars.length / 2 + 16);
+            for (int i = 0; i < size; i++) {
+                if (ends[i] < 0) {
+                    continue;
+                }
+                in.limit(ends[i]);
+                out = encodeInto(encoder, in, out, false);
+                ends[i] = out.position();
+            }
+            out = encodeInto(encoder, in, out, true);
+            while (encoder.flush(out).isOverflow()) {
+                out = grow(out);
+            }
+            bytes = out.array();
+        }
+
+        private static ByteBuffer encodeInto(CharsetEncoder encoder, CharBuffer in, ByteBuffer out, boolean endOfInput) {
+            while (encoder.encode(in, out, endOfInput).isOverflow()) {
+                out = grow(out);
+            }
+            return out;
+        }
+
+        private static ByteBuffer grow(ByteBuffer out) {
+            ByteBuffer bigger = ByteBuffer.allocate(out.capacity() * 2);
+            out.flip();
+            bigger.put(out);
+            return bigger;
+        }
+    }
+
+    /**
+     * 断点续转的位置：最后一个完成的拆分之后
+     */
+    private static class ResumePoint {
+        final long byteOffset;  // 续转开始的字节偏移量
+        final long lineBase;    // 该偏移量之前的换行数
+        final long lineNo;      // 续转的第一条记录的有效行号
+        final int fileIndex;    // 续转的第一个拆分文件序号
+        final long errorCount;  // 续转位置之前的错误行数
+
+        ResumePoint(long byteOffset, long lineBase, long lineNo, int fileIndex, long errorCount) {
+            this.byteOffset = byteOffset;
+            this.lineBase = lineBase;
+            this.lineNo = lineNo;
+            this.fileIndex = fileIndex;
+            this.errorCount = errorCount;
+        }
+    }
+
+    /**
+     * 按分块顺序提交结果：行号累计、拆分切换、错误文件、阈值熔断，规则和单线程流程一致
+     */
+    private class ChunkCommitter implements Closeable {
+        private final ChunkTranscodeContext ctx;
+        private final SourceRecordScanner scanner;
+        private long lineNo = 1; // 有效行号（实际读取的，不包括忽略的空行，跳过的行等)
+        private long prevSourceLineNo = 0; // 上一条记录结束时的源文件行号 (换行数)
+        private int fileIndex = 1;
+        private final boolean directLoad; // 直装：不写拆分文件，直接 LOAD DATA 数据流入库
+        private Utf8SplitWriter splitOut;
+        private LoadService.DirectSplitLoad directOut;
+        private CsvSplit directSplit;
+        private Path currentOutPath;
+        private long startLine;
+        private long startLineFromContext;
+        private Long startByteOffset;
+        private Long startLineBase;
+        private long splitBytes; // 当前拆分已写入的字节数
+        private SourceChunk lastChunk; // 最后一条记录所在的分块 (计算拆分结束位置)
+        private ErrorRecordSink errorSink;
+        private long errorCount = 0;
+        private final boolean resumed;
+        private final boolean checkpoint; // 拆分作为续转检查点：关闭时落盘
+
+        ChunkCommitter(ChunkTranscodeContext ctx, SourceRecordScanner scanner, ResumePoint resumePoint) {
+            this.ctx = ctx;
+            this.scanner = scanner;
+            this.directLoad = useDirectLoad();
+            this.checkpoint = config.getTranscode().isResumeEnabled();
+            this.resumed = resumePoint != null;
+            if (resumed) {
+                this.lineNo = resumePoint.lineNo;
+                this.prevSourceLineNo = resumePoint.lineBase;
+                this.fileIndex = resumePoint.fileIndex;
+                this.errorCount = resumePoint.errorCount;
+            }
+        }
+
+        void commit(ChunkResult result) throws IOException {
+            lastChunk = result.chunk;
+            Long jobId = ctx.migrationJob.getId();
+            int errorIndex = 0;
+            int pos = 0;
+            for (int i = 0; i < result.size; i++) {
+                if (lineNo % 1000 == 0) {
+                    jobControlManager.checkJobState(jobId);
+                }
+                int end = result.ends[i];
+                long prevLine = prevSourceLineNo;
+                prevSourceLineNo = result.sourceLineNos[i];
+
+                if (end < 0) {
+                    String[] errorInfo = result.errorInfos.get(errorIndex++);
+                    if (errorSink == null) {
+                        // 续转：接着上次 (已截到续转位置) 的错误文件写
+                        errorSink = openErrorSink(errorPath(), resumed);
+                    }
+
+                    if (1 == lineNo) {
+                        if (errorInfo == null) {
+                            throw new RuntimeException("第 1 行转码失败");
+                        }
+                        // 第一行出错时，异常信息里的行号用有效行号 1 (和单线程一致)
+                        String[] firstLineError = errorInfo.clone();
+                        firstLineError[0] = String.valueOf(lineNo);
+                        throw new RuntimeException(String.join("\n", firstLineError));
+                    }
+
+                    if (errorInfo != null) {
+                        errorSink.submit(errorInfo);
+                    }
+
+                    errorCount++;
+                    if (errorCount > config.getTranscode().getMaxErrorCount()) {
+                        throw new RuntimeException("错误行数超过阈值 (" + config.getTranscode().getMaxErrorCount() + ")，判定为系统性错误，流程终止！");
+                    }
+                    lineNo++;
+                    continue;
+                }
+
+                // 懒加载创建文件
+                if (!isSplitOpen()) {
+                    // 直装不写文件，拆分路径只是登记用
+                    currentOutPath = directLoad
+                            ? Paths.get(MigrationOutputDirectorUtil.transcodeSplitFile(ctx.migrationJob, ctx.qianyiId, ctx.detailId, fileIndex, false))
+                            : nextSplitPath(ctx.migrationJob, ctx.qianyiId, ctx.detailId, fileIndex, config.getPerformance().isSplitCompress());
+                    startLine = lineNo;
+                    splitBytes = 0;
+                    startLineFromContext = result.sourceLineNos[i];
+                    Long offset = offsetAfterLine(result.chunk, prevLine);
+                    startByteOffset = offset;
+                    startLineBase = offset == null ? null : Math.max(prevLine, result.chunk.getLineBase());
+                    if (directLoad) {
+                        // 装载语句要用拆分 id，先登记拆分 (直装中，装载调度和僵尸检测都不领取)，行数和结束位置在装载完成时补上
+                        directSplit = saveSplit(ctx.migrationJob.getId(), ctx.qianyiId, ctx.detailId, currentOutPath, startLineFromContext, 0L, 0L,
+                                startByteOffset, startLineBase, null, null, CsvSplitStatus.DIRECT_LOADING);
+                        directOut = loadService.openDirectLoad(directSplit);
+                    } else {
+                        splitOut = newSplitWriter(currentOutPath, null);
+                        splitOut.setSyncOnClose(checkpoint);
+                    }
+                }
+                if (directOut != null) {
+                    directOut.write(result.bytes, pos, end - pos);
+                } else {
+                    splitOut.write(result.bytes, pos, end - pos);
+                }
+                splitBytes += end - pos;
+                pos = end;
+                lineNo++;
+
+                // 切分文件 (行数或字节数达到)
+                if (shouldRollSplit(lineNo - startLine, splitBytes, ctx.splitTargetBytes)) {
+                    closeSplit();
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            if (isSplitOpen() && lineNo - startLine > 0) {
+                closeSplit();
+            }
+            detailRepo.updateSourceRowCount(ctx.detailId, lineNo - 1);
+        }
+
+        private boolean isSplitOpen() {
+            return splitOut != null || directOut != null;
+        }
+
+        private Path errorPath() {
+            return Paths.get(MigrationOutputDirectorUtil.transcodeErrorFile(ctx.migrationJob, ctx.qianyiId, ctx.detailId));
+        }
+
+        private void closeSplit() throws IOException {
+            fileIndex++;
+            // 拆分结束位置 (续转检查点)：最后一条记录结尾的换行之后
+            Long endByteOffset = offsetAfterLine(lastChunk, prevSourceLineNo);
+            Long endLineBase = endByteOffset == null ? null : Math.max(prevSourceLineNo, lastChunk.getLineBase());
+            if (checkpoint && errorSink != null) {
+                // 检查点之前的错误行必须已写入错误文件
+                errorSink.flush();
+            }
+            if (directOut != null) {
+                // 等待数据库装载提交，拆分直接进入待验证
+                directOut.complete();
+                directOut = null;
+                stateManager.completeDirectSplit(directSplit.getId(), lineNo - startLine, splitBytes, endByteOffset, endLineBase);
+                directSplit = null;
+                return;
+            }
+            splitOut.close();
+            recordSplitWrite(ctx.migrationJob, currentOutPath, splitBytes, splitOut.getWriteNanos());
+            splitOut = null;
+            // 保存切分记录到数据库
+            saveSplit(ctx.migrationJob.getId(), ctx.qianyiId, ctx.detailId, currentOutPath, startLineFromContext, lineNo - startLine, splitBytes,
+                    startByteOffset, startLineBase, endByteOffset, endLineBase, CsvSplitStatus.WAIT_LOAD);
+            // 磁盘背压：在拆分边界等待装载追上来 (流水线/并行的上游阶段由有界队列跟着停下)
+            jobControlManager.awaitTranscodeResume(ctx.migrationJob.getId());
+        }
+
+        /**
+         * 计算某条记录结尾的换行之后在源文件中的位置 (拆分的起始位置/结束位置)
+         * 如果该记录在前一个分块中，直接用本分块的起点 (分块起点就是记录边界)
+         * 中间被跳过的空行/注释行，从这里重新解析时同样会被跳过
+         * 该位置之前的换行数为 max(line, 分块的 lineBase)
+         * @param line 记录结束时的换行数
+         * @return 定位失败 (如文件末尾没有换行的最后一条记录) 时为 null
+         */
+        private Long offsetAfterLine(SourceChunk chunk, long line) {
+            long lineBase = chunk.getLineBase();
+            if (line <= lineBase) {
+                return chunk.getStartOffset();
+            }
+            int pos = scanner.positionAfterLineFeeds(chunk.getData(), 0, chunk.getLength(), line - lineBase);
+            if (pos < 0) {
+                // 起始位置理论上不会定位失败，失败则校验时退回跳行方式；结束位置失败则该拆分不能作为续转检查点
+                log.debug("源文件位置定位失败, detail: {}, 行号: {}", ctx.detailId, line);
+                return null;
+            }
+            return chunk.getStartOffset() + pos;
+        }
+
+        @Override
+        public void close() {
+            if (splitOut != null) {
+                try {
+                    splitOut.close();
+                } catch (IOException e) {
+                    log.warn("关闭拆分文件失败: {}", currentOutPath, e);
+                }
+            }
+            if (directOut != null) {
+                // 未完成的直装：中止并回滚，拆分记录作废
+                directOut.close();
+                try {
+                    splitRepo.deleteById(directSplit.getId());
+                } catch (Exception e) {
+                    log.warn("删除未完成的直装拆分记录失败: {}", directSplit.getId(), e);
+                }
+            }
+            if (errorSink != null) {
+                try {
+                    errorSink.close();
+                } catch (IOException e) {
+                    log.warn("关闭错误文件失败: {}", errorPath(), e);
+                }
+            }
+            // 无论成功失败，都更新错误行数到数据库
+            detailRepo.updateErrorCount(ctx.detailId, errorCount);
+        }
+    }
+
+    private void throwException(long lineNo, String errorType, String[] row, List<ColumnErrorDetail> colErrors, Charset ibmCharset) {
+        String[] errorInfo = formatErrorInfo(lineNo, errorType, row, colErrors, ibmCharset);
+        throw new RuntimeException(Arrays.stream(errorInfo).collect(Collectors.joining("\n")));
+    }
+
+    /**
+     * 提交错误记录：转码线程只交出行数据的引用，Base64/JSON 格式化和写文件由错误文件的后台线程完成
+     * (row 和 colErrors 是每行新建的，转码线程之后不再修改)
+     */
+    private void submitErrorRecord(ErrorRecordSink errorSink, long lineNo, String errorType, String[] row, List<ColumnErrorDetail> colErrors, Charset ibmCharset) {
+        errorSink.submit(() -> formatErrorInfo(lineNo, errorType, row, colErrors, ibmCharset));
+    }
+
     private String[] formatErrorInfo(long lineNo, String errorType, String[] row, List<ColumnErrorDetail> colErrors, Charset ibmCharset) {
         String rowBase64Ibm = "";
         String rowBase64Utf8 = "";
@@ -366,6 +1549,7 @@ public class TranscodeService {
 
         // 如果是列级错误，生成详细的 JSON
         if (colErrors != null && !colErrors.isEmpty()) {
+            colErrors.forEach(detail -> encodeColumnError(detail, ibmCharset));
             colDetailsJson = gson.toJson(colErrors);
         }
 
@@ -378,13 +1562,128 @@ public class TranscodeService {
         };
     }
 
+    /**
+     * 单行处理：生僻字还原 (tunneling) + 列数检测 + 稳定性检测，结果写入 rowBuffer
+     * 单线程和并行转码共用，encoder 非线程安全，由调用方按线程提供
+     */
+    void checkRow(String[] originalLine, int expectedColumns, Charset ibmCharset, CharsetEncoder ibmEncoder, boolean isTunneling, RowBuffer rowBuffer) {
+        // 1. 准备要写入的数据对象 (默认就是原始数据)
+        String[] rowToWrite = originalLine;
+        boolean[] unescaped = rowBuffer.unescaped(originalLine.length);
+        // 如果配置啦tunneling
+        if (isTunneling) {
+            // 2. 解析生僻字 (用于入库)
+            // 解析出真实的汉字行 (例如把 "张\2CC56\三" 变成 "张𬱖三")
+            rowToWrite = rowBuffer.cells(originalLine.length);
+            for(int i=0; i<originalLine.length; i++) {
+                String cell = originalLine[i];
+                if (cell == null || cell.indexOf('\\') == -1) {
+                    // 不含转义符，原样使用
+                    unescaped[i] = false;
+                    rowToWrite[i] = cell;
+                    continue;
+                }
+                // 流式还原到复用缓冲，只有真正发生 Unicode 转换时才生成新串
+                char[] chars = rowBuffer.chars(cell.length());
+                int n = FastEscapeHandler.unescape(cell, 0, cell.length(), chars, 0);
+                unescaped[i] = n != FastEscapeHandler.UNCHANGED;
+                rowToWrite[i] = unescaped[i] ? new String(chars, 0, n) : cell;
+            }
+        }
+
+        // --- 【方案B 植入点】开始 ---
+        String errorType = null;
+        List<ColumnErrorDetail> columnErrors = null;
+        if (expectedColumns > 0 && rowToWrite.length != expectedColumns) {
+            errorType = "COLUMN_COUNT_MISMATCH";
+        }
+        // --- 2. 列级检测：稳定性验证 ---
+        else {
+            columnErrors = validateRowStability(originalLine, rowToWrite, unescaped, ibmCharset, ibmEncoder, isTunneling, rowBuffer.escaped);
+            if (!columnErrors.isEmpty()) {
+                errorType = "STABILITY_CHECK_FAILED";
+            }
+        }
+        rowBuffer.rowToWrite = rowToWrite;
+        rowBuffer.errorType = errorType;
+        rowBuffer.columnErrors = columnErrors;
+    }
+
+    /**
+     * 单行处理的复用缓冲 (每个线程一个，按列数复用数组)
+     * 稳态下 (列数不变) 每行除单元格字符串本身外不再分配对象：
+     * 标记数组、还原后的列数组、写出行数组都复用，行号以 long 保存，写出时才渲染
+     */
+    static class RowBuffer {
+        private boolean[] unescaped = new boolean[0];
+        private String[] cells = new String[0];
+        private Object[] outRow = new Object[1];
+        private final LineNoCell lineNoCell = new LineNoCell();
+        private char[] chars = new char[256];               // 生僻字还原的输出缓冲
+        private final StringBuilder escaped = new StringBuilder(256); // 稳定性检测回转 (escape) 的输出缓冲
+
+        // checkRow 的结果
+        String[] rowToWrite;
+        String errorType; // null 表示检测通过
+        List<ColumnErrorDetail> columnErrors;
+
+        boolean[] unescaped(int columns) {
+            if (unescaped.length != columns) {
+                unescaped = new boolean[columns];
+            } else {
+                Arrays.fill(unescaped, false);
+            }
+            return unescaped;
+        }
+
+        char[] chars(int length) {
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            return chars;
+        }
+
+        String[] cells(int columns) {
+            if (cells.length != columns) {
+                cells = new String[columns];
+            }
+            return cells;
+        }
+
+        /**
+         * 写出行：数据列 + 行号列 (复用数组，调用方写完即可再次使用)
+         */
+        Object[] outputRow(String[] row, long lineNo) {
+            if (outRow.length != row.length + 1) {
+                outRow = new Object[row.length + 1];
+            }
+            System.arraycopy(row, 0, outRow, 0, row.length);
+            outRow[row.length] = lineNoCell;
+            lineNoCell.value = lineNo;
+            return outRow;
+        }
+    }
+
+    /**
+     * 行号列：避免每行装箱 Long，CsvWriter 写出时调用 toString 渲染
+     */
+    private static final class LineNoCell {
+        private long value;
+
+        @Override
+        public String toString() {
+            return Long.toString(value);
+        }
+    }
+
     /**
      * 核心验证逻辑
      * @param unescaped true 经过啦unescaped转换，字符和源来的字符已经不一致，跳过稳定性检测, false  unescaped 后和原来字符一致
      */
-    private List<ColumnErrorDetail> validateRowStability(String[] originalLine, String[] rowToWrite, boolean[] unescaped, Charset charset, CharsetEncoder encoder, boolean isTunneling) {
-        List<ColumnErrorDetail> errors = new ArrayList<>();
+    private List<ColumnErrorDetail> validateRowStability(String[] originalLine, String[] rowToWrite, boolean[] unescaped, Charset charset, CharsetEncoder encoder, boolean isTunneling, StringBuilder escaped) {
+        List<ColumnErrorDetail> errors = Collections.emptyList(); // 有错误时才创建列表
         if (originalLine == null) return errors;
+        RoundTripCharTable roundTripTable = RoundTripCharTable.forCharset(charset);
 
         for (int i = 0; i < rowToWrite.length; i++) {
             // 变量名改为 cell 更贴切
@@ -395,47 +1694,69 @@ public class TranscodeService {
 
             // 1. 显式检测替换字符
             if (cellToWrite.indexOf('\uFFFD') != -1) {
-                errors.add(buildColumnError(i, cellToWrite, charset, "CONTAINS_REPLACEMENT_CHAR"));
+                if (errors.isEmpty()) errors = new ArrayList<>();
+                errors.add(buildColumnError(i, cellToWrite, "CONTAINS_REPLACEMENT_CHAR"));
                 continue;
             }
 
+            // 快速路径：字符全部回转安全，回转结果必然等于原串 (纯查表，不分配内存)
+            if (unescaped[i] || roundTripTable.isSafe(cellToWrite)) continue;
+
             String originalCell = originalLine[i];
 
             // 2. 方案 B：双向回转验证
             // 修改了方法参数名，这里调用看起来更舒服
-            if (!unescaped[i] /*处理转义后不一致的情况不检查稳定性*/ && !checkCellStability(originalCell, cellToWrite, charset, encoder, isTunneling)) {
-                errors.add(buildColumnError(i, originalCell, charset, "STABILITY_MISMATCH"));
+            if (!unescaped[i] /*处理转义后不一致的情况不检查稳定性*/ && !checkCellStability(originalCell, cellToWrite, charset, encoder, isTunneling, escaped)) {
+                if (errors.isEmpty()) errors = new ArrayList<>();
+                errors.add(buildColumnError(i, originalCell, "STABILITY_MISMATCH"));
             }
         }
         return errors;
     }
 
-    private ColumnErrorDetail buildColumnError(int index, String cellContent, Charset charset, String reason) {
+    /**
+     * 列错误只记下单元格内容，Base64 在格式化错误记录时 (错误文件的后台线程) 再生成
+     */
+    private ColumnErrorDetail buildColumnError(int index, String cellContent, String reason) {
+        ColumnErrorDetail detail = new ColumnErrorDetail(index, reason, null, null);
+        detail.setCellContent(cellContent);
+        return detail;
+    }
+
+    private void encodeColumnError(ColumnErrorDetail detail, Charset charset) {
+        String cellContent = detail.getCellContent();
+        if (cellContent == null) {
+            return;
+        }
         try {
             // 记录该列转换前的 Base64 (尝试还原)
-            String ibmBase64 = Base64.getEncoder().encodeToString(cellContent.getBytes(charset));
+            detail.setIbm1388Base64(Base64.getEncoder().encodeToString(cellContent.getBytes(charset)));
             // 记录该列转换后的 Base64 (UTF8)
-            String utf8Base64 = Base64.getEncoder().encodeToString(cellContent.getBytes(StandardCharsets.UTF_8));
-            return new ColumnErrorDetail(index, reason, ibmBase64, utf8Base64);
+            detail.setUtf8Base64(Base64.getEncoder().encodeToString(cellContent.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception e) {
-            return new ColumnErrorDetail(index, "ENCODING_ERROR", "", "");
+            detail.setErrorReason("ENCODING_ERROR");
+            detail.setIbm1388Base64("");
+            detail.setUtf8Base64("");
         }
+        detail.setCellContent(null);
     }
     /**
      * 单元格稳定性检查 (支持双模式)
      * @param originalCell 原始读取到的字符串 (如果开启 tunneling，这里是包含 \HEX\ 的串)
      * @param cellToWrite  准备写入的字符串 (如果开启 tunneling，这里是解析后的真字)
+     * @param escaped      tunneling 模式回转的复用输出缓冲
      */
-    private boolean checkCellStability(String originalCell, String cellToWrite, Charset charset, CharsetEncoder encoder, boolean isTunneling) {
+    private boolean checkCellStability(String originalCell, String cellToWrite, Charset charset, CharsetEncoder encoder, boolean isTunneling, StringBuilder escaped) {
         try {
             if (isTunneling) {
                 // --- 新模式：支持生僻字转义 (Pro版) ---
                 // 模拟回转：尝试把真字 (cellToWrite) 变回大机格式
                 // 逻辑：认识的字保留，不认识的字变回 \HEX\
-                String restored = FastEscapeHandler.escapeForCheck(cellToWrite, encoder);
+                escaped.setLength(0);
+                FastEscapeHandler.escape(cellToWrite, 0, cellToWrite.length(), encoder, escaped);
 
                 // 比对：原始串 (含 \HEX\) vs 还原串 (含 \HEX\)
-                return originalCell.equals(restored);
+                return originalCell.contentEquals(escaped);
             } else {
                 // --- 旧模式：标准回转 (Standard版) ---
                 // 1. 强制转为字节
@@ -471,13 +1792,15 @@ public class TranscodeService {
         return sb.toString();
     }
     private CsvWriter createErrorWriter(Path path) throws IOException {
-        CsvWriterSettings settings = new CsvWriterSettings();
-        settings.getFormat().setDelimiter(',');
-        settings.setQuoteAllFields(true); // 必须全引用，防止 JSON 破坏 CSV 结构
-        settings.setMaxCharsPerColumn(100_000);
-        Writer out = new BufferedWriter(new OutputStreamWriter(
-                Files.newOutputStream(path), StandardCharsets.UTF_8));
-        return new CsvWriter(out, settings);
+        Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8));
+        return new CsvWriter(out, ErrorRecordSink.writerSettings()); // 必须全引用，防止 JSON 破坏 CSV 结构
+    }
+
+    /**
+     * @param append 追加到已有的错误文件 (断点续转)
+     */
+    private ErrorRecordSink openErrorSink(Path path, boolean append) throws IOException {
+        return new ErrorRecordSink(path, append, config.getTranscode().getErrorQueueSize());
     }
 
     @Data
@@ -486,6 +1809,7 @@ public class TranscodeService {
         private String errorReason;
         private String ibm1388Base64; // 还原回IBM的Base64
         private String utf8Base64;    // 目标UTF8的Base64
+        private transient String cellContent; // 出错的单元格 (Base64 生成前暂存，不输出到 JSON)
 
         public ColumnErrorDetail(int columnIndex, String errorReason, String ibm1388Base64, String utf8Base64) {
             this.columnIndex = columnIndex;
@@ -495,7 +1819,15 @@ public class TranscodeService {
         }
     }
 
-    private void saveSplit(Long jobId, Long qianyiId, Long detailId, Path path, Long startLineNo, Long rowCount) {
+    /**
+     * @param sourceByteOffset 拆分第一条记录在源文件中的字节偏移量 (流式转码时为 null)
+     * @param sourceLineBase 该偏移量之前的换行数
+     * @param sourceEndByteOffset 拆分最后一条记录之后的字节偏移量 (续转检查点，流式转码时为 null)
+     * @param sourceEndLineBase 该偏移量之前的换行数
+     */
+    private CsvSplit saveSplit(Long jobId, Long qianyiId, Long detailId, Path path, Long startLineNo, Long rowCount, Long byteCount,
+                               Long sourceByteOffset, Long sourceLineBase, Long sourceEndByteOffset, Long sourceEndLineBase,
+                               CsvSplitStatus status) {
         CsvSplit split = new CsvSplit();
         split.setNodeId(config.getCurrentNodeIp());
         split.setJobId(jobId);
@@ -504,7 +1836,12 @@ public class TranscodeService {
         split.setSplitFilePath(path.toString());
         split.setStartRowNo(startLineNo);
         split.setRowCount(rowCount);
-        split.setStatus(CsvSplitStatus.WAIT_LOAD); // Wait Load
-        splitRepo.save(split);
+        split.setByteCount(byteCount);
+        split.setSourceByteOffset(sourceByteOffset);
+        split.setSourceLineBase(sourceLineBase);
+        split.setSourceEndByteOffset(sourceEndByteOffset);
+        split.setSourceEndLineBase(sourceEndLineBase);
+        split.setStatus(status);
+        return splitRepo.save(split);
     }
 }
\ No newline at end of file
@@ -11,6 +11,9 @@ import com.example.moveprog.service.impl.JdbcRowIterator;
 import com.example.moveprog.util.CharsetFactory;
 import com.example.moveprog.util.FastEscapeHandler;
 import com.example.moveprog.util.MigrationOutputDirectorUtil;
+import com.example.moveprog.util.SourceCsvFormatUtil;
+import com.example.moveprog.util.SourceFileReaderUtil;
+import com.univocity.parsers.csv.CsvFormat;
 import com.univocity.parsers.csv.CsvParser;
 import com.univocity.parsers.csv.CsvParserSettings;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +22,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -98,6 +102,23 @@ public class VerifyService {
         }
     }
 
+    /**
+     * 源文件的 CSV 格式：用转码时保存在明细上的；之前转码的明细没有保存，探测一次并补存到明细上
+     */
+    private CsvFormat sourceCsvFormat(QianyiDetail detail, Charset ibmCharset, AppProperties.CsvDetailConfig ibmSource) throws IOException {
+        CsvFormat format = SourceCsvFormatUtil.decode(ibmSource, detail.getSourceCsvFormat());
+        if (format != null) {
+            return format;
+        }
+        format = SourceCsvFormatUtil.detectFormat(Paths.get(detail.getSourceCsvPath()), ibmCharset, ibmSource);
+        String encoded = SourceCsvFormatUtil.encode(format);
+        if (encoded != null) {
+            detailRepo.updateSourceCsvFormat(detail.getId(), encoded);
+            detail.setSourceCsvFormat(encoded);
+        }
+        return format;
+    }
+
     private VerifyDiffWriter createVerifyDiffWriter(MigrationJob migrationJob, CsvSplit split) throws IOException {
         return new VerifyDiffWriter(migrationJob, split.getQianyiId(), split.getId(), config.getVerify().getMaxDiffCount());
     }
@@ -131,22 +152,41 @@ public class VerifyService {
             String sourcePath = detailById.getSourceCsvPath();
 
             AppProperties.CsvDetailConfig ibmSource = config.getCsv().getIbmSource();
-            CsvParserSettings settings = ibmSource.toParserSettings();
-            // 配置跳过
-            if (split.getStartRowNo() >=1) {
-                settings.setNumberOfRowsToSkip(split.getStartRowNo()-1);
+            Charset ibmCharset = CharsetFactory.resolveCharset(ibmSource.getEncoding());
+            CloseableRowIterator<String> rawIter;
+            List<QianyiDetail> coalesced = detailRepo.findByCoalesceLeaderIdOrderByCoalesceRowNoBaseAsc(split.getDetailId());
+            if (split.getSourceByteOffset() == null && coalesced.stream().anyMatch(d -> d.getId().equals(split.getDetailId()))) {
+                // 合并转码的拆分：依次读组内各个源文件
+                rawIter = createCoalescedSourceIterator(coalesced, ibmSource, ibmCharset);
+            } else if (split.getSourceByteOffset() != null && split.getSourceLineBase() != null) {
+                // 转码时记录了拆分起始字节偏移量：直接定位，只读本拆分的字节
+                // 从文件中间解析不能再做格式探测，使用转码时保存的格式
+                CsvFormat format = sourceCsvFormat(detailById, ibmCharset, ibmSource);
+                CsvParserSettings settings = SourceCsvFormatUtil.fixedFormatSettings(ibmSource, format, split.getSourceByteOffset() == 0);
+                settings.setNumberOfRecordsToRead(split.getRowCount());
+                rawIter = new CsvRowIterator(sourcePath, false, new CsvParser(settings), ibmCharset,
+                        split.getSourceLineBase(), split.getSourceByteOffset(),
+                        SourceFileReaderUtil.mmapSegmentSize(Paths.get(sourcePath), config.getPerformance()));
+            } else {
+                CsvParserSettings settings = ibmSource.toParserSettings();
+                // 配置跳过
+                if (split.getStartRowNo() >=1) {
+                    settings.setNumberOfRowsToSkip(split.getStartRowNo()-1);
+                }
+                settings.setNumberOfRecordsToRead(split.getRowCount());
+                CsvParser csvParser = new CsvParser(settings);
+                // 配置读取限制
+                // 读取源文件：偏移量通常是 0 (因为 context.currentLine() 就是真实行号)
+                rawIter = new CsvRowIterator(sourcePath, false, csvParser, ibmCharset, 0, 0L,
+                        SourceFileReaderUtil.mmapSegmentSize(Paths.get(sourcePath), config.getPerformance()));
             }
-            settings.setNumberOfRecordsToRead(split.getRowCount());
-            CsvParser csvParser = new CsvParser(settings);
-            // 配置读取限制
-            // 读取源文件：偏移量通常是 0 (因为 context.currentLine() 就是真实行号)
-            CsvRowIterator rawIter = new CsvRowIterator(sourcePath, false, csvParser,
-                    CharsetFactory.resolveCharset(ibmSource.getEncoding()), 0);
             if (!ibmSource.isTunneling()) {
                 return rawIter;
             }
 
             return new CloseableRowIterator<String>() {
+                private char[] chars = new char[256]; // 还原输出缓冲，整个迭代复用
+
                 @Override
                 public boolean hasNext() {
                     return rawIter.hasNext();
@@ -158,19 +198,23 @@ public class VerifyService {
                     if (row == null) return null;
 
                     // 对每一列进行转义还原，与 TranscodeService 入库逻辑保持一致
-                    String[] processedRow = new String[row.length];
+                    // row 是迭代器新拷贝出来的数组，直接就地替换
                     for (int i = 0; i < row.length; i++) {
-                        Pair<Boolean, String> unescape = FastEscapeHandler.unescape(row[i]);
+                        String cell = row[i];
+                        if (cell == null || cell.indexOf('\\') == -1) {
+                            continue;
+                        }
+                        if (chars.length < cell.length()) {
+                            chars = new char[Math.max(cell.length(), chars.length * 2)];
+                        }
                         // 【优化】显式判断：只有发生了实质性的 Unicode 转义才使用处理后的值
-                        // 虽然目前 unescape 在 false 时返回原串，但这样写更能抵抗未来 unescape 的实现变更
                         // 同时也与 TranscodeService 的逻辑（非 unescape 则 checkStability）精神一致
-                        if (unescape.getLeft()) {
-                            processedRow[i] = unescape.getRight();
-                        } else {
-                            processedRow[i] = row[i];
+                        int n = FastEscapeHandler.unescape(cell, 0, cell.length(), chars, 0);
+                        if (n != FastEscapeHandler.UNCHANGED) {
+                            row[i] = new String(chars, 0, n);
                         }
                     }
-                    return processedRow;
+                    return row;
                 }
 
                 @Override
@@ -189,4 +233,58 @@ public class VerifyService {
         }
     }
 
+    /**
+     * 合并拆分的源文件迭代器：按行号基数顺序依次读组内各源文件，行号 = 基数 + 源文件行号
+     * (与转码时写入拆分的行号一致，整体严格递增)
+     */
+    private CloseableRowIterator<String> createCoalescedSourceIterator(List<QianyiDetail> members,
+                                                                       AppProperties.CsvDetailConfig ibmSource, Charset ibmCharset) {
+        return new CloseableRowIterator<String>() {
+            private int index = 0;
+            private CsvRowIterator current;
+
+            /**
+             * 当前文件读完了就打开下一个
+             */
+            private boolean advance() {
+                while (current == null || !current.hasNext()) {
+                    if (current != null) {
+                        current.close();
+                        current = null;
+                    }
+                    if (index >= members.size()) {
+                        return false;
+                    }
+                    QianyiDetail member = members.get(index++);
+                    String sourcePath = member.getSourceCsvPath();
+                    try {
+                        current = new CsvRowIterator(sourcePath, false, new CsvParser(ibmSource.toParserSettings()), ibmCharset,
+                                member.getCoalesceRowNoBase(), 0L,
+                                SourceFileReaderUtil.mmapSegmentSize(Paths.get(sourcePath), config.getPerformance()));
+                    } catch (Exception e) {
+                        throw new RuntimeException("打开合并转码的源文件失败: " + sourcePath, e);
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return advance();
+            }
+
+            @Override
+            public String[] next() {
+                return advance() ? current.next() : null;
+            }
+
+            @Override
+            public void close() {
+                if (current != null) {
+                    current.close();
+                }
+            }
+        };
+    }
+
 }
\ No newline at end of file
@@ -2,17 +2,26 @@ package com.example.moveprog.service.impl;
 
 import com.example.moveprog.service.CloseableRowIterator;
 import com.example.moveprog.util.CharsetFactory;
+import com.example.moveprog.util.SourceFileReaderUtil;
+import com.example.moveprog.util.SplitFileCompression;
 import com.univocity.parsers.csv.CsvParser;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.FileInputStream;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
 
 @Slf4j
 public class CsvRowIterator implements CloseableRowIterator<String> {
-    private InputStreamReader reader;
+    private Reader reader;
     private CsvParser parser;
     private String[] nextRow;
     private final String filePath;
@@ -26,6 +35,23 @@ public class CsvRowIterator implements CloseableRowIterator<String> {
      * @param charset 编码 (UTF-8 或 IBM1388)
      */
     public CsvRowIterator(String filePath, boolean splitCsvFile, CsvParser parser, Charset charset, long rowNumberOffset) throws Exception {
+        this(filePath, splitCsvFile, parser, charset, rowNumberOffset, 0L);
+    }
+
+    /**
+     * 从指定字节偏移量开始读取 (偏移量必须是记录边界，且处于单字节状态)
+     * @param rowNumberOffset 读源文件时传偏移量之前的换行数，行号 = 解析器行号 + rowNumberOffset
+     * @param startByteOffset 开始读取的字节偏移量
+     */
+    public CsvRowIterator(String filePath, boolean splitCsvFile, CsvParser parser, Charset charset, long rowNumberOffset, long startByteOffset) throws Exception {
+        this(filePath, splitCsvFile, parser, charset, rowNumberOffset, startByteOffset, 0);
+    }
+
+    /**
+     * @param mmapSegmentSize 读源文件时内存映射的段大小，0 表示流式读取 (拆分文件总是流式读取)
+     */
+    public CsvRowIterator(String filePath, boolean splitCsvFile, CsvParser parser, Charset charset, long rowNumberOffset, long startByteOffset,
+                          int mmapSegmentSize) throws Exception {
         this.filePath = filePath;
         this.splitCsvFile = splitCsvFile;
         this.rowNumberOffset = rowNumberOffset;
@@ -33,9 +59,25 @@ public class CsvRowIterator implements CloseableRowIterator<String> {
         boolean success = false;
         try {
             if (log.isDebugEnabled()) {
-                log.debug("filePath: {}, rowNumberOffset: {}", filePath, rowNumberOffset);
+                log.debug("filePath: {}, rowNumberOffset: {}, startByteOffset: {}", filePath, rowNumberOffset, startByteOffset);
+            }
+            if (!splitCsvFile && mmapSegmentSize > 0) {
+                // 源文件内存映射读取，解码器直接读映射段 (替换非法字节，和 InputStreamReader 一致)
+                this.reader = SourceFileReaderUtil.openReader(Paths.get(filePath), startByteOffset,
+                        charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE),
+                        mmapSegmentSize, 64 * 1024, null);
+            } else {
+                FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+                if (startByteOffset > 0) {
+                    channel.position(startByteOffset);
+                }
+                InputStream in = Channels.newInputStream(channel);
+                if (splitCsvFile && SplitFileCompression.isCompressed(filePath)) {
+                    // 压缩的拆分文件，透明解压
+                    in = new GZIPInputStream(in, 64 * 1024);
+                }
+                this.reader = new InputStreamReader(in, charset);
             }
-            this.reader = new InputStreamReader(new FileInputStream(filePath), charset);
             this.parser = parser;
             this.parser.beginParsing(reader);
             this.nextRow = parser.parseNext(); // 预读
@@ -0,0 +1,304 @@
+package com.example.moveprog.service.impl;
+
+import com.univocity.parsers.csv.CsvWriter;
+import com.univocity.parsers.csv.CsvWriterSettings;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 转码错误行的异步写出器 (一个错误文件一个)
+ * 转码线程只把错误行的原始引用 (行号、行数据、列错误) 放进有界队列，Base64 编码、JSON 序列化和写文件都在后台线程完成，
+ * 队列满时转码线程等待，脏数据很多时内存也有上限。
+ * 每条错误记录在文件中的字节偏移量按顺序写进旁边的索引文件 (.idx，每条 8 字节)，查看错误行时按页直接定位，不用从头扫描。
+ * 错误记录的各列不含换行 (Base64/JSON)，一条记录就是一行。
+ */
+@Slf4j
+public class ErrorRecordSink implements Closeable {
+
+    public static final String[] HEADER = {
+            "LineNo", "ErrorType",
+            "Row_Base64_IBM_Approx", "Row_Base64_UTF8",
+            "Column_Details_JSON"
+    };
+    private static final Object END = new Object();
+
+    private final Path path;
+    private final BlockingQueue<Object> queue;
+    private final CsvWriter formatter = new CsvWriter(writerSettings());
+    private final String lineSeparator = writerSettings().getFormat().getLineSeparatorString();
+    private final OutputStream out;
+    private final DataOutputStream index;
+    private final Thread thread;
+    private long position; // 下一条记录在错误文件中的字节偏移量 (只在后台线程访问)
+    private boolean closed = false;
+
+    /**
+     * @param append 追加到已有的错误文件 (断点续转，文件已截到续转位置)，否则新建并写表头
+     * @param queueSize 队列容量 (条)
+     */
+    public ErrorRecordSink(Path path, boolean append, int queueSize) throws IOException {
+        this.path = path;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+        Path indexPath = indexFile(path);
+        if (append && Files.exists(path)) {
+            if (!Files.exists(indexPath)) {
+                rebuildIndex(path);
+            }
+            this.position = Files.size(path);
+            this.out = new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+            this.index = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(indexPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        } else {
+            byte[] header = (formatter.writeRowToString(HEADER) + lineSeparator).getBytes(StandardCharsets.UTF_8);
+            this.out = new BufferedOutputStream(Files.newOutputStream(path));
+            this.out.write(header);
+            this.position = header.length;
+            this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath)));
+        }
+        this.thread = new Thread(this::drain, "error-sink-" + path.getFileName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 错误文件的 CSV 格式：全部加引号，防止 JSON 破坏 CSV 结构
+     */
+    public static CsvWriterSettings writerSettings() {
+        CsvWriterSettings settings = new CsvWriterSettings();
+        settings.getFormat().setDelimiter(',');
+        settings.setQuoteAllFields(true);
+        settings.setMaxCharsPerColumn(100_000);
+        return settings;
+    }
+
+    /**
+     * 错误文件的偏移索引文件
+     */
+    public static Path indexFile(Path errorFile) {
+        return errorFile.resolveSibling(errorFile.getFileName() + ".idx");
+    }
+
+    /**
+     * 提交一条错误记录，格式化 (生成 LineNo, ErrorType, 行 Base64, 列 JSON) 在后台线程执行
+     */
+    public void submit(Supplier<String[]> record) {
+        enqueue(record);
+    }
+
+    /**
+     * 提交一条已格式化的错误记录 (分块转码的工作线程已经格式化好了)
+     */
+    public void submit(String[] errorInfo) {
+        enqueue((Supplier<String[]>) () -> errorInfo);
+    }
+
+    /**
+     * 等待已提交的错误记录全部写入文件 (续转检查点之前的错误行必须已落到错误文件)
+     */
+    public void flush() {
+        CountDownLatch flushed = new CountDownLatch(1);
+        enqueue(flushed);
+        try {
+            while (!flushed.await(1, TimeUnit.SECONDS)) {
+                checkAlive();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待错误文件写出被中断: " + path, e);
+        }
+    }
+
+    private void enqueue(Object item) {
+        try {
+            while (!queue.offer(item, 1, TimeUnit.SECONDS)) {
+                checkAlive();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待错误文件写出被中断: " + path, e);
+        }
+    }
+
+    private void checkAlive() {
+        if (!thread.isAlive()) {
+            throw new IllegalStateException("错误文件写出线程已退出: " + path);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Object item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                continue; // 只由 END 结束，保证已提交的记录都写完
+            }
+            if (item == END) {
+                return;
+            }
+            if (item instanceof CountDownLatch flushed) {
+                try {
+                    out.flush();
+                    index.flush();
+                } catch (IOException e) {
+                    log.error("刷新错误文件失败: {}", path, e);
+                }
+                flushed.countDown();
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            Supplier<String[]> record = (Supplier<String[]>) item;
+            write(record);
+        }
+    }
+
+    private void write(Supplier<String[]> record) {
+        String[] errorInfo = null;
+        try {
+            errorInfo = record.get();
+            if (errorInfo == null) {
+                return;
+            }
+            byte[] bytes = (formatter.writeRowToString(errorInfo) + lineSeparator).getBytes(StandardCharsets.UTF_8);
+            out.write(bytes);
+            index.writeLong(position);
+            position += bytes.length;
+        } catch (Exception e) {
+            log.error("写入错误日志失败 Line:{}", errorInfo == null ? "?" : errorInfo[0], e);
+        }
+    }
+
+    /**
+     * 等已提交的记录写完后关闭文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        boolean queued = false;
+        while (!queued && thread.isAlive()) {
+            // 队列满时等后台线程腾出位置
+            try {
+                queued = queue.offer(END, 1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        try (OutputStream closeOut = out; DataOutputStream closeIndex = index) {
+            closeOut.flush();
+            closeIndex.flush();
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 按错误文件重建偏移索引 (续转截断错误文件后、或旧版本没有索引的错误文件)
+     */
+    public static void rebuildIndex(Path errorFile) throws IOException {
+        try (InputStream in = Files.newInputStream(errorFile);
+             DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile(errorFile))))) {
+            byte[] buffer = new byte[64 * 1024];
+            long offset = 0;
+            boolean lineStart = false; // 下一个字节是一条记录的开头 (第一行是表头，不进索引)
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    if (lineStart) {
+                        index.writeLong(offset + i);
+                        lineStart = false;
+                    }
+                    if (buffer[i] == '\n') {
+                        lineStart = true;
+                    }
+                }
+                offset += n;
+            }
+        }
+    }
+
+    /**
+     * 错误文件的一页
+     * @param header 表头行
+     * @param total 错误记录总数 (按索引)
+     * @param lines 本页的记录 (原始 CSV 行)
+     */
+    public record Page(String header, long total, List<String> lines) {
+    }
+
+    /**
+     * 按索引读取错误文件的一页，只读表头和这一页的内容
+     * 没有索引的错误文件 (旧版本生成) 先重建索引
+     * @param page 页号 (从 0 开始)
+     * @param size 每页条数
+     */
+    public static Page readPage(Path errorFile, int page, int size) throws IOException {
+        Path indexPath = indexFile(errorFile);
+        if (!Files.exists(indexPath)) {
+            rebuildIndex(errorFile);
+        }
+        long total = Files.size(indexPath) / Long.BYTES;
+        long first = (long) page * size;
+        List<String> lines = new ArrayList<>();
+        String header;
+        try (FileChannel channel = FileChannel.open(errorFile, StandardOpenOption.READ)) {
+            BufferedReader headerReader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            header = headerReader.readLine();
+            if (first < total) {
+                channel.position(readOffset(indexPath, first));
+                BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+                String line;
+                while (lines.size() < size && (line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+        }
+        return new Page(header, total, lines);
+    }
+
+    private static long readOffset(Path indexPath, long record) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            long pos = record * Long.BYTES;
+            while (buffer.hasRemaining() && channel.read(buffer, pos + buffer.position()) > 0) {
+                // 读满 8 字节
+            }
+            buffer.flip();
+            return buffer.getLong();
+        }
+    }
+}
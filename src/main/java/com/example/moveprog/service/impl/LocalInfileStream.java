@@ -0,0 +1,138 @@
+package com.example.moveprog.service.impl;
+
+import com.example.moveprog.util.BlockingHandoff;
+import com.example.moveprog.util.SpscRingBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * LOAD DATA LOCAL INFILE 的数据流 (直装模式)
+ * 转码线程按块写入已编码的 CSV 字节，驱动在装载线程里读取并发送给数据库；
+ * 两端之间是有界阻塞块队列，数据库慢时转码线程挂起等待 (背压)，内存占用不超过 队列块数 * 块大小。
+ *
+ * 中止后读取端抛 IOException (不能返回 EOF，否则数据库会把已收到的部分当作完整文件)。
+ */
+public class LocalInfileStream extends InputStream {
+
+    private final int blockSize;
+    private final BlockingHandoff<ByteBuffer> filled;
+    private final SpscRingBuffer<ByteBuffer> free; // 读完的块还给写入端复用 (只用非阻塞的 offer/poll)
+
+    private ByteBuffer writeBlock;
+    private ByteBuffer readBlock;
+    private boolean finished = false;
+    private volatile boolean aborted = false;
+
+    public LocalInfileStream(int blockSize, int queueBlocks) {
+        this.blockSize = blockSize;
+        this.filled = new BlockingHandoff<>(queueBlocks);
+        this.free = new SpscRingBuffer<>(queueBlocks + 2);
+    }
+
+    // ---------------- 写入端 (转码线程) ----------------
+
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (writeBlock == null) {
+                writeBlock = free.poll();
+                if (writeBlock == null) {
+                    writeBlock = ByteBuffer.allocate(blockSize);
+                }
+                writeBlock.clear();
+            }
+            int n = Math.min(length, writeBlock.remaining());
+            writeBlock.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+            if (!writeBlock.hasRemaining()) {
+                sendBlock();
+            }
+        }
+    }
+
+    /**
+     * 数据写完，读取端读完剩余的块后得到 EOF
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (writeBlock != null && writeBlock.position() > 0) {
+            sendBlock();
+        }
+        finished = true;
+        filled.close();
+    }
+
+    private void sendBlock() throws IOException {
+        writeBlock.flip();
+        boolean sent;
+        try {
+            sent = filled.put(writeBlock, this::isAborted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("直装数据流写入被中断");
+        }
+        if (!sent) {
+            throw new IOException("直装数据流已中止");
+        }
+        writeBlock = null;
+    }
+
+    /**
+     * 中止 (任一端失败时调用)，两端的等待在一个等待周期内返回
+     */
+    public void abort() {
+        aborted = true;
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    // ---------------- 读取端 (JDBC 驱动，装载线程) ----------------
+
+    @Override
+    public int read() throws IOException {
+        if (!nextReadBlock()) {
+            return -1;
+        }
+        return readBlock.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextReadBlock()) {
+            return -1;
+        }
+        int n = Math.min(length, readBlock.remaining());
+        readBlock.get(bytes, offset, n);
+        return n;
+    }
+
+    private boolean nextReadBlock() throws IOException {
+        if (readBlock != null && readBlock.hasRemaining()) {
+            return true;
+        }
+        if (readBlock != null) {
+            free.offer(readBlock);
+            readBlock = null;
+        }
+        try {
+            readBlock = filled.take(this::isAborted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("直装数据流读取被中断");
+        }
+        if (aborted) {
+            throw new IOException("直装数据流已中止");
+        }
+        return readBlock != null;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.moveprog.service.impl;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC 装载的多行 INSERT 写出器
+ * 不依赖驱动的 rewriteBatchedStatements 改写，自己拼 INSERT ... VALUES (...),(...)：
+ * 按实测的行字节数累计，每条语句的预估大小不超过服务端 max_allowed_packet，行数不超过 maxRows (及 65535 个占位符的上限)。
+ * 满 maxRows 行的语句只预编译一次反复使用；因包大小提前截断的和最后不满的一块单独预编译。
+ * 预估大小按驱动客户端预编译 (参数转义后拼进 SQL) 计算：字符串的 UTF-8 字节数 + 需转义的字符数 + 引号和逗号，
+ * 按类型转换过的值按驱动实际写出的文本计算 (BigDecimal 按 toPlainString，1e300 会展开成 301 位)。
+ */
+public class MultiRowInsertWriter implements AutoCloseable {
+
+    private static final int MAX_PLACEHOLDERS = 65535;
+    private static final int PACKET_SLACK = 1024;  // 包头、语句余量
+    private static final int LONG_PARAM_BYTES = 21; // long 参数最多 20 个字符 + 逗号
+    private static final int DATETIME_MAX_LENGTH = 29; // yyyy-MM-dd HH:mm:ss.nnnnnnnnn
+    private static final int TIME_MAX_LENGTH = 18;     // HH:mm:ss.nnnnnnnnn
+
+    private final Connection conn;
+    private final String head;
+    private final String rowGroup;
+    private final int dataColumns;
+    private final long csvId;
+    private final TypedParameterBinder binder;
+    private final int queryTimeout;
+    private final int maxRows;
+    private final long maxStatementBytes;
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private long pendingBytes = 0;
+    private PreparedStatement fullStatement; // maxRows 行的语句，反复使用
+
+    // 统计
+    private long rowCount = 0;
+    private long statementCount = 0;
+    private long byteCount = 0;
+    private long packetLimitedCount = 0;
+
+    /**
+     * @param head 语句头: INSERT INTO t (列..., csv_id, 行号) VALUES
+     * @param dataColumns 数据列数 (CSV 行 = 数据列 + 行号，语句参数 = 数据列 + csv_id + 行号)
+     * @param csvId 拆分 id (每行的 csv_id 列)
+     * @param maxAllowedPacket 服务端 max_allowed_packet (字节)
+     * @param maxRows 每条语句最多的行数
+     * @param queryTimeout 语句超时 (秒)，0 不限制
+     */
+    public MultiRowInsertWriter(Connection conn, String head, int dataColumns, long csvId, TypedParameterBinder binder,
+                                long maxAllowedPacket, int maxRows, int queryTimeout) {
+        this.conn = conn;
+        this.head = head;
+        this.dataColumns = dataColumns;
+        this.csvId = csvId;
+        this.binder = binder;
+        this.queryTimeout = queryTimeout;
+        int paramsPerRow = dataColumns + 2;
+        this.rowGroup = "(" + "?,".repeat(paramsPerRow - 1) + "?)";
+        this.maxRows = Math.max(1, Math.min(maxRows, MAX_PLACEHOLDERS / paramsPerRow));
+        this.maxStatementBytes = Math.max(1, maxAllowedPacket - head.getBytes(StandardCharsets.UTF_8).length - PACKET_SLACK);
+    }
+
+    /**
+     * 加一行已转换好的值 (解析线程已经按类型转换、量好字节数)，攒够一条语句就执行
+     * @param values 数据列 (TypedParameterBinder.convert 的结果) + 行号 (Long)
+     * @param bytes {@link #rowBytes(Object[], int)}
+     */
+    public void add(Object[] values, long bytes) throws SQLException {
+        if (!rows.isEmpty() && pendingBytes + bytes > maxStatementBytes) {
+            packetLimitedCount++;
+            flush();
+        }
+        rows.add(values);
+        pendingBytes += bytes;
+        if (rows.size() >= maxRows) {
+            flush();
+        }
+    }
+
+    /**
+     * 执行剩余的行
+     */
+    public void finish() throws SQLException {
+        flush();
+    }
+
+    private void flush() throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int n = rows.size();
+        boolean full = n == maxRows;
+        PreparedStatement ps;
+        if (full) {
+            if (fullStatement == null) {
+                fullStatement = prepare(n);
+            }
+            ps = fullStatement;
+        } else {
+            ps = prepare(n);
+        }
+        try {
+            int parameterIndex = 1;
+            for (Object[] values : rows) {
+                for (int i = 0; i < dataColumns; i++) {
+                    binder.bindValue(ps, parameterIndex++, i, values[i]);
+                }
+                ps.setLong(parameterIndex++, csvId);
+                ps.setLong(parameterIndex++, (Long) values[dataColumns]);
+            }
+            ps.executeUpdate();
+        } finally {
+            if (!full) {
+                ps.close();
+            }
+        }
+        rowCount += n;
+        statementCount++;
+        byteCount += pendingBytes;
+        rows.clear();
+        pendingBytes = 0;
+    }
+
+    private PreparedStatement prepare(int n) throws SQLException {
+        StringBuilder sql = new StringBuilder(head.length() + n * (rowGroup.length() + 1));
+        sql.append(head);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(rowGroup);
+        }
+        PreparedStatement ps = conn.prepareStatement(sql.toString());
+        if (queryTimeout > 0) {
+            ps.setQueryTimeout(queryTimeout);
+        }
+        return ps;
+    }
+
+    /**
+     * 一行在 VALUES 中的预估字节数: (值,值,...),
+     * @param values 数据列 (TypedParameterBinder.convert 的结果) + 行号
+     */
+    public static long rowBytes(Object[] values, int dataColumns) {
+        long bytes = 3 + 2L * LONG_PARAM_BYTES;
+        for (int i = 0; i < dataColumns; i++) {
+            Object value = values[i];
+            bytes += value == null ? 5 : 3 + valueLength(value);
+        }
+        return bytes;
+    }
+
+    /**
+     * 驱动写进 SQL 的值的字节数 (不含引号和逗号)
+     */
+    static long valueLength(Object value) {
+        if (value instanceof String string) {
+            return escapedUtf8Length(string);
+        }
+        if (value instanceof BigDecimal decimal) {
+            // 驱动按 toPlainString 写出，指数形式的值会展开
+            return decimal.toPlainString().length();
+        }
+        if (value instanceof LocalDateTime) {
+            return DATETIME_MAX_LENGTH;
+        }
+        if (value instanceof LocalTime) {
+            return TIME_MAX_LENGTH;
+        }
+        // Long / Double / LocalDate
+        return value.toString().length();
+    }
+
+    /**
+     * 字符串转义后的 UTF-8 字节数 (驱动对 \0 \n \r \ ' " 和 Ctrl-Z 加反斜杠)
+     */
+    static long escapedUtf8Length(String value) {
+        long bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += switch (c) {
+                    case '\0', '\n', '\r', '\\', '\'', '"', '\032' -> 2;
+                    default -> 1;
+                };
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 执行的语句数 (往返次数)
+     */
+    public long getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * 已执行语句的 VALUES 预估字节数
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * 因 max_allowed_packet 提前截断的语句数
+     */
+    public long getPacketLimitedCount() {
+        return packetLimitedCount;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (fullStatement != null) {
+            fullStatement.close();
+            fullStatement = null;
+        }
+    }
+}
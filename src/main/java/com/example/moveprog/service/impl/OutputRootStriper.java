@@ -0,0 +1,112 @@
+package com.example.moveprog.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * 拆分文件多磁盘条带化：连续的拆分轮流写到作业的多个输出根目录
+ * 权重 = 可用空间 × 观测到的写入速度 (都按最大值归一化)，用平滑加权轮询选择，分布均匀且结果确定
+ * 还没有写入速度样本的目录按已知的最快速度算，新加的磁盘也能分到拆分
+ */
+@Slf4j
+public class OutputRootStriper {
+    /**
+     * 小于这个字节数的拆分不作为写入速度样本 (耗时太短，误差大)
+     */
+    static final long MIN_SAMPLE_BYTES = 64 * 1024;
+    /**
+     * 写入速度的平滑系数 (新样本的权重)
+     */
+    private static final double SMOOTHING = 0.3;
+
+    private final ToLongFunction<String> usableSpace;
+    private final Map<String, Double> throughputs = new HashMap<>(); // 字节/秒
+    private final Map<String, Double> currentWeights = new HashMap<>();
+
+    public OutputRootStriper() {
+        this(OutputRootStriper::usableSpaceOf);
+    }
+
+    OutputRootStriper(ToLongFunction<String> usableSpace) {
+        this.usableSpace = usableSpace;
+    }
+
+    /**
+     * 选择下一个拆分的输出根目录
+     * @param roots 作业的全部输出根目录 (第一个是 outDirectory)
+     */
+    public synchronized String next(List<String> roots) {
+        if (roots.size() == 1) {
+            return roots.get(0);
+        }
+
+        long[] spaces = new long[roots.size()];
+        long maxSpace = 0;
+        double maxThroughput = 0;
+        for (int i = 0; i < roots.size(); i++) {
+            spaces[i] = Math.max(0, usableSpace.applyAsLong(roots.get(i)));
+            maxSpace = Math.max(maxSpace, spaces[i]);
+            maxThroughput = Math.max(maxThroughput, throughputs.getOrDefault(roots.get(i), 0.0));
+        }
+        if (maxSpace == 0) {
+            // 都取不到可用空间 (或都满了)，写 outDirectory，由写入时报错
+            return roots.get(0);
+        }
+
+        double totalWeight = 0;
+        String selected = null;
+        double selectedWeight = 0;
+        for (int i = 0; i < roots.size(); i++) {
+            String root = roots.get(i);
+            double speed = maxThroughput > 0 ? throughputs.getOrDefault(root, maxThroughput) / maxThroughput : 1.0;
+            double weight = (double) spaces[i] / maxSpace * speed;
+            if (weight <= 0) {
+                continue;
+            }
+            totalWeight += weight;
+            double current = currentWeights.merge(root, weight, Double::sum);
+            if (selected == null || current > selectedWeight) {
+                selected = root;
+                selectedWeight = current;
+            }
+        }
+        currentWeights.merge(selected, -totalWeight, Double::sum);
+        return selected;
+    }
+
+    /**
+     * 记录一个拆分的写入耗时，更新该目录的写入速度
+     * @param root 拆分所在的输出根目录
+     * @param bytes 写入的字节数
+     * @param writeNanos 写入 (落盘) 耗时
+     */
+    public synchronized void recordWrite(String root, long bytes, long writeNanos) {
+        if (bytes < MIN_SAMPLE_BYTES || writeNanos <= 0) {
+            return;
+        }
+        double sample = bytes * 1_000_000_000.0 / writeNanos;
+        double smoothed = throughputs.merge(root, sample, (old, s) -> old * (1 - SMOOTHING) + s * SMOOTHING);
+        if (log.isDebugEnabled()) {
+            log.debug("输出目录 {} 写入速度: {} 字节/秒", root, (long) smoothed);
+        }
+    }
+
+    private static long usableSpaceOf(String root) {
+        try {
+            Path path = Paths.get(root);
+            Files.createDirectories(path);
+            return Files.getFileStore(path).getUsableSpace();
+        } catch (IOException e) {
+            log.warn("取输出目录可用空间失败，不往该目录写拆分: {}", root, e);
+            return 0;
+        }
+    }
+}
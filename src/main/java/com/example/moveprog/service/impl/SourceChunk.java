@@ -0,0 +1,41 @@
+package com.example.moveprog.service.impl;
+
+/**
+ * 源文件的一个分块 (由若干条完整记录组成)
+ * 分块的起点一定是安全的记录边界，可以用全新的解码器/解析器独立处理
+ */
+public class SourceChunk {
+    private final int index;          // 分块序号 (从 0 开始)
+    private final long startOffset;   // 分块第一个字节在源文件中的偏移量
+    private final long lineBase;      // 分块之前的换行数 (相对行号 + lineBase = 源文件绝对行号)
+    private final byte[] data;
+    private final int length;
+
+    public SourceChunk(int index, long startOffset, long lineBase, byte[] data, int length) {
+        this.index = index;
+        this.startOffset = startOffset;
+        this.lineBase = lineBase;
+        this.data = data;
+        this.length = length;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    public long getLineBase() {
+        return lineBase;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
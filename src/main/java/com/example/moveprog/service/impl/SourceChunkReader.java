@@ -0,0 +1,136 @@
+package com.example.moveprog.service.impl;
+
+import com.example.moveprog.util.SourceFileReaderUtil;
+import com.example.moveprog.util.SourceFingerprintUtil;
+import com.example.moveprog.util.SourceRecordScanner;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * 按安全记录边界把源文件切成分块
+ * 顺序读取文件，每读满一个分块大小，就在已扫描的字节中找最后一个安全边界切一刀，
+ * 边界之后的剩余字节搬到下一个分块的开头。
+ * 如果一整块都找不到边界 (超长记录)，缓冲区自动翻倍。
+ * 可以用内存映射读取 (字节从映射段直接拷进分块)。
+ */
+public class SourceChunkReader implements Closeable {
+    private final InputStream in;
+    private final SourceRecordScanner scanner;
+    private final int chunkSize;
+
+    private byte[] buffer;
+    private int length = 0;        // 缓冲区有效字节数
+    private int scanned = 0;       // 缓冲区已扫描字节数
+    private int lastBoundary = -1; // 缓冲区中最后一个安全边界
+    private long bufferOffset = 0; // 缓冲区第一个字节在文件中的偏移量
+    private long lineBase = 0;     // 缓冲区之前的换行数
+    private final long startLineBase; // 开始读取位置之前的换行数 (扫描器只统计之后的换行)
+    private int nextIndex = 0;
+    private boolean eof = false;
+    private final CRC32C checksum = new CRC32C(); // 边读边算整个文件的校验和
+
+    public SourceChunkReader(Path path, SourceRecordScanner scanner, int chunkSize) throws IOException {
+        this(path, scanner, chunkSize, 0L, 0L);
+    }
+
+    /**
+     * 从指定位置开始读取 (断点续转)，该位置必须是记录边界且处于单字节状态
+     * @param startOffset 开始读取的字节偏移量
+     * @param startLineBase startOffset 之前的换行数
+     */
+    public SourceChunkReader(Path path, SourceRecordScanner scanner, int chunkSize, long startOffset, long startLineBase) throws IOException {
+        this(path, scanner, chunkSize, startOffset, startLineBase, 0);
+    }
+
+    /**
+     * @param mmapSegmentSize 内存映射的段大小，0 表示流式读取
+     */
+    public SourceChunkReader(Path path, SourceRecordScanner scanner, int chunkSize, long startOffset, long startLineBase,
+                             int mmapSegmentSize) throws IOException {
+        this.scanner = scanner;
+        this.chunkSize = chunkSize;
+        this.buffer = new byte[chunkSize];
+        if (startOffset > 0) {
+            // 续转跳过的部分单独补算校验和 (只读不解码，很快)
+            SourceFingerprintUtil.update(checksum, path, startOffset);
+        }
+        this.in = SourceFileReaderUtil.openInputStream(path, startOffset, mmapSegmentSize, null);
+        this.bufferOffset = startOffset;
+        this.lineBase = startLineBase;
+        this.startLineBase = startLineBase;
+    }
+
+    /**
+     * @return 下一个分块，文件读完返回 null
+     */
+    public SourceChunk next() throws IOException {
+        while (true) {
+            if (scanned < length) {
+                int boundary = scanner.scan(buffer, scanned, length);
+                scanned = length;
+                if (boundary > 0) {
+                    lastBoundary = boundary;
+                }
+            }
+
+            if (eof) {
+                if (length == 0) {
+                    return null;
+                }
+                // 文件结尾：剩余字节全部作为最后一个分块
+                return cut(length, startLineBase + scanner.getLineFeeds());
+            }
+
+            if (length >= chunkSize && lastBoundary > 0) {
+                return cut(lastBoundary, startLineBase + scanner.getLineFeedsAtBoundary());
+            }
+
+            if (length == buffer.length) {
+                // 一整块都没有边界，扩容
+                byte[] bigger = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, bigger, 0, length);
+                buffer = bigger;
+            }
+
+            int n = in.read(buffer, length, buffer.length - length);
+            if (n < 0) {
+                eof = true;
+            } else {
+                checksum.update(buffer, length, n);
+                length += n;
+            }
+        }
+    }
+
+    private SourceChunk cut(int cutAt, long lineFeedsAtCut) {
+        SourceChunk chunk = new SourceChunk(nextIndex++, bufferOffset, lineBase, buffer, cutAt);
+
+        // 剩余字节搬到新缓冲区 (旧缓冲区归分块所有，不再复用)
+        int remaining = length - cutAt;
+        byte[] next = new byte[Math.max(chunkSize, remaining * 2)];
+        System.arraycopy(buffer, cutAt, next, 0, remaining);
+        buffer = next;
+        length = remaining;
+        scanned = remaining;
+        lastBoundary = -1;
+        bufferOffset += cutAt;
+        lineBase = lineFeedsAtCut;
+        return chunk;
+    }
+
+    /**
+     * 整个文件的 CRC32C，读到文件结尾 (next() 返回 null) 之后才完整
+     */
+    public long getChecksum() {
+        return checksum.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
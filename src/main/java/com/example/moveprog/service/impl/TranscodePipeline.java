@@ -0,0 +1,106 @@
+package com.example.moveprog.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 转码流水线的线程管理
+ * 每个阶段一个线程，阶段之间用有界队列 (SpscRingBuffer) 衔接；
+ * 任一阶段抛出异常即记录下来 (只保留第一个) 并置中止标志，其余阶段在队列等待中看到中止标志后退出，
+ * 由驱动线程通过 {@link #rethrowIfFailed()} 把原始异常 (含 JobStoppedException、错误行超限) 抛回调用方。
+ */
+@Slf4j
+public class TranscodePipeline implements Closeable {
+
+    @FunctionalInterface
+    public interface Stage {
+        void run() throws Exception;
+    }
+
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean aborted = false;
+
+    /**
+     * 启动一个阶段线程
+     */
+    public void start(String threadName, Stage stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }, threadName);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    public void fail(Throwable e) {
+        if (!failure.compareAndSet(null, e)) {
+            log.debug("流水线已失败，忽略后续异常: {}", e.toString());
+        }
+        aborted = true;
+    }
+
+    public void abort() {
+        aborted = true;
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * 有阶段失败时把原始异常抛出 (驱动线程读到队列结束后调用)
+     * 阶段在 finally 里先关闭下游队列、之后才记录异常，所以要先等阶段线程退出再看有没有失败
+     */
+    public void rethrowIfFailed() throws IOException {
+        joinAll();
+        Throwable cause = failure.get();
+        if (cause == null) {
+            return;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (cause instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        throw new RuntimeException(cause);
+    }
+
+    /**
+     * 中止并等待所有阶段线程退出 (阶段在队列等待中检查中止标志，不用 interrupt，避免打断文件通道)
+     */
+    @Override
+    public void close() {
+        abort();
+        joinAll();
+    }
+
+    private void joinAll() {
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.moveprog.service.impl;
+
+import com.example.moveprog.dto.TableSchema;
+import com.example.moveprog.util.DBUtils;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.util.List;
+
+/**
+ * JDBC 批量装载的参数绑定：按目标列类型在客户端转换一次 (setLong/setBigDecimal/setDouble/日期时间对象/setNull)，
+ * 省掉数据库对每行每列做字符串到 INT/DECIMAL/DATETIME 的转换。
+ * 客户端不能精确转换的值 (非标准格式、超出 long 范围、零日期、超过 24 小时的 TIME 等) 仍按字符串绑定，
+ * 由数据库按原来的规则处理，装载结果和全部 setString 一致。
+ * 日期时间绑定 LocalDate/LocalTime/LocalDateTime (驱动按字面值发送，不做时区换算)。
+ */
+public class TypedParameterBinder {
+
+    private enum Kind { STRING, LONG, DECIMAL, DOUBLE, DATE, TIME, DATETIME }
+
+    /**
+     * yyyy-MM-dd HH:mm:ss[.fraction]，严格校验 (2 月 30 日这类值不滚动到下个月，交给数据库处理)
+     */
+    private static final DateTimeFormatter DATETIME = new DateTimeFormatterBuilder()
+            .appendPattern("uuuu-MM-dd HH:mm:ss")
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .optionalEnd()
+            .toFormatter()
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private final Kind[] kinds;
+    private final int[] nullTypes;
+
+    /**
+     * @param schema 表结构 (null 表示全部按字符串绑定)
+     * @param columnNames 装载语句的数据列 (按参数顺序)，表结构里找不到的列按字符串绑定
+     */
+    public TypedParameterBinder(TableSchema schema, List<String> columnNames) {
+        this.kinds = new Kind[columnNames.size()];
+        this.nullTypes = new int[columnNames.size()];
+        for (int i = 0; i < columnNames.size(); i++) {
+            TableSchema.Column column = schema == null ? null : schema.findColumn(columnNames.get(i));
+            kinds[i] = column == null ? Kind.STRING : kindOf(column.getSqlType());
+            nullTypes[i] = kinds[i] == Kind.STRING ? Types.VARCHAR : column.getSqlType();
+        }
+    }
+
+    private static Kind kindOf(int sqlType) {
+        if (DBUtils.isGenerateInt(sqlType)) {
+            return Kind.LONG;
+        }
+        if (DBUtils.isDecimal(sqlType)) {
+            return Kind.DECIMAL;
+        }
+        if (sqlType == Types.DOUBLE) {
+            return Kind.DOUBLE;
+        }
+        if (DBUtils.isDateType(sqlType)) {
+            return Kind.DATE;
+        }
+        if (DBUtils.isTimeType(sqlType)) {
+            return Kind.TIME;
+        }
+        if (sqlType == Types.TIMESTAMP) {
+            return Kind.DATETIME;
+        }
+        return Kind.STRING;
+    }
+
+    /**
+     * 按类型转换的列数 (日志用)
+     */
+    public int getTypedColumnCount() {
+        int count = 0;
+        for (Kind kind : kinds) {
+            if (kind != Kind.STRING) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 绑定一个数据列
+     * @param parameterIndex 语句参数位置 (从 1 开始)
+     * @param column 数据列下标 (构造时 columnNames 的下标)
+     */
+    public void bind(PreparedStatement ps, int parameterIndex, int column, String value) throws SQLException {
+        bindValue(ps, parameterIndex, column, convert(column, value));
+    }
+
+    /**
+     * 按列类型转换 (不碰语句，可以在解析线程里提前做)
+     * @return Long/BigDecimal/Double/LocalDate/LocalTime/LocalDateTime，转换不了的值原样返回字符串，null 仍为 null
+     */
+    public Object convert(int column, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            switch (kinds[column]) {
+                case LONG -> {
+                    return Long.parseLong(value);
+                }
+                case DECIMAL -> {
+                    return new BigDecimal(value);
+                }
+                case DOUBLE -> {
+                    double number = isPlainNumber(value) ? Double.parseDouble(value) : Double.NaN;
+                    if (Double.isFinite(number)) {
+                        return number;
+                    }
+                }
+                case DATE -> {
+                    return LocalDate.parse(value);
+                }
+                case TIME -> {
+                    return LocalTime.parse(value);
+                }
+                case DATETIME -> {
+                    return LocalDateTime.parse(value, DATETIME);
+                }
+                default -> {
+                }
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            // 客户端转换不了，按字符串交给数据库
+        }
+        return value;
+    }
+
+    /**
+     * 绑定 convert 转换后的值
+     */
+    public void bindValue(PreparedStatement ps, int parameterIndex, int column, Object value) throws SQLException {
+        if (value == null) {
+            ps.setNull(parameterIndex, nullTypes[column]);
+        } else if (value instanceof String string) {
+            ps.setString(parameterIndex, string);
+        } else if (value instanceof Long number) {
+            ps.setLong(parameterIndex, number);
+        } else if (value instanceof BigDecimal decimal) {
+            ps.setBigDecimal(parameterIndex, decimal);
+        } else if (value instanceof Double number) {
+            ps.setDouble(parameterIndex, number);
+        } else {
+            ps.setObject(parameterIndex, value);
+        }
+    }
+
+    /**
+     * 只含数字、符号、小数点和指数 (排除 Double.parseDouble 额外接受的 NaN、Infinity、前后空白、1d 这类写法)
+     */
+    private static boolean isPlainNumber(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
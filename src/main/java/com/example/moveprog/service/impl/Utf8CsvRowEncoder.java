@@ -0,0 +1,221 @@
+package com.example.moveprog.service.impl;
+
+import com.example.moveprog.config.AppProperties;
+import com.univocity.parsers.csv.CsvWriter;
+import com.univocity.parsers.csv.CsvWriterSettings;
+
+import java.io.CharArrayWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 拆分文件行编码器
+ * 按 utf8Split 的写出配置 (全引号) 把 "数据列 + 行号列" 直接编码成 UTF-8 字节，不经过 CsvWriter/OutputStreamWriter。
+ *
+ * 普通单元格 (不含引号/转义符/控制字符，首尾不是空白) 走快速路径: 引号 + UTF-8 字节 + 引号；
+ * 空串/null 使用构造时向 CsvWriter 探测出来的写法；
+ * 其余的行 (需要转义、去首尾空白、换行规范化等) 整行交给 univocity CsvWriter 渲染后再编码，
+ * 所以输出与原来的 CsvWriter + OutputStreamWriter 逐字节一致。
+ *
+ * 注意: 非线程安全，每个写出线程一个实例。
+ */
+public class Utf8CsvRowEncoder {
+
+    /** 单个字符编码后的最大字节数 (转义/换行规范化最多把字符翻倍) */
+    private static final int MAX_BYTES_PER_CHAR = 6;
+
+    private final char quoteChar;
+    private final char quoteEscapeChar;
+    private final byte[] quote;
+    private final byte[] delimiter;
+    private final byte[] lineSeparator;
+    private final byte[] emptyCell;
+
+    // 兜底：复杂的行交给 CsvWriter 渲染
+    private final CharArrayWriter fallbackChars = new CharArrayWriter(256);
+    private final CsvWriter fallbackWriter;
+
+    public Utf8CsvRowEncoder(AppProperties.CsvDetailConfig utf8Split) {
+        CsvWriterSettings settings = utf8Split.toWriterSettings();
+        this.quoteChar = settings.getFormat().getQuote();
+        this.quoteEscapeChar = settings.getFormat().getQuoteEscape();
+        this.quote = utf8(String.valueOf(quoteChar));
+        String delimiterString = settings.getFormat().getDelimiterString();
+        String lineSeparatorString = settings.getFormat().getLineSeparatorString();
+        this.delimiter = utf8(delimiterString);
+        this.lineSeparator = utf8(lineSeparatorString);
+        this.fallbackWriter = new CsvWriter(fallbackChars, settings);
+        this.emptyCell = probeEmptyCell(delimiterString, lineSeparatorString);
+    }
+
+    /**
+     * 目标编码是 UTF-8 且全引号时才能使用
+     */
+    public static boolean supports(AppProperties.CsvDetailConfig utf8Split) {
+        return StandardCharsets.UTF_8.equals(Charset.forName(utf8Split.getEncoding()))
+                && utf8Split.toWriterSettings().getQuoteAllFields();
+    }
+
+    /**
+     * 空串和 null 的写法 (两者必须一致，且与所在列无关)，否则空单元格也走兜底
+     */
+    private byte[] probeEmptyCell(String delimiterString, String lineSeparatorString) {
+        String single = render(new Object[]{"x"});
+        int cellLength = single.length() - lineSeparatorString.length(); // "x" 这一列的写法长度
+        int tailLength = delimiterString.length() + cellLength + lineSeparatorString.length();
+        int headLength = cellLength + delimiterString.length();
+
+        String empty = null;
+        for (Object value : new Object[]{"", null}) {
+            String first = render(new Object[]{value, "x"});
+            String last = render(new Object[]{"x", value});
+            String asFirst = first.substring(0, first.length() - tailLength);
+            String asLast = last.substring(headLength, last.length() - lineSeparatorString.length());
+            if (!asFirst.equals(asLast) || (empty != null && !empty.equals(asFirst))) {
+                return null;
+            }
+            empty = asFirst;
+        }
+        return utf8(empty);
+    }
+
+    private String render(Object[] row) {
+        fallbackChars.reset();
+        fallbackWriter.writeRow(row);
+        return fallbackChars.toString();
+    }
+
+    /**
+     * 编码一行需要的最大字节数 (调用方据此保证 out 的剩余空间)
+     */
+    public int maxRowBytes(String[] cells) {
+        long total = 2L * quote.length + 20 + delimiter.length + lineSeparator.length;
+        for (String cell : cells) {
+            int length = cell == null ? 0 : cell.length();
+            total += (long) length * MAX_BYTES_PER_CHAR + 2L * quote.length + delimiter.length;
+        }
+        if (emptyCell != null) {
+            total += (long) cells.length * emptyCell.length;
+        }
+        if (total > Integer.MAX_VALUE - 16) {
+            throw new IllegalArgumentException("单行数据过大: " + total + " 字节");
+        }
+        return (int) total;
+    }
+
+    /**
+     * 把一行 (数据列 + 行号列) 编码写入 out，out 剩余空间必须不小于 {@link #maxRowBytes(String[])}
+     */
+    public void encodeRow(String[] cells, long lineNo, ByteBuffer out) {
+        for (String cell : cells) {
+            if (!isPlain(cell)) {
+                encodeFallback(cells, lineNo, out);
+                return;
+            }
+        }
+        for (int i = 0; i < cells.length; i++) {
+            String cell = cells[i];
+            if (cell == null || cell.isEmpty()) {
+                out.put(emptyCell);
+            } else {
+                out.put(quote);
+                putUtf8(cell, 0, cell.length(), out);
+                out.put(quote);
+            }
+            out.put(delimiter);
+        }
+        // 行号列 (纯数字，直接写 ASCII)
+        out.put(quote);
+        putLong(lineNo, out);
+        out.put(quote);
+        out.put(lineSeparator);
+    }
+
+    /**
+     * 是否可以走快速路径 (CsvWriter 对它的输出一定是 引号 + 原值 + 引号)
+     */
+    private boolean isPlain(String cell) {
+        if (cell == null || cell.isEmpty()) {
+            return emptyCell != null;
+        }
+        int length = cell.length();
+        if (cell.charAt(0) <= ' ' || cell.charAt(length - 1) <= ' ') {
+            // 首尾空白会被 CsvWriter 去掉
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = cell.charAt(i);
+            if (c < ' ' || c == quoteChar || c == quoteEscapeChar) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void encodeFallback(String[] cells, long lineNo, ByteBuffer out) {
+        Object[] row = new Object[cells.length + 1];
+        System.arraycopy(cells, 0, row, 0, cells.length);
+        row[cells.length] = lineNo;
+        fallbackChars.reset();
+        fallbackWriter.writeRow(row);
+        char[] chars = fallbackChars.toCharArray();
+        putUtf8(CharBuffer.wrap(chars), 0, chars.length, out);
+    }
+
+    private static void putLong(long value, ByteBuffer out) {
+        if (value < 0) {
+            out.put((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                out.put(utf8("9223372036854775808"));
+                return;
+            }
+            value = -value;
+        }
+        int start = out.position();
+        do {
+            out.put((byte) ('0' + (value % 10)));
+            value /= 10;
+        } while (value > 0);
+        // 逆序写入的数字翻转回来
+        for (int i = start, j = out.position() - 1; i < j; i++, j--) {
+            byte tmp = out.get(i);
+            out.put(i, out.get(j));
+            out.put(j, tmp);
+        }
+    }
+
+    /**
+     * UTF-8 编码，孤立的代理字符写成 '?' (与 OutputStreamWriter 的替换行为一致)
+     */
+    static void putUtf8(CharSequence s, int from, int to, ByteBuffer out) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    out.put((byte) (0xF0 | (cp >> 18)));
+                    out.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    out.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    out.put((byte) (0x80 | (cp & 0x3F)));
+                } else {
+                    out.put((byte) '?');
+                }
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
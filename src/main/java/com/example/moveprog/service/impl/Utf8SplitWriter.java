@@ -0,0 +1,197 @@
+package com.example.moveprog.service.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * UTF-8 拆分文件写出器
+ * 行直接编码进一块大的堆外缓冲区 (direct ByteBuffer)，写满后用 FileChannel.write 整块落盘，
+ * 省掉 CsvWriter -> BufferedWriter -> OutputStreamWriter 的多次字符/字节拷贝。
+ * 开启压缩时，整块经 Deflater 压缩后按 gzip 格式落盘 (同样不经过 byte[] 中转)。
+ */
+public class Utf8SplitWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final Utf8CsvRowEncoder encoder;
+    private boolean closed = false;
+    private boolean syncOnClose = false;
+    private long bytesWritten = 0; // 已写入的字节数 (未压缩，含缓冲区中未落盘的)
+    private long writeNanos = 0;   // 写文件 (含 fsync) 的耗时，多磁盘条带化按它估算磁盘写入速度
+
+    // gzip 压缩 (deflater 为 null 表示不压缩)
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final byte[] NO_INPUT = new byte[0];
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private final ByteBuffer compressed;
+    private long uncompressedSize = 0;
+
+    /**
+     * @param encoder 行编码器，只写已编码字节 (write(byte[]...)) 时可以为 null
+     * @param bufferSize 堆外缓冲区大小 (字节)
+     */
+    public Utf8SplitWriter(Path path, Utf8CsvRowEncoder encoder, int bufferSize) throws IOException {
+        this(path, encoder, bufferSize, null);
+    }
+
+    /**
+     * @param deflater 不为 null 时按 gzip 格式压缩写出 (必须是 nowrap 的 Deflater，关闭时释放)
+     */
+    public Utf8SplitWriter(Path path, Utf8CsvRowEncoder encoder, int bufferSize, Deflater deflater) throws IOException {
+        // 与 Files.newOutputStream 默认选项一致: 不存在则创建，存在则截断
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 64 * 1024));
+        this.encoder = encoder;
+        this.deflater = deflater;
+        if (deflater != null) {
+            this.crc = new CRC32();
+            this.compressed = ByteBuffer.allocateDirect(64 * 1024);
+            writeToChannel(ByteBuffer.wrap(GZIP_HEADER));
+        } else {
+            this.crc = null;
+            this.compressed = null;
+        }
+    }
+
+    /**
+     * 写一行: 数据列 + 行号列
+     */
+    public void writeRow(String[] cells, long lineNo) throws IOException {
+        int maxBytes = encoder.maxRowBytes(cells);
+        if (maxBytes > buffer.remaining()) {
+            flush();
+            if (maxBytes > buffer.capacity()) {
+                // 超大行，单独编码后直接写
+                ByteBuffer big = ByteBuffer.allocate(maxBytes);
+                encoder.encodeRow(cells, lineNo, big);
+                big.flip();
+                bytesWritten += big.remaining();
+                writeFully(big);
+                return;
+            }
+        }
+        int start = buffer.position();
+        encoder.encodeRow(cells, lineNo, buffer);
+        bytesWritten += buffer.position() - start;
+    }
+
+    /**
+     * 写已编码好的字节 (分块转码按序提交时使用)
+     */
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        bytesWritten += length;
+        if (length > buffer.remaining()) {
+            flush();
+            if (length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes, offset, length));
+                return;
+            }
+        }
+        buffer.put(bytes, offset, length);
+    }
+
+    /**
+     * 关闭时把数据刷到磁盘 (fsync)，拆分作为断点续转的检查点时使用，机器掉电也不丢已完成的拆分
+     */
+    public void setSyncOnClose(boolean syncOnClose) {
+        this.syncOnClose = syncOnClose;
+    }
+
+    /**
+     * 已写入的字节数 (未压缩)
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * 写文件 (FileChannel.write 和关闭时的 fsync) 的累计耗时 (纳秒)
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer src) throws IOException {
+        if (deflater == null) {
+            writeToChannel(src);
+            return;
+        }
+        crc.update(src.duplicate());
+        uncompressedSize += src.remaining();
+        deflater.setInput(src);
+        while (!deflater.needsInput()) {
+            deflater.deflate(compressed);
+            drainCompressed();
+        }
+        // Deflater 持有 src 的引用，src 被 clear() 复用后会被当成新输入，这里解除引用
+        deflater.setInput(NO_INPUT);
+    }
+
+    /**
+     * 压缩收尾：输出剩余的压缩数据和 gzip 尾部 (CRC32 + 原始长度，小端)
+     */
+    private void finishCompression() throws IOException {
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflater.deflate(compressed);
+            drainCompressed();
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        trailer.putInt((int) crc.getValue());
+        trailer.putInt((int) uncompressedSize);
+        trailer.flip();
+        writeToChannel(trailer);
+    }
+
+    private void drainCompressed() throws IOException {
+        compressed.flip();
+        writeToChannel(compressed);
+        compressed.clear();
+    }
+
+    private void writeToChannel(ByteBuffer src) throws IOException {
+        long start = System.nanoTime();
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+        writeNanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            if (deflater != null) {
+                finishCompression();
+            }
+            if (syncOnClose) {
+                long start = System.nanoTime();
+                channel.force(false);
+                writeNanos += System.nanoTime() - start;
+            }
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            channel.close();
+        }
+    }
+}
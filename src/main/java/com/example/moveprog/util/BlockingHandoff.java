@@ -0,0 +1,74 @@
+package com.example.moveprog.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 有界阻塞交接队列 (一端生产、一端消费)
+ * 用于一端要等 IO (数据库执行批次、驱动发送数据) 的流水线：等待时线程挂起、不占 CPU，
+ * 每隔 WAIT_MILLIS 醒来检查一次中止条件，任一端失败或被叫停时另一端不会永远阻塞。
+ * CPU 密集、两端都很忙的转码阶段仍用 SpscRingBuffer。
+ */
+public class BlockingHandoff<T> {
+
+    private static final long WAIT_MILLIS = 20L;
+    private static final Object END = new Object(); // 生产者结束标记
+
+    private final ArrayBlockingQueue<Object> queue;
+    private volatile boolean closed = false;
+
+    public BlockingHandoff(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("队列容量必须大于 0: " + capacity);
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * 阻塞写入 (背压)
+     * @return 被中止时返回 false，元素没有写入
+     */
+    public boolean put(T item, BooleanSupplier aborted) throws InterruptedException {
+        while (!queue.offer(item, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (aborted.getAsBoolean()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 阻塞读取
+     * @return 生产者已结束且队列读空，或被中止时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public T take(BooleanSupplier aborted) throws InterruptedException {
+        while (true) {
+            Object item = queue.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            if (item == END) {
+                return null;
+            }
+            if (item != null) {
+                return (T) item;
+            }
+            if (closed) {
+                // 队列满时结束标记没放进去，close 之前写入的元素在这里读完
+                item = queue.poll();
+                return item == END ? null : (T) item;
+            }
+            if (aborted.getAsBoolean()) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 生产者结束 (不阻塞：失败路径上消费者可能已经退出)
+     */
+    public void close() {
+        closed = true;
+        // 放得进结束标记就立即唤醒消费者，放不进 (队列满) 消费者读到空时看 closed
+        queue.offer(END);
+    }
+}
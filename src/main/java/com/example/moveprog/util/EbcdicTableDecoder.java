@@ -0,0 +1,469 @@
+package com.example.moveprog.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 查表解码器 (IBM1388 等 SO/SI 切换的 EBCDIC 混合编码)
+ *
+ * 构建时 (转码服务启动时预热) 用 ICU 解码器把单字节表和双字节表各算一遍，之后直接在 byte[] 上查表写 char[]，
+ * 省掉 InputStreamReader + ICU CharsetDecoder 的逐字符开销。
+ *
+ * 只有"一个字节(或一对双字节) 严格对应一个字符"的情况走查表；
+ * 遇到非法/不可映射字节、冗余的 SO/SI、截断的双字节等交给 ICU 解码器 (fallback)：
+ * 整块解码从该位置起把本块剩余部分交给它；流式解码只交出到下一个单字节状态下的换行为止，之后回到查表。
+ * 所以输出和原来的 InputStreamReader + ICU 解码器逐字符一致 (包括替换字符和严格模式下的异常)。
+ */
+@Slf4j
+public class EbcdicTableDecoder {
+
+    private static final byte SHIFT_OUT = 0x0E;
+    private static final byte SHIFT_IN = 0x0F;
+
+    private static final int DONE = 0;      // 区间全部解码完毕
+    private static final int NEED_MORE = 1; // 末尾是半个双字节，需要更多输入
+    private static final int ANOMALY = 2;   // 遇到查表处理不了的字节
+
+    private static final Map<String, Optional<EbcdicTableDecoder>> CACHE = new ConcurrentHashMap<>();
+
+    private final Charset charset;
+    private final char[] sbcs = new char[256];
+    private final boolean[] sbcsValid = new boolean[256];
+    private final char[] dbcs = new char[65536]; // '\0' 表示没有一对一映射
+    private final boolean[] lineFeed = new boolean[256]; // 解码为 '\n' 的单字节
+
+    private EbcdicTableDecoder(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * 获取字符集对应的查表解码器 (每个字符集只构建一次)
+     * @param selfCheck 构建后是否做全码表自检，自检不通过则不使用查表解码
+     * @return 不是 SO/SI 有状态编码，或自检不通过时返回 null
+     */
+    public static EbcdicTableDecoder forCharset(Charset charset, boolean selfCheck) {
+        return CACHE.computeIfAbsent(charset.name() + ":" + selfCheck, key -> {
+            if (!SourceRecordScanner.isShiftStateful(charset)) {
+                return Optional.empty();
+            }
+            long start = System.currentTimeMillis();
+            EbcdicTableDecoder decoder = new EbcdicTableDecoder(charset);
+            decoder.buildTables();
+            if (selfCheck) {
+                int mismatches = decoder.selfCheck();
+                if (mismatches > 0) {
+                    log.error("查表解码器自检失败, 字符集: {}, 不一致用例数: {}, 改用 ICU 解码", charset.name(), mismatches);
+                    return Optional.empty();
+                }
+            }
+            log.info("查表解码器就绪, 字符集: {}, 自检: {}, 耗时: {}ms", charset.name(), selfCheck, System.currentTimeMillis() - start);
+            return Optional.of(decoder);
+        }).orElse(null);
+    }
+
+    private void buildTables() {
+        for (int b = 0; b < 256; b++) {
+            if (b == SHIFT_OUT || b == SHIFT_IN) {
+                continue;
+            }
+            String s = decodeStrict(new byte[]{(byte) b});
+            if (s != null && s.length() == 1 && !Character.isSurrogate(s.charAt(0))) {
+                sbcs[b] = s.charAt(0);
+                sbcsValid[b] = true;
+                lineFeed[b] = s.charAt(0) == '\n';
+            }
+        }
+        for (int b1 = 0; b1 < 256; b1++) {
+            if (b1 == SHIFT_OUT || b1 == SHIFT_IN) {
+                continue;
+            }
+            for (int b2 = 0; b2 < 256; b2++) {
+                if (b2 == SHIFT_OUT || b2 == SHIFT_IN) {
+                    continue;
+                }
+                String s = decodeStrict(new byte[]{SHIFT_OUT, (byte) b1, (byte) b2, SHIFT_IN});
+                if (s != null && s.length() == 1 && s.charAt(0) != '\0' && !Character.isSurrogate(s.charAt(0))) {
+                    dbcs[(b1 << 8) | b2] = s.charAt(0);
+                }
+            }
+        }
+    }
+
+    private String decodeStrict(byte[] bytes) {
+        try {
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解码游标：在多次调用之间保存位置和 SO/SI 状态
+     */
+    private static final class Cursor {
+        private int srcPos;
+        private int dstPos;
+        private boolean doubleByte;
+    }
+
+    /**
+     * 查表解码 [cursor.srcPos, to)，dst 至少要有 (to - srcPos) 个空位 (每个字节最多产生一个字符)
+     */
+    private int decodeTable(byte[] src, int to, char[] dst, Cursor cursor) {
+        int sp = cursor.srcPos;
+        int dp = cursor.dstPos;
+        boolean doubleByte = cursor.doubleByte;
+        int status = DONE;
+        while (sp < to) {
+            int b = src[sp] & 0xFF;
+            if (!doubleByte) {
+                if (sbcsValid[b]) {
+                    dst[dp++] = sbcs[b];
+                    sp++;
+                } else if (b == SHIFT_OUT) {
+                    doubleByte = true;
+                    sp++;
+                } else {
+                    status = ANOMALY;
+                    break;
+                }
+            } else {
+                if (b == SHIFT_IN) {
+                    doubleByte = false;
+                    sp++;
+                    continue;
+                }
+                if (sp + 1 >= to) {
+                    status = NEED_MORE;
+                    break;
+                }
+                char c = dbcs[(b << 8) | (src[sp + 1] & 0xFF)];
+                if (c == '\0') {
+                    status = ANOMALY;
+                    break;
+                }
+                dst[dp++] = c;
+                sp += 2;
+            }
+        }
+        cursor.srcPos = sp;
+        cursor.dstPos = dp;
+        cursor.doubleByte = doubleByte;
+        return status;
+    }
+
+    /**
+     * 整块解码 (输入必须从单字节状态开始，比如源文件开头或安全记录边界)
+     * @param fallback 查表处理不了时使用的解码器 (决定替换/报错策略)
+     */
+    public CharBuffer decode(byte[] src, int off, int len, CharsetDecoder fallback) throws CharacterCodingException {
+        char[] dst = new char[len];
+        Cursor cursor = new Cursor();
+        cursor.srcPos = off;
+        int status = decodeTable(src, off + len, dst, cursor);
+        if (status == DONE) {
+            return CharBuffer.wrap(dst, 0, cursor.dstPos);
+        }
+
+        // 剩余部分交给 fallback：处于双字节状态时先喂一个 SO，让它从相同的状态开始
+        fallback.reset();
+        CharBuffer out = CharBuffer.wrap(dst);
+        out.position(cursor.dstPos);
+        if (cursor.doubleByte) {
+            out = decodeInto(fallback, ByteBuffer.wrap(new byte[]{SHIFT_OUT}), out, false);
+        }
+        // 和 InputStreamReader 的行为保持一致：结尾不调用 flush (ICU 会在 flush 时才补出截断双字节的替换字符)
+        out = decodeInto(fallback, ByteBuffer.wrap(src, cursor.srcPos, off + len - cursor.srcPos), out, true);
+        out.flip();
+        return out;
+    }
+
+    private static CharBuffer decodeInto(CharsetDecoder decoder, ByteBuffer in, CharBuffer out, boolean endOfInput) throws CharacterCodingException {
+        while (true) {
+            CoderResult cr = decoder.decode(in, out, endOfInput);
+            if (cr.isOverflow()) {
+                out = grow(out);
+            } else if (cr.isError()) {
+                cr.throwException();
+            } else {
+                return out;
+            }
+        }
+    }
+
+    private static CharBuffer grow(CharBuffer out) {
+        CharBuffer bigger = CharBuffer.allocate(out.capacity() * 2 + 16);
+        out.flip();
+        bigger.put(out);
+        return bigger;
+    }
+
+    /**
+     * 流式解码 Reader (输入必须从单字节状态开始)
+     * @param fallback 查表处理不了时使用的解码器，只解码到下一个单字节状态下的换行，之后回到查表
+     */
+    public Reader newReader(InputStream in, CharsetDecoder fallback, int bufferSize) {
+        return new TableReader(in, fallback, bufferSize);
+    }
+
+    private final class TableReader extends Reader {
+        private final InputStream in;
+        private final CharsetDecoder fallback;
+        private final byte[] bytes;
+        private char[] chars;
+        private int byteStart = 0;
+        private int byteEnd = 0;
+        private int charPos = 0;
+        private int charEnd = 0;
+        private boolean doubleByte = false;
+        private boolean eof = false;
+        // fallback 段：从异常字节起由 fallback 解码，直到单字节状态下的换行 (和分块的安全边界同一口径)
+        private boolean inFallback = false;
+        private boolean scanDoubleByte = false; // 找换行时按 SO/SI 跟踪的状态
+        private int scanned = 0;                // byteStart 之后已经找过换行的字节数
+
+        TableReader(InputStream in, CharsetDecoder fallback, int bufferSize) {
+            this.in = in;
+            this.fallback = fallback;
+            this.bytes = new byte[Math.max(bufferSize, 2)];
+            this.chars = new char[this.bytes.length];
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (charPos >= charEnd) {
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            int n = Math.min(len, charEnd - charPos);
+            System.arraycopy(chars, charPos, cbuf, off, n);
+            charPos += n;
+            return n;
+        }
+
+        private boolean fill() throws IOException {
+            charPos = 0;
+            charEnd = 0;
+            // 上一轮剩下的字节 (半个双字节，或 fallback 还没消费的) 搬到开头
+            int leftover = byteEnd - byteStart;
+            if (byteStart > 0 && leftover > 0) {
+                System.arraycopy(bytes, byteStart, bytes, 0, leftover);
+            }
+            byteStart = 0;
+            byteEnd = leftover;
+            if (!eof) {
+                int n = in.read(bytes, byteEnd, bytes.length - byteEnd);
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    byteEnd += n;
+                }
+            }
+            if (eof && byteEnd == 0) {
+                return false;
+            }
+
+            int sp = 0;
+            int dp = 0;
+            while (true) {
+                if (!inFallback) {
+                    Cursor cursor = new Cursor();
+                    cursor.srcPos = sp;
+                    cursor.dstPos = dp;
+                    cursor.doubleByte = doubleByte;
+                    if (chars.length < dp + byteEnd - sp) {
+                        chars = Arrays.copyOf(chars, dp + byteEnd - sp);
+                    }
+                    int status = decodeTable(bytes, byteEnd, chars, cursor);
+                    sp = cursor.srcPos;
+                    dp = cursor.dstPos;
+                    doubleByte = cursor.doubleByte;
+                    if (status == DONE || (status == NEED_MORE && !eof)) {
+                        break;
+                    }
+                    // 从这里起交给 fallback：处于双字节状态时先喂一个 SO，让它从相同的状态开始
+                    fallback.reset();
+                    CharBuffer shift = CharBuffer.wrap(chars, dp, chars.length - dp);
+                    if (doubleByte) {
+                        shift = decodeInto(fallback, ByteBuffer.wrap(new byte[]{SHIFT_OUT}), shift, false);
+                        chars = shift.array();
+                        dp = shift.position();
+                    }
+                    inFallback = true;
+                    scanDoubleByte = doubleByte;
+                    scanned = 0;
+                }
+
+                int boundary = nextLineFeedBoundary(sp + scanned);
+                int segmentEnd = boundary < 0 ? byteEnd : boundary;
+                ByteBuffer segment = ByteBuffer.wrap(bytes, sp, segmentEnd - sp);
+                // 和 InputStreamReader 的行为保持一致：结尾不调用 flush
+                CharBuffer out = decodeInto(fallback, segment, CharBuffer.wrap(chars, dp, chars.length - dp),
+                        boundary < 0 && eof);
+                chars = out.array();
+                dp = out.position();
+                sp = segment.position();
+                if (boundary < 0) {
+                    // 没到换行，剩下的字节 (已找过) 留到下一轮
+                    scanned = byteEnd - sp;
+                    break;
+                }
+                // 换行之后 fallback 处于单字节状态，回到查表
+                inFallback = false;
+                doubleByte = false;
+            }
+            byteStart = sp;
+            charEnd = dp;
+            return true;
+        }
+
+        /**
+         * 从 from 开始找单字节状态下的换行 (按 SO/SI 跟踪状态)
+         * @return 换行之后的下标，没有返回 -1
+         */
+        private int nextLineFeedBoundary(int from) {
+            for (int i = from; i < byteEnd; i++) {
+                byte b = bytes[i];
+                if (b == SHIFT_OUT) {
+                    scanDoubleByte = true;
+                } else if (b == SHIFT_IN) {
+                    scanDoubleByte = false;
+                } else if (!scanDoubleByte && lineFeed[b & 0xFF]) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * 自检：全部单字节、全部双字节组合 (含非法组合)、随机字节流，
+     * 分别用整块解码和流式解码跑一遍，和 InputStreamReader + ICU 解码器 (替换模式) 的结果逐字符比对
+     * @return 不一致的用例数
+     */
+    public int selfCheck() {
+        int mismatches = 0;
+        for (int b = 0; b < 256; b++) {
+            mismatches += checkCase(new byte[]{(byte) b, (byte) 0xC1});
+        }
+        // 每个双字节后面接换行和一个合法双字节段：流式解码在换行处回到查表，两边也要一致
+        int lf = lineFeedByte();
+        int valid = nextValidPair(new Random(1388));
+        for (int b1 = 0; b1 < 256; b1++) {
+            for (int b2 = 0; b2 < 256; b2++) {
+                mismatches += checkCase(lf < 0
+                        ? new byte[]{(byte) 0xC1, SHIFT_OUT, (byte) b1, (byte) b2, SHIFT_IN, (byte) 0xC1}
+                        : new byte[]{(byte) 0xC1, SHIFT_OUT, (byte) b1, (byte) b2, SHIFT_IN, (byte) lf,
+                                (byte) 0xC1, SHIFT_OUT, (byte) (valid >> 8), (byte) valid, SHIFT_IN, (byte) 0xC1});
+            }
+        }
+        Random random = new Random(1388);
+        for (int i = 0; i < 200; i++) {
+            mismatches += checkCase(randomStream(random, 4096));
+        }
+        return mismatches;
+    }
+
+    private byte[] randomStream(Random random, int size) {
+        byte[] bytes = new byte[size];
+        int lf = lineFeedByte();
+        int i = 0;
+        while (i < size) {
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                bytes[i++] = (byte) (0x40 + random.nextInt(0xC0));
+            } else if (kind < 8 && i + 4 <= size) {
+                // 合法的双字节段
+                bytes[i++] = SHIFT_OUT;
+                int pair = nextValidPair(random);
+                bytes[i++] = (byte) (pair >> 8);
+                bytes[i++] = (byte) pair;
+                bytes[i++] = SHIFT_IN;
+            } else if (kind == 8 && lf >= 0) {
+                bytes[i++] = (byte) lf;
+            } else {
+                bytes[i++] = (byte) random.nextInt(256);
+            }
+        }
+        return bytes;
+    }
+
+    private int lineFeedByte() {
+        for (int b = 0; b < 256; b++) {
+            if (lineFeed[b]) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    private int nextValidPair(Random random) {
+        int pair = random.nextInt(65536);
+        while (dbcs[pair] == '\0') {
+            pair = random.nextInt(65536);
+        }
+        return pair;
+    }
+
+    private int checkCase(byte[] bytes) {
+        try {
+            String expected = readFully(new InputStreamReader(new ByteArrayInputStream(bytes), newReplacingDecoder()));
+            String bulk = decode(bytes, 0, bytes.length, newReplacingDecoder()).toString();
+            // 小缓冲区，刻意把双字节切断在缓冲区边界
+            String streamed = readFully(newReader(new ByteArrayInputStream(bytes), newReplacingDecoder(), 7));
+            if (expected.equals(bulk) && expected.equals(streamed)) {
+                return 0;
+            }
+            log.warn("查表解码不一致, 输入: {}", Arrays.toString(bytes));
+            return 1;
+        } catch (IOException e) {
+            log.warn("查表解码自检异常, 输入: {}", Arrays.toString(bytes), e);
+            return 1;
+        }
+    }
+
+    private static String readFully(Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try (reader) {
+            char[] buf = new char[5];
+            int n;
+            while ((n = reader.read(buf, 0, buf.length)) >= 0) {
+                sb.append(buf, 0, n);
+            }
+        }
+        return sb.toString();
+    }
+
+    private CharsetDecoder newReplacingDecoder() {
+        return CharsetFactory.createDecoder(charset, false);
+    }
+}
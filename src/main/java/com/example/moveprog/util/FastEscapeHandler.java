@@ -11,6 +11,13 @@ public class FastEscapeHandler {
     private static final int STATE_NORMAL = 0;       // 正常读取模式
     private static final int STATE_IN_ESCAPE = 1;    // 遇到反斜杠，进入转义模式
 
+    /**
+     * 流式 API 返回码：没有发生实质性的 Unicode 转换 (输出等同于输入，调用方直接用原串)
+     */
+    public static final int UNCHANGED = -1;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     /**
      * 【核心】状态机解析：将含转义符的 ASCII 串还原为 Unicode
      * 逻辑：
@@ -26,51 +33,61 @@ public class FastEscapeHandler {
         if (input.indexOf('\\') == -1) {
             return Pair.of(false,input);
         }
+        char[] out = new char[input.length()];
+        int n = unescape(input, 0, input.length(), out, 0);
+        if (n == UNCHANGED) {
+            return Pair.of(false, input);
+        }
+        return Pair.of(true, new String(out, 0, n));
+    }
 
-        StringBuilder out = new StringBuilder(input.length());
-        StringBuilder hexBuffer = new StringBuilder(16); // 用于暂存 Hex 码
+    /**
+     * 【流式】把 src[from, to) 还原写入调用方提供的 dst (从 dstOff 开始)，不产生中间对象
+     * 还原只会变短或等长，dst 至少预留 (to - from) 个位置
+     * @return 写入的字符数；没有发生实质性的 Unicode 转换时返回 {@link #UNCHANGED} (dst 内容无意义)
+     */
+    public static int unescape(CharSequence src, int from, int to, char[] dst, int dstOff) {
+        int dp = dstOff;
         int state = STATE_NORMAL;
-        boolean hasUnicodeConversion = false; // 【新增】标记是否发生了实质性的Unicode转换
+        int escapeStart = -1; // 转义内容 (Hex 码) 的起始位置
+        boolean hasUnicodeConversion = false; // 标记是否发生了实质性的Unicode转换
 
-        for (int i = 0; i < input.length(); i++) {
-            char c = input.charAt(i);
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
 
             switch (state) {
                 case STATE_NORMAL:
                     if (c == '\\') {
                         state = STATE_IN_ESCAPE; // 切换状态
+                        escapeStart = i + 1;
                     } else {
-                        out.append(c); // 正常字符直接输出
+                        dst[dp++] = c; // 正常字符直接输出
                     }
                     break;
 
                 case STATE_IN_ESCAPE:
                     if (c == '\\') {
                         // 遇到闭合的 '\'
-                        if (hexBuffer.length() == 0) {
+                        if (i == escapeStart) {
                             // 缓冲区为空，说明是 "\\" -> 转义成了 "\"
-                            out.append('\\');
                             // 注意：这里没有将 hasUnicodeConversion 设为 true
                             // 因为 \\ -> \ 只是普通字符转义，不是 Unicode 还原
+                            dst[dp++] = '\\';
                         } else {
-                            // 缓冲区有值，尝试解析 Hex
-                            try {
-                                int codePoint = Integer.parseInt(hexBuffer.toString(), 16);
-                                out.append(Character.toChars(codePoint));
+                            int codePoint = parseCodePoint(src, escapeStart, i);
+                            if (codePoint >= 0) {
+                                dp += Character.toChars(codePoint, dst, dp);
                                 hasUnicodeConversion = true; // 【核心】只有这里才标记为 true
-                            } catch (NumberFormatException e) {
+                            } else {
                                 // 容错：如果里边不是 Hex，说明不是合法转义，原样还原
                                 // 比如原本是 "C:\Windows\"，被误判了
-                                out.append('\\').append(hexBuffer).append('\\');
+                                dp = copy(src, escapeStart - 1, i + 1, dst, dp);
                             }
                         }
-                        // 清空缓冲，切回正常模式
-                        hexBuffer.setLength(0);
+                        // 切回正常模式
                         state = STATE_NORMAL;
-                    } else {
-                        // 还在转义符中间，收集 Hex 字符
-                        hexBuffer.append(c);
                     }
+                    // 否则还在转义符中间，继续收集 Hex 字符
                     break;
             }
         }
@@ -78,14 +95,49 @@ public class FastEscapeHandler {
         // 边缘情况处理：如果字符串以 '\' 结尾（断头转义）
         // 比如 "abc\123" 后面没有闭合的斜杠
         if (state == STATE_IN_ESCAPE) {
-            out.append('\\').append(hexBuffer);
+            dp = copy(src, escapeStart - 1, to, dst, dp);
         }
 
-        if (!hasUnicodeConversion) {
-            return Pair.of(false, input);
+        return hasUnicodeConversion ? dp - dstOff : UNCHANGED;
+    }
+
+    /**
+     * 就地解析 [from, to) 的 Hex 码 (与 Integer.parseInt(s, 16) 的接受范围一致，允许前导 +/-)
+     * @return 合法的 Unicode 码点；不是 Hex 或超出码点范围返回 -1
+     */
+    private static int parseCodePoint(CharSequence src, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        char first = src.charAt(i);
+        if (first == '+' || first == '-') {
+            negative = first == '-';
+            i++;
+            if (i == to) {
+                return -1;
+            }
+        }
+        int value = 0;
+        for (; i < to; i++) {
+            int digit = Character.digit(src.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 16 + digit;
+            if (value > Character.MAX_CODE_POINT) {
+                return -1;
+            }
+        }
+        if (negative && value != 0) {
+            return -1;
         }
+        return value;
+    }
 
-        return Pair.of(true, out.toString());
+    private static int copy(CharSequence src, int from, int to, char[] dst, int dp) {
+        for (int i = from; i < to; i++) {
+            dst[dp++] = src.charAt(i);
+        }
+        return dp;
     }
 
     /**
@@ -94,33 +146,65 @@ public class FastEscapeHandler {
      */
     public static String escapeForCheck(String input, CharsetEncoder encoder) {
         if (input == null) return null;
-        
         StringBuilder sb = new StringBuilder(input.length() + 16);
-        
-        for (int i = 0; i < input.length(); ) {
-            int cp = input.codePointAt(i);
-            int charCount = Character.charCount(cp);
-            
-            // 截取当前这一个字（可能是单字符，也可能是双字符的 Emoji/生僻字）
-            CharSequence currentChar = input.subSequence(i, i + charCount);
+        escape(input, 0, input.length(), encoder, sb);
+        return sb.toString();
+    }
+
+    /**
+     * 【流式】把 src[from, to) 按 escapeForCheck 的规则追加到调用方提供的 out (可复用的 StringBuilder)
+     * 认识的字保留，不认识的字变成 \HEX\ (Hex 码就地生成，不经过 String.format)
+     * @return 生成了转义序列的字符个数，0 表示输出与输入一致
+     */
+    public static int escape(CharSequence src, int from, int to, CharsetEncoder encoder, StringBuilder out) {
+        int escaped = 0;
+        for (int i = from; i < to; ) {
+            char c = src.charAt(i);
+            int cp = c;
+            int charCount = 1;
+            boolean canEncode;
+            if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(src.charAt(i + 1))) {
+                // 双字符的 Emoji/生僻字 (代理对，较少见)
+                cp = Character.toCodePoint(c, src.charAt(i + 1));
+                charCount = 2;
+                canEncode = encoder.canEncode(src.subSequence(i, i + 2));
+            } else {
+                canEncode = encoder.canEncode(c);
+            }
 
             // 核心判断：IBM1388 能不能直接存这个字？
-            if (encoder.canEncode(currentChar)) {
+            if (canEncode) {
                 // 能存：比如 "张"，直接保留
-                sb.append(currentChar);
+                out.append(c);
+                if (charCount == 2) {
+                    out.append(src.charAt(i + 1));
+                }
+            } else if (cp == '\\') {
+                // 特殊处理：如果字符本身就是 '\' (Backslash)
+                out.append('\\').append('\\');
+                escaped++;
             } else {
                 // 不能存：比如 "𬱖" -> 生成转义序列 \2CC56\
-                // 注意：如果字符本身是 '\'，也在这里被处理成 "\\" (因为 canEncode('\\') 是 true，这行逻辑要在下面细分)
-                
-                // 特殊处理：如果字符本身就是 '\' (Backslash)
-                if (cp == '\\') {
-                    sb.append("\\\\"); 
-                } else {
-                    sb.append('\\').append(String.format("%X", cp)).append('\\');
-                }
+                out.append('\\');
+                appendHex(cp, out);
+                out.append('\\');
+                escaped++;
             }
             i += charCount;
         }
-        return sb.toString();
+        return escaped;
+    }
+
+    /**
+     * 大写 Hex，无前导 0 (与 String.format("%X") 一致)
+     */
+    private static void appendHex(int value, StringBuilder out) {
+        int shift = 28;
+        while (shift > 0 && ((value >>> shift) & 0xF) == 0) {
+            shift -= 4;
+        }
+        for (; shift >= 0; shift -= 4) {
+            out.append(HEX_DIGITS[(value >>> shift) & 0xF]);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package com.example.moveprog.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Checksum;
+
+/**
+ * 内存映射的文件输入流
+ * 按段 (segmentSize) 映射文件，读完一段再映射下一段，字节直接从页缓存读取，不经过内核到堆的 read 拷贝。
+ * MappedFileReader 直接把映射段交给解码器，连这一次拷贝也省掉。
+ * 映射段的释放依赖 GC，段不宜过大 (默认 64MB)。
+ */
+public class MappedFileInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int segmentSize;
+    private MappedByteBuffer segment;
+    private long segmentStart;     // 当前段在文件中的起点
+    private Checksum checksum;     // 读过的字节的校验和 (可选)
+    private long checksummedUpTo;  // 已计入校验和的文件位置
+
+    /**
+     * 第一段在构造时就映射，映射失败 (文件系统不支持) 直接抛异常，调用方可以退回流式读取
+     * @param startOffset 开始读取的字节偏移量
+     * @param segmentSize 每段映射的字节数
+     */
+    public MappedFileInputStream(Path path, long startOffset, int segmentSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.fileSize = channel.size();
+            this.segmentSize = segmentSize;
+            this.segmentStart = startOffset;
+            this.checksummedUpTo = startOffset;
+            if (startOffset < fileSize) {
+                map(startOffset, segmentSize);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 计算读过的字节的校验和 (开始位置之前的字节不计入)，需要在读取之前设置
+     */
+    public void setChecksum(Checksum checksum) {
+        this.checksum = checksum;
+        if (checksum != null && segment != null) {
+            checksum.update(segment.duplicate());
+            checksummedUpTo = segmentStart + segment.limit();
+        }
+    }
+
+    /**
+     * 当前段 (还有未读字节)，当前段读完时映射下一段
+     * @return 文件读完返回 null
+     */
+    ByteBuffer current() throws IOException {
+        if (segment != null && segment.hasRemaining()) {
+            return segment;
+        }
+        long next = segment == null ? segmentStart : segmentStart + segment.limit();
+        if (next >= fileSize) {
+            return null;
+        }
+        map(next, segmentSize);
+        return segment;
+    }
+
+    /**
+     * 当前段剩下的字节不够解码一个字符，从剩余字节处重新映射 (剩余字节放到新段开头)
+     * @return 后面没有更多字节时返回 null (当前段保持不变)
+     */
+    ByteBuffer remap() throws IOException {
+        if (segment == null || segmentStart + segment.limit() >= fileSize) {
+            return null;
+        }
+        // 新段至少比剩余字节多，保证每次重新映射都有进展
+        int rest = segment.remaining();
+        map(segmentStart + segment.position(), Math.max(segmentSize, rest + 16));
+        return segment;
+    }
+
+    private void map(long position, int minLength) throws IOException {
+        long length = Math.min(minLength, fileSize - position);
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        segmentStart = position;
+        long end = position + length;
+        if (checksum != null && end > checksummedUpTo) {
+            ByteBuffer unchecked = segment.duplicate();
+            unchecked.position((int) (checksummedUpTo - position));
+            checksum.update(unchecked);
+            checksummedUpTo = end;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer bytes = current();
+        if (bytes == null) {
+            return -1;
+        }
+        return bytes.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuffer bytes = current();
+        if (bytes == null) {
+            return -1;
+        }
+        int n = Math.min(len, bytes.remaining());
+        bytes.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        long position = segment == null ? segmentStart : segmentStart + segment.position();
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, fileSize - position));
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.moveprog.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * 内存映射文件的字符读取：解码器直接读映射段，字节不拷贝到堆内缓冲区
+ * 多字节字符 (或 SO/SI 状态切换) 跨段时，从剩余字节处重新映射，解码器状态保持不变
+ */
+public class MappedFileReader extends Reader {
+
+    private static final ByteBuffer NO_BYTES = ByteBuffer.allocate(0);
+
+    private final MappedFileInputStream source;
+    private final CharsetDecoder decoder;
+    private final CharBuffer chars;
+    private ByteBuffer bytes;
+    private boolean eof = false;
+
+    /**
+     * @param bufferSize 解码输出的字符缓冲大小
+     */
+    public MappedFileReader(MappedFileInputStream source, CharsetDecoder decoder, int bufferSize) {
+        this.source = source;
+        this.decoder = decoder;
+        this.chars = CharBuffer.allocate(Math.max(bufferSize, 1024));
+        this.chars.flip();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (!chars.hasRemaining()) {
+            if (eof) {
+                return -1;
+            }
+            fill();
+        }
+        int n = Math.min(len, chars.remaining());
+        chars.get(cbuf, off, n);
+        return n;
+    }
+
+    private void fill() throws IOException {
+        chars.clear();
+        try {
+            while (chars.position() == 0 && !eof) {
+                if (bytes == null || !bytes.hasRemaining()) {
+                    bytes = source.current();
+                }
+                if (bytes == null) {
+                    // 文件读完
+                    finish(NO_BYTES);
+                    break;
+                }
+                CoderResult result = decoder.decode(bytes, chars, false);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                if (result.isUnderflow() && bytes.hasRemaining()) {
+                    // 段尾不足一个字符，从剩余字节处重新映射
+                    ByteBuffer next = source.remap();
+                    if (next == null) {
+                        // 文件结尾的残缺字节
+                        finish(bytes);
+                        break;
+                    }
+                    bytes = next;
+                }
+            }
+        } finally {
+            chars.flip();
+        }
+    }
+
+    private void finish(ByteBuffer rest) throws IOException {
+        CoderResult result = decoder.decode(rest, chars, true);
+        if (result.isError()) {
+            result.throwException();
+        }
+        decoder.flush(chars);
+        eof = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -7,6 +7,8 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 输出目录管理
@@ -74,8 +76,44 @@ public abstract class MigrationOutputDirectorUtil {
      * @return 某个批次产生的文件的根目录：输出目录(对于jobId)\迁移Id
      */
     public static String batchOutDirectory(MigrationJob migrationJob, Long qianyiId) {
-        String outDirectory = migrationJob.getOutDirectory();
-        return Paths.get(outDirectory, qianyiId.toString()).toString();
+        return batchOutDirectory(migrationJob.getOutDirectory(), qianyiId);
+    }
+
+    /**
+     * 某个输出根目录下的批次目录
+     * @param outputRoot 输出根目录 (outDirectory 或额外输出目录之一)
+     */
+    public static String batchOutDirectory(String outputRoot, Long qianyiId) {
+        return Paths.get(outputRoot, qianyiId.toString()).toString();
+    }
+
+    /**
+     * 作业的全部输出根目录：outDirectory 在前，额外输出目录 (extraOutDirectories，逗号分隔) 在后，去重
+     */
+    public static List<String> outputRoots(MigrationJob migrationJob) {
+        List<String> roots = new ArrayList<>();
+        roots.add(migrationJob.getOutDirectory());
+        String extra = migrationJob.getExtraOutDirectories();
+        if (extra != null) {
+            for (String root : extra.split(",")) {
+                String trimmed = root.trim();
+                if (!trimmed.isEmpty() && !roots.contains(trimmed)) {
+                    roots.add(trimmed);
+                }
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * 批次在全部输出根目录下的目录 (拆分文件条带化后分散在这些目录里)
+     */
+    public static List<String> batchOutDirectories(MigrationJob migrationJob, Long qianyiId) {
+        List<String> directories = new ArrayList<>();
+        for (String root : outputRoots(migrationJob)) {
+            directories.add(batchOutDirectory(root, qianyiId));
+        }
+        return directories;
     }
 
     /**
@@ -106,7 +144,11 @@ public abstract class MigrationOutputDirectorUtil {
      * @return
      */
     private static String transcodeSplitDirectory(MigrationJob migrationJob, Long qianyiId) {
-        return Paths.get(batchOutDirectory(migrationJob, qianyiId), "output_split").toString();
+        return transcodeSplitDirectory(migrationJob.getOutDirectory(), qianyiId);
+    }
+
+    private static String transcodeSplitDirectory(String outputRoot, Long qianyiId) {
+        return Paths.get(batchOutDirectory(outputRoot, qianyiId), "output_split").toString();
     }
 
     public static Path transcodeSplitResultDirectory(MigrationJob migrationJob, Long qianyiId, Long detailId) {
@@ -129,8 +171,28 @@ public abstract class MigrationOutputDirectorUtil {
         return detailDir.resolve(fileIndex + ".csv").toString();
     }
 
+    /**
+     * 转码时生产文件名
+     * @param compressed 压缩的拆分文件加 .gz 后缀
+     */
+    public static String transcodeSplitFile(MigrationJob migrationJob, Long qianyiId, Long detailId, int fileIndex, boolean compressed) {
+        String splitFile = transcodeSplitFile(migrationJob, qianyiId, detailId, fileIndex);
+        return compressed ? splitFile + SplitFileCompression.GZIP_SUFFIX : splitFile;
+    }
+
+    /**
+     * 条带化时的拆分文件名：目录结构和 outDirectory 下的一样，只是放在指定的输出根目录下
+     * @param outputRoot 输出根目录 (outputRoots 之一)
+     */
+    public static String transcodeSplitFile(String outputRoot, Long qianyiId, Long detailId, int fileIndex, boolean compressed) {
+        Path detailDir = Paths.get(transcodeSplitDirectory(outputRoot, qianyiId), detailId.toString());
+        String splitFile = detailDir.resolve(fileIndex + ".csv").toString();
+        return compressed ? splitFile + SplitFileCompression.GZIP_SUFFIX : splitFile;
+    }
+
     /**
      * 如果有patch文件，返回patch文件全路径名，否则返回拆分文件全路径名
+     * (拆分记录保存的是全路径，补丁文件和拆分文件放在一起，条带化到哪个磁盘都一样)
      * @param split
      * @return
      */
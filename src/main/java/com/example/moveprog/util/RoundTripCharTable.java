@@ -0,0 +1,118 @@
+package com.example.moveprog.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 回转安全字符表 (BMP 位图)
+ *
+ * 一个字符"回转安全"指：用源字符集严格编码成功，再严格解码回来仍是它本身。
+ * 单元格里的字符全部回转安全时，整串 getBytes/new String 回转以及 tunneling 模式的 escapeForCheck
+ * 结果都必然等于原串，稳定性检测可以直接通过，不用再做编码/解码。
+ * 只要碰到一个不安全的字符 (含代理对)，调用方退回原来的完整检测。
+ */
+@Slf4j
+public class RoundTripCharTable {
+
+    private static final byte SHIFT_OUT = 0x0E;
+    private static final byte SHIFT_IN = 0x0F;
+
+    private static final Map<Charset, RoundTripCharTable> CACHE = new ConcurrentHashMap<>();
+
+    private final long[] safe = new long[65536 / 64];
+
+    private RoundTripCharTable() {
+    }
+
+    /**
+     * 获取字符集的回转安全表 (每个字符集只计算一次)
+     */
+    public static RoundTripCharTable forCharset(Charset charset) {
+        RoundTripCharTable table = CACHE.get(charset);
+        if (table != null) {
+            return table;
+        }
+        return CACHE.computeIfAbsent(charset, RoundTripCharTable::build);
+    }
+
+    private static RoundTripCharTable build(Charset charset) {
+        long start = System.currentTimeMillis();
+        RoundTripCharTable table = new RoundTripCharTable();
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        boolean shiftStateful = SourceRecordScanner.isShiftStateful(charset);
+        int count = 0;
+        char[] one = new char[1];
+        for (int c = 0; c < 65536; c++) {
+            if (Character.isSurrogate((char) c)) {
+                continue;
+            }
+            one[0] = (char) c;
+            try {
+                encoder.reset();
+                ByteBuffer bytes = encoder.encode(CharBuffer.wrap(one));
+                if (shiftStateful && !isWellShifted(bytes)) {
+                    continue;
+                }
+                decoder.reset();
+                CharBuffer back = decoder.decode(bytes);
+                if (back.remaining() == 1 && back.get(0) == c) {
+                    table.safe[c >>> 6] |= 1L << c;
+                    count++;
+                }
+            } catch (CharacterCodingException e) {
+                // 不可编码或不可解码，不安全
+            }
+        }
+        log.info("回转安全字符表就绪, 字符集: {}, 安全字符数: {}, 耗时: {}ms", charset.name(), count, System.currentTimeMillis() - start);
+        return table;
+    }
+
+    /**
+     * SO/SI 编码下，单个字符只接受 [b] 或 [SO, b1, b2, SI] 两种形式，
+     * 且 b 不能是 SO/SI 本身 (否则拼进字符串后会改变后续字节的状态)
+     */
+    private static boolean isWellShifted(ByteBuffer bytes) {
+        int n = bytes.remaining();
+        if (n == 1) {
+            byte b = bytes.get(0);
+            return b != SHIFT_OUT && b != SHIFT_IN;
+        }
+        if (n == 4) {
+            return bytes.get(0) == SHIFT_OUT && bytes.get(3) == SHIFT_IN
+                    && bytes.get(1) != SHIFT_OUT && bytes.get(1) != SHIFT_IN
+                    && bytes.get(2) != SHIFT_OUT && bytes.get(2) != SHIFT_IN;
+        }
+        return false;
+    }
+
+    public boolean isSafe(char c) {
+        return (safe[c >>> 6] & (1L << c)) != 0;
+    }
+
+    /**
+     * 字符串中的字符是否全部回转安全 (纯查表，不分配内存)
+     */
+    public boolean isSafe(String s) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if ((safe[c >>> 6] & (1L << c)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.moveprog.util;
+
+import com.example.moveprog.config.AppProperties;
+import com.univocity.parsers.csv.CsvFormat;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 源文件 CSV 格式工具
+ * 从文件中间 (某个字节偏移量) 开始解析时，不能再做自动探测，必须使用文件头部探测出来的格式。
+ * 转码时探测一次并保存到明细上 (encode)，校验时直接还原 (decode)，保证双方看到的格式一致。
+ */
+public class SourceCsvFormatUtil {
+
+    /**
+     * 探测用的文件头部字节数 (解析器只看前面若干行，和分块大小无关)
+     */
+    public static final int DETECT_SAMPLE_BYTES = 1024 * 1024;
+
+    /**
+     * 用文件头部 DETECT_SAMPLE_BYTES 个字节探测格式
+     * @return 探测到的格式；没开启任何探测时返回配置的格式
+     */
+    public static CsvFormat detectFormat(Path sourcePath, Charset charset, AppProperties.CsvDetailConfig sourceConfig) throws IOException {
+        if (!sourceConfig.isDetectLineSeparator() && !sourceConfig.isDetectDelimiter() && !sourceConfig.isDetectQuote()) {
+            return sourceConfig.toParserSettings().getFormat().clone();
+        }
+        byte[] head;
+        try (InputStream in = Files.newInputStream(sourcePath)) {
+            head = in.readNBytes(DETECT_SAMPLE_BYTES);
+        }
+        CsvParserSettings settings = sourceConfig.toParserSettings();
+        CsvParser parser = new CsvParser(settings);
+        parser.beginParsing(new InputStreamReader(new ByteArrayInputStream(head), CharsetFactory.createDecoder(charset, false)));
+        CsvFormat detected = parser.getDetectedFormat();
+        parser.stopParsing();
+        return (detected != null ? detected : settings.getFormat()).clone();
+    }
+
+    /**
+     * 格式编码成保存到明细上的字符串：分隔符、引号、引号转义各一个字符，后面是换行符
+     * @return 分隔符不是单个字符时为 null (不保存，校验时重新探测)
+     */
+    public static String encode(CsvFormat format) {
+        String delimiter = format.getDelimiterString();
+        if (delimiter == null || delimiter.length() != 1) {
+            return null;
+        }
+        return delimiter + format.getQuote() + format.getQuoteEscape() + format.getLineSeparatorString();
+    }
+
+    /**
+     * 还原 encode 保存的格式，其它项 (注释符等) 用配置
+     * @return 保存的格式为空或无法识别时为 null
+     */
+    public static CsvFormat decode(AppProperties.CsvDetailConfig sourceConfig, String encoded) {
+        if (encoded == null || encoded.length() < 4 || encoded.length() > 5) {
+            return null;
+        }
+        CsvFormat format = sourceConfig.toParserSettings().getFormat().clone();
+        format.setDelimiter(encoded.charAt(0));
+        format.setQuote(encoded.charAt(1));
+        format.setQuoteEscape(encoded.charAt(2));
+        format.setLineSeparator(encoded.substring(3));
+        return format;
+    }
+
+    /**
+     * 固定格式的解析配置：关闭自动探测
+     * @param fromFileStart 是否从文件开头解析，跳行和表头只在文件开头生效
+     */
+    public static CsvParserSettings fixedFormatSettings(AppProperties.CsvDetailConfig sourceConfig, CsvFormat format, boolean fromFileStart) {
+        CsvParserSettings settings = sourceConfig.toParserSettings();
+        settings.setLineSeparatorDetectionEnabled(false);
+        settings.setDelimiterDetectionEnabled(false);
+        settings.setQuoteDetectionEnabled(false);
+        settings.setFormat(format.clone());
+        if (!fromFileStart) {
+            settings.setNumberOfRowsToSkip(0);
+            settings.setHeaderExtractionEnabled(false);
+        }
+        return settings;
+    }
+}
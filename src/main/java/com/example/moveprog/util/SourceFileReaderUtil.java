@@ -0,0 +1,99 @@
+package com.example.moveprog.util;
+
+import com.example.moveprog.config.AppProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
+
+/**
+ * 源文件读取：优先内存映射 (MappedFileInputStream/MappedFileReader)，
+ * 关闭映射、空文件、慢文件系统 (网络文件系统缺页代价高) 或映射失败时退回流式读取
+ */
+@Slf4j
+public abstract class SourceFileReaderUtil {
+
+    /**
+     * @return 内存映射的段大小，0 表示不映射
+     */
+    public static int mmapSegmentSize(Path path, AppProperties.Performance performance) {
+        if (!performance.isSourceMmapEnabled()) {
+            return 0;
+        }
+        try {
+            if (Files.size(path) == 0) {
+                return 0;
+            }
+            String type = Files.getFileStore(path).type();
+            if (type != null && performance.getSourceMmapExcludedFileStores().stream().anyMatch(type::equalsIgnoreCase)) {
+                log.info("源文件在 {} 文件系统上，不使用内存映射: {}", type, path);
+                return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        return performance.getSourceMmapSegmentSize();
+    }
+
+    /**
+     * 打开源文件字节流
+     * @param startOffset 开始读取的字节偏移量
+     * @param mmapSegmentSize 内存映射的段大小，0 表示流式读取
+     * @param checksum 不为 null 时计算读过的字节的校验和
+     */
+    public static InputStream openInputStream(Path path, long startOffset, int mmapSegmentSize, Checksum checksum) throws IOException {
+        if (mmapSegmentSize > 0) {
+            MappedFileInputStream mapped = openMapped(path, startOffset, mmapSegmentSize);
+            if (mapped != null) {
+                mapped.setChecksum(checksum);
+                return mapped;
+            }
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        if (startOffset > 0) {
+            channel.position(startOffset);
+        }
+        InputStream in = Channels.newInputStream(channel);
+        return checksum == null ? in : new CheckedInputStream(in, checksum);
+    }
+
+    /**
+     * 打开源文件字符流 (从文件开头)
+     * @param bufferSize 流式读取时的字节缓冲大小 / 映射读取时的字符缓冲大小
+     */
+    public static Reader openReader(Path path, CharsetDecoder decoder, int mmapSegmentSize, int bufferSize, Checksum checksum) throws IOException {
+        return openReader(path, 0L, decoder, mmapSegmentSize, bufferSize, checksum);
+    }
+
+    public static Reader openReader(Path path, long startOffset, CharsetDecoder decoder, int mmapSegmentSize, int bufferSize, Checksum checksum) throws IOException {
+        if (mmapSegmentSize > 0) {
+            MappedFileInputStream mapped = openMapped(path, startOffset, mmapSegmentSize);
+            if (mapped != null) {
+                mapped.setChecksum(checksum);
+                return new MappedFileReader(mapped, decoder, bufferSize);
+            }
+        }
+        InputStream in = openInputStream(path, startOffset, 0, checksum);
+        return new InputStreamReader(new BufferedInputStream(in, bufferSize), decoder);
+    }
+
+    private static MappedFileInputStream openMapped(Path path, long startOffset, int mmapSegmentSize) {
+        try {
+            return new MappedFileInputStream(path, startOffset, mmapSegmentSize);
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("内存映射失败，退回流式读取: {}", path, e);
+            return null;
+        }
+    }
+}
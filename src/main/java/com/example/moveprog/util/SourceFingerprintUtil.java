@@ -0,0 +1,56 @@
+package com.example.moveprog.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * 源文件指纹 (CRC32C)
+ * 转码时边读边算，重试转码时源文件和转码配置都没变，就直接复用已有的拆分文件
+ */
+public abstract class SourceFingerprintUtil {
+
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 整个文件的 CRC32C (CRC32C 有硬件指令加速，读盘速度就是上限)
+     */
+    public static long crc32c(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        update(crc, path, Long.MAX_VALUE);
+        return crc.getValue();
+    }
+
+    /**
+     * 用文件开头 length 个字节更新校验和
+     */
+    public static void update(CRC32C crc, Path path, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            long remaining = length;
+            while (remaining > 0) {
+                buffer.clear();
+                if (remaining < buffer.capacity()) {
+                    buffer.limit((int) remaining);
+                }
+                int n = channel.read(buffer);
+                if (n < 0) {
+                    break;
+                }
+                buffer.flip();
+                crc.update(buffer);
+                remaining -= n;
+            }
+        }
+    }
+
+    public static long crc32c(String text) {
+        CRC32C crc = new CRC32C();
+        crc.update(text.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.moveprog.util;
+
+import com.univocity.parsers.csv.CsvFormat;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+/**
+ * 源文件字节级记录边界扫描器
+ * 在不解码的前提下，直接在原始字节上找出"安全的记录边界"(可以从这里开始独立解析的位置)。
+ *
+ * 安全边界的条件:
+ * 1. 换行字节之后
+ * 2. 不在引号包裹的字段内部 (引号内的换行属于字段内容)
+ * 3. 处于单字节(SBCS)状态 (IBM1388 这类 EBCDIC 混合编码用 SO/SI 切换双字节状态)
+ *
+ * 同时统计换行字节的个数，它和 Univocity context.currentLine() 的计数口径一致
+ * (引号内的换行也计数)，用于把分块解析出来的相对行号还原为源文件的绝对行号。
+ *
+ * 注意: 本类有状态，同一个文件必须按顺序、连续地喂给同一个实例。
+ */
+public class SourceRecordScanner {
+
+    /** EBCDIC Shift-Out: 进入双字节状态 */
+    private static final byte SHIFT_OUT = 0x0E;
+    /** EBCDIC Shift-In: 回到单字节状态 */
+    private static final byte SHIFT_IN = 0x0F;
+
+    // 字段解析状态 (只在单字节状态下流转)
+    private static final int FIELD_START = 0;      // 字段开头 (行首或分隔符之后)
+    private static final int IN_UNQUOTED = 1;      // 非引号字段中
+    private static final int IN_QUOTED = 2;        // 引号字段中
+    private static final int QUOTE_IN_QUOTED = 3;  // 引号字段中遇到引号 (可能是闭合，也可能是 "" 转义)
+    private static final int ESCAPE_IN_QUOTED = 4; // 引号字段中遇到转义符 (转义符与引号不同的场景)
+    private static final int IN_COMMENT = 5;       // 注释行中 (行首是注释符，直到换行)
+
+    private final byte lineFeed;
+    private final byte delimiter;
+    private final byte quote;
+    private final byte quoteEscape;
+    private final byte space;
+    private final byte comment;
+    private final boolean commentEnabled;
+    private final boolean ignoreLeadingWhitespaces;
+    private final boolean shiftStateful;
+
+    private int state = FIELD_START;
+    private boolean doubleByte = false;
+    private boolean lineStart = true;
+    private long lineFeeds = 0;
+    private long lineFeedsAtBoundary = 0;
+
+    public SourceRecordScanner(byte lineFeed, byte delimiter, byte quote, byte quoteEscape, byte space,
+                               Byte comment, boolean ignoreLeadingWhitespaces, boolean shiftStateful) {
+        this.lineFeed = lineFeed;
+        this.delimiter = delimiter;
+        this.quote = quote;
+        this.quoteEscape = quoteEscape;
+        this.space = space;
+        this.commentEnabled = comment != null;
+        this.comment = comment == null ? 0 : comment;
+        this.ignoreLeadingWhitespaces = ignoreLeadingWhitespaces;
+        this.shiftStateful = shiftStateful;
+    }
+
+    /**
+     * 根据字符集和 (探测后的) CSV 格式创建扫描器
+     * @return 如果换行/分隔符/引号在该字符集下不是单字节，无法做字节级扫描，返回 null
+     */
+    public static SourceRecordScanner forFormat(Charset charset, CsvFormat format, boolean ignoreLeadingWhitespaces) {
+        String lineSeparator = format.getLineSeparatorString();
+        if (lineSeparator == null || lineSeparator.isEmpty()) {
+            return null;
+        }
+        CharsetEncoder encoder = charset.newEncoder();
+        // 行分隔符的最后一个字符 (\r\n 的 \n)
+        Integer lf = singleByte(encoder, lineSeparator.charAt(lineSeparator.length() - 1));
+        Integer delim = singleByte(encoder, format.getDelimiter());
+        Integer q = singleByte(encoder, format.getQuote());
+        Integer qe = singleByte(encoder, format.getQuoteEscape());
+        Integer sp = singleByte(encoder, ' ');
+        if (lf == null || delim == null || q == null || qe == null || sp == null) {
+            return null;
+        }
+        // 注释符为 '\0' 表示不启用注释
+        Byte cm = null;
+        if (format.getComment() != '\0') {
+            Integer c = singleByte(encoder, format.getComment());
+            if (c == null) {
+                return null;
+            }
+            cm = c.byteValue();
+        }
+        return new SourceRecordScanner(lf.byteValue(), delim.byteValue(), q.byteValue(), qe.byteValue(), sp.byteValue(),
+                cm, ignoreLeadingWhitespaces, isShiftStateful(charset));
+    }
+
+    /**
+     * 是否是 SO/SI 切换的有状态编码 (IBM1388/IBM935 等 EBCDIC 混合编码)
+     */
+    public static boolean isShiftStateful(Charset charset) {
+        try {
+            ByteBuffer encoded = charset.newEncoder().encode(CharBuffer.wrap("中"));
+            return encoded.remaining() > 0 && encoded.get(0) == SHIFT_OUT;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static Integer singleByte(CharsetEncoder encoder, char c) {
+        try {
+            encoder.reset();
+            ByteBuffer encoded = encoder.encode(CharBuffer.wrap(new char[]{c}));
+            if (encoded.remaining() != 1) {
+                return null;
+            }
+            return (int) encoded.get(0);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 扫描 [from, to) 区间的字节
+     * @return 区间内最后一个安全边界的位置 (边界字节之后的下标)，没有则返回 -1
+     */
+    public int scan(byte[] buf, int from, int to) {
+        int lastBoundary = -1;
+        for (int i = from; i < to; i++) {
+            byte b = buf[i];
+
+            boolean atLineStart = lineStart;
+            lineStart = false;
+
+            if (shiftStateful) {
+                if (b == SHIFT_OUT) {
+                    doubleByte = true;
+                    // 双字节字符出现在字段开头或闭合引号之后，该字段按非引号字段处理
+                    if (state == FIELD_START || state == QUOTE_IN_QUOTED) {
+                        state = IN_UNQUOTED;
+                    } else if (state == ESCAPE_IN_QUOTED) {
+                        state = IN_QUOTED;
+                    }
+                    continue;
+                }
+                if (b == SHIFT_IN) {
+                    doubleByte = false;
+                    continue;
+                }
+                if (doubleByte) {
+                    // 双字节区间内的字节不可能是换行/引号/分隔符
+                    continue;
+                }
+            }
+
+            if (b == lineFeed) {
+                lineFeeds++;
+            }
+
+            switch (state) {
+                case FIELD_START:
+                    if (atLineStart && commentEnabled && b == comment) {
+                        state = IN_COMMENT;
+                    } else if (b == quote) {
+                        state = IN_QUOTED;
+                    } else if (b == lineFeed) {
+                        lastBoundary = markBoundary(i);
+                    } else if (b == delimiter) {
+                        // 空字段，保持在字段开头
+                    } else if (b == space && ignoreLeadingWhitespaces) {
+                        // 忽略前导空格，引号仍可能出现
+                    } else {
+                        state = IN_UNQUOTED;
+                    }
+                    break;
+                case IN_UNQUOTED:
+                    if (b == delimiter) {
+                        state = FIELD_START;
+                    } else if (b == lineFeed) {
+                        state = FIELD_START;
+                        lastBoundary = markBoundary(i);
+                    }
+                    break;
+                case IN_QUOTED:
+                    if (b == quoteEscape && quoteEscape != quote) {
+                        state = ESCAPE_IN_QUOTED;
+                    } else if (b == quote) {
+                        state = QUOTE_IN_QUOTED;
+                    }
+                    break;
+                case ESCAPE_IN_QUOTED:
+                    state = IN_QUOTED;
+                    break;
+                case QUOTE_IN_QUOTED:
+                    if (b == quote && quoteEscape == quote) {
+                        // "" -> 转义的引号，仍在字段内
+                        state = IN_QUOTED;
+                    } else if (b == delimiter) {
+                        state = FIELD_START;
+                    } else if (b == lineFeed) {
+                        state = FIELD_START;
+                        lastBoundary = markBoundary(i);
+                    } else {
+                        // 闭合引号后的尾随字符 (如空格)
+                        state = IN_UNQUOTED;
+                    }
+                    break;
+                case IN_COMMENT:
+                    if (b == lineFeed) {
+                        state = FIELD_START;
+                        lastBoundary = markBoundary(i);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return lastBoundary;
+    }
+
+    /**
+     * 在 [from, to) 区间中找第 count 个换行字节之后的位置 (换行的计数口径与 scan 一致)
+     * 不改变扫描器状态，from 必须处于单字节状态 (比如分块的开头)
+     * @return 找不到返回 -1
+     */
+    public int positionAfterLineFeeds(byte[] buf, int from, int to, long count) {
+        boolean dbcs = false;
+        long seen = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buf[i];
+            if (shiftStateful) {
+                if (b == SHIFT_OUT) {
+                    dbcs = true;
+                    continue;
+                }
+                if (b == SHIFT_IN) {
+                    dbcs = false;
+                    continue;
+                }
+                if (dbcs) {
+                    continue;
+                }
+            }
+            if (b == lineFeed && ++seen == count) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private int markBoundary(int i) {
+        lineFeedsAtBoundary = lineFeeds;
+        lineStart = true;
+        return i + 1;
+    }
+
+    /**
+     * 已扫描的换行字节总数
+     */
+    public long getLineFeeds() {
+        return lineFeeds;
+    }
+
+    /**
+     * 截止到最近一个安全边界的换行字节数
+     */
+    public long getLineFeedsAtBoundary() {
+        return lineFeedsAtBoundary;
+    }
+}
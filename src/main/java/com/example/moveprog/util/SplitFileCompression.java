@@ -0,0 +1,59 @@
+package com.example.moveprog.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 拆分文件压缩 (gzip)
+ * 压缩的拆分文件名以 .gz 结尾，读取方按文件名透明解压；补丁文件 (.patch) 总是明文
+ */
+public abstract class SplitFileCompression {
+
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    public static boolean isCompressed(String path) {
+        return path != null && path.endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * 打开拆分文件读取，压缩文件返回解压后的流
+     */
+    public static InputStream openInput(Path path) throws IOException {
+        InputStream in = Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ));
+        if (!isCompressed(path.toString())) {
+            return in;
+        }
+        try {
+            return new GZIPInputStream(in, STREAM_BUFFER_SIZE);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 打开拆分文件写入，文件名以 .gz 结尾时按 level 压缩
+     * @param level 压缩级别 (1 最快 ~ 9 最小)
+     */
+    public static OutputStream openOutput(Path path, int level) throws IOException {
+        OutputStream out = Files.newOutputStream(path);
+        if (!isCompressed(path.toString())) {
+            return out;
+        }
+        return new GZIPOutputStream(out, STREAM_BUFFER_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.moveprog.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 单生产者/单消费者 有界无锁环形队列
+ * 队列满时生产者等待 (背压)，队列空时消费者等待；等待期间不断检查中止条件，
+ * 流水线任一环节失败或被叫停时，另一端不会永远阻塞。
+ *
+ * 只能有一个线程 put/close，一个线程 take。
+ */
+public class SpscRingBuffer<T> {
+
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    private final Object[] items;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // 下一个读取位置 (只由消费者推进)
+    private final AtomicLong tail = new AtomicLong(); // 下一个写入位置 (只由生产者推进)
+    private volatile boolean closed = false;          // 生产者已结束，不会再有新元素
+
+    public SpscRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("队列容量必须大于 0: " + capacity);
+        }
+        // 向上取 2 的幂，下标用位与代替取模
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.items = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 非阻塞写入
+     * @return 队列已满返回 false
+     */
+    public boolean offer(T item) {
+        long t = tail.get();
+        if (t - head.get() >= items.length) {
+            return false;
+        }
+        items[(int) t & mask] = item;
+        tail.lazySet(t + 1); // release: 元素先于下标对消费者可见
+        return true;
+    }
+
+    /**
+     * 非阻塞读取
+     * @return 队列为空返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        int index = (int) h & mask;
+        T item = (T) items[index];
+        items[index] = null;
+        head.lazySet(h + 1);
+        return item;
+    }
+
+    /**
+     * 阻塞写入 (背压)
+     * @return 被中止时返回 false，元素没有写入
+     */
+    public boolean put(T item, BooleanSupplier aborted) {
+        int tries = 0;
+        while (!offer(item)) {
+            if (aborted.getAsBoolean()) {
+                return false;
+            }
+            tries = backoff(tries);
+        }
+        return true;
+    }
+
+    /**
+     * 阻塞读取
+     * @return 生产者已结束且队列读空，或被中止时返回 null
+     */
+    public T take(BooleanSupplier aborted) {
+        int tries = 0;
+        while (true) {
+            T item = poll();
+            if (item != null) {
+                return item;
+            }
+            if (closed) {
+                // close 之前写入的元素对这里可见，再取一次防止漏掉
+                return poll();
+            }
+            if (aborted.getAsBoolean()) {
+                return null;
+            }
+            tries = backoff(tries);
+        }
+    }
+
+    /**
+     * 生产者结束
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    private static int backoff(int tries) {
+        if (tries < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return tries + 1;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.moveprog.service;
+
+import com.example.moveprog.exception.JobStoppedException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobControlManagerTest {
+
+    @Test
+    @DisplayName("磁盘背压等待中被中断：抛出 JobStoppedException 并保留中断标志，不能继续转码")
+    void awaitTranscodeResume_interrupted() {
+        JobControlManager manager = new JobControlManager();
+        manager.setTranscodePaused(true);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(JobStoppedException.class, () -> manager.awaitTranscodeResume(1L));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    @DisplayName("磁盘背压等待中作业被停止：抛出 JobStoppedException")
+    void awaitTranscodeResume_stopped() {
+        JobControlManager manager = new JobControlManager();
+        manager.setTranscodePaused(true);
+        manager.stopJob(1L);
+
+        assertThrows(JobStoppedException.class, () -> manager.awaitTranscodeResume(1L));
+    }
+
+    @Test
+    @DisplayName("没有背压时直接返回")
+    void awaitTranscodeResume_notPaused() {
+        JobControlManager manager = new JobControlManager();
+        manager.stopJob(1L);
+
+        assertDoesNotThrow(() -> manager.awaitTranscodeResume(1L));
+    }
+}
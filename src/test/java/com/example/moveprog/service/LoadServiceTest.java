@@ -0,0 +1,171 @@
+package com.example.moveprog.service;
+
+import com.example.moveprog.config.AppProperties;
+import com.example.moveprog.entity.CsvSplit;
+import com.example.moveprog.entity.Qianyi;
+import com.example.moveprog.enums.CsvSplitStatus;
+import com.example.moveprog.exception.JobStoppedException;
+import com.example.moveprog.repository.CsvSplitRepository;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoadServiceTest {
+    private static final long SPLIT_ID = 7L;
+    private static final long JOB_ID = 1L;
+    private static final int ROWS = 3000;
+
+    @Mock private StateManager stateManager;
+    @Mock private CsvSplitRepository splitRepo;
+    @Mock private JobControlManager jobControlManager;
+    @Mock private TargetDatabaseConnectionManager targetDatabaseConnectionManager;
+    @Mock private JdbcHelper jdbcHelper;
+    @Mock private MetaEntityCache metaCache;
+    @Mock private TableSchemaRegistry schemaRegistry;
+    @Mock private MigrationArtifactManager migrationArtifactManager;
+    @Spy private AppProperties config = new AppProperties();
+
+    @InjectMocks
+    private LoadService loadService;
+
+    @Mock private Connection conn;
+    @Mock private PreparedStatement ps;
+
+    @TempDir
+    Path tempDir;
+
+    private Path splitFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 双缓冲 + addBatch，一次装载 30 批
+        AppProperties.LoadJdbc loadJdbc = config.getLoadJdbc();
+        loadJdbc.setPreSqlList(List.of());
+        loadJdbc.setMaxRetries(1);
+        loadJdbc.setBatchSize(100);
+        loadJdbc.setDoubleBuffered(true);
+
+        splitFile = tempDir.resolve("split_7.csv");
+        writeSplit(-1);
+
+        CsvSplit split = new CsvSplit();
+        split.setId(SPLIT_ID);
+        split.setJobId(JOB_ID);
+        split.setQianyiId(2L);
+        split.setDetailId(3L);
+        split.setStatus(CsvSplitStatus.LOADING);
+        split.setSplitFilePath(splitFile.toString());
+
+        Qianyi qianyi = new Qianyi();
+        qianyi.setId(2L);
+        qianyi.setJobId(JOB_ID);
+
+        lenient().when(splitRepo.findById(SPLIT_ID)).thenReturn(Optional.of(split));
+        lenient().when(metaCache.findSplit(SPLIT_ID)).thenReturn(Optional.of(split));
+        lenient().when(metaCache.findQianyi(2L)).thenReturn(Optional.of(qianyi));
+        lenient().when(schemaRegistry.get(qianyi))
+                .thenReturn(new TableSchemaRegistry.Entry("ddl", new long[]{0, 0}, List.of("id", "name")));
+        lenient().when(jdbcHelper.loadJdbcSql(SPLIT_ID)).thenReturn(Pair.of(
+                "INSERT INTO t (id,name,csv_id,source_row_no) VALUES (?,?,?,?)",
+                List.of("id", "name", "csv_id", "source_row_no")));
+        lenient().when(targetDatabaseConnectionManager.getConnection(JOB_ID, false)).thenReturn(conn);
+        lenient().when(conn.prepareStatement(anyString())).thenReturn(ps);
+    }
+
+    @AfterEach
+    void noParseThreadLeft() {
+        // 装载线程返回时解析线程必须已经退出
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(t -> t.getName().startsWith("load-parse-") && t.isAlive()), "解析线程没有退出");
+    }
+
+    @Test
+    @DisplayName("双缓冲：执行批次失败时回滚、不提交，解析线程退出，拆分标记装载失败")
+    void execute_doubleBuffered_executeFailure() throws Exception {
+        when(ps.executeBatch()).thenReturn(new int[0]).thenThrow(new SQLException("模拟执行失败"));
+
+        loadService.execute(SPLIT_ID);
+
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+        verify(ps, times(2)).executeBatch();
+        verify(stateManager).switchSplitStatus(eq(SPLIT_ID), eq(CsvSplitStatus.FAIL_LOAD), contains("模拟执行失败"));
+    }
+
+    @Test
+    @DisplayName("双缓冲：解析线程失败时回滚、不提交，已执行的批次不算成功，拆分标记装载失败")
+    void execute_doubleBuffered_parseFailure() throws Exception {
+        // 第 1500 行多一列
+        writeSplit(1500);
+
+        loadService.execute(SPLIT_ID);
+
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+        verify(stateManager).switchSplitStatus(eq(SPLIT_ID), eq(CsvSplitStatus.FAIL_LOAD), contains("CSV列数不匹配"));
+        verify(stateManager, never()).switchSplitStatus(eq(SPLIT_ID), eq(CsvSplitStatus.WAIT_VERIFY), anyString());
+    }
+
+    @Test
+    @DisplayName("双缓冲：解析线程发现作业停止时回滚、不提交，拆分重置为等待装载")
+    void execute_doubleBuffered_stoppedInParseThread() throws Exception {
+        // 第 1 次是 execute 入口，第 2、3 次是解析到 1000、2000 行
+        doNothing().doNothing().doThrow(new JobStoppedException("作业已停止"))
+                .when(jobControlManager).checkJobState(JOB_ID);
+
+        loadService.execute(SPLIT_ID);
+
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+        verify(stateManager).switchSplitStatus(eq(SPLIT_ID), eq(CsvSplitStatus.WAIT_LOAD), anyString());
+        verify(stateManager, never()).switchSplitStatus(eq(SPLIT_ID), eq(CsvSplitStatus.FAIL_LOAD), anyString());
+    }
+
+    @Test
+    @DisplayName("双缓冲：全部批次执行成功后提交一次")
+    void execute_doubleBuffered_success() throws Exception {
+        loadService.execute(SPLIT_ID);
+
+        verify(ps, times(ROWS / 100)).executeBatch();
+        verify(conn).commit();
+        verify(conn, never()).rollback();
+        verify(stateManager).switchSplitStatus(eq(SPLIT_ID), eq(CsvSplitStatus.WAIT_VERIFY), anyString());
+    }
+
+    /**
+     * 拆分文件: id,name,行号；badRow 行多一列 (-1 表示没有坏行)
+     */
+    private void writeSplit(int badRow) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= ROWS; i++) {
+            sb.append(i).append(",name_").append(i);
+            if (i == badRow) {
+                sb.append(",extra");
+            }
+            sb.append(',').append(i).append('\n');
+        }
+        Files.writeString(splitFile, sb.toString(), StandardCharsets.UTF_8);
+    }
+}
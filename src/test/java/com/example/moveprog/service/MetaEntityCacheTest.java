@@ -0,0 +1,85 @@
+package com.example.moveprog.service;
+
+import com.example.moveprog.config.AppProperties;
+import com.example.moveprog.entity.CsvSplit;
+import com.example.moveprog.enums.CsvSplitStatus;
+import com.example.moveprog.repository.CsvSplitRepository;
+import com.example.moveprog.repository.MigrationJobRepository;
+import com.example.moveprog.repository.QianyiRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetaEntityCacheTest {
+
+    @Mock private MigrationJobRepository jobRepo;
+    @Mock private QianyiRepository qianyiRepo;
+    @Mock private CsvSplitRepository splitRepo;
+
+    private final AppProperties config = new AppProperties();
+    private MetaEntityCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MetaEntityCache(jobRepo, qianyiRepo, splitRepo, config);
+    }
+
+    private CsvSplit split(CsvSplitStatus status) {
+        CsvSplit split = new CsvSplit();
+        split.setId(100L);
+        split.setJobId(1L);
+        split.setQianyiId(2L);
+        split.setSplitFilePath("/out/2/10_1.csv");
+        split.setStatus(status);
+        return split;
+    }
+
+    @Test
+    @DisplayName("命中缓存不再查库，返回的副本不带状态")
+    void findSplit_cachesImmutableAttributes() {
+        when(splitRepo.findById(100L)).thenReturn(Optional.of(split(CsvSplitStatus.LOADING)));
+
+        CsvSplit first = cache.findSplit(100L).orElseThrow();
+        first.setSplitFilePath("/changed");
+        CsvSplit second = cache.findSplit(100L).orElseThrow();
+
+        verify(splitRepo, times(1)).findById(100L);
+        assertEquals("/out/2/10_1.csv", second.getSplitFilePath());
+        assertEquals(2L, second.getQianyiId());
+        assertNull(second.getStatus());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    @DisplayName("状态流转后移除缓存，下次重新查库")
+    void invalidateSplit_reloads() {
+        when(splitRepo.findById(100L)).thenReturn(Optional.of(split(CsvSplitStatus.LOADING)));
+
+        cache.findSplit(100L);
+        cache.invalidateSplit(100L);
+        cache.findSplit(100L);
+
+        verify(splitRepo, times(2)).findById(100L);
+    }
+
+    @Test
+    @DisplayName("有效期为 0 时不缓存，直接返回查库结果")
+    void ttlZero_bypassesCache() {
+        config.getMetaCache().setTtlSeconds(0);
+        when(splitRepo.findById(100L)).thenReturn(Optional.of(split(CsvSplitStatus.LOADING)));
+
+        assertEquals(CsvSplitStatus.LOADING, cache.findSplit(100L).orElseThrow().getStatus());
+        cache.findSplit(100L);
+
+        verify(splitRepo, times(2)).findById(100L);
+    }
+}
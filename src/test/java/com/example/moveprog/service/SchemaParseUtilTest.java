@@ -0,0 +1,52 @@
+package com.example.moveprog.service;
+
+import com.example.moveprog.dto.TableSchema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaParseUtilTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("DDL 文件解析出列类型，列名和 parseColumnNamesFromDdl 一致")
+    void parseTableSchemaFromDdl() throws Exception {
+        Path ddl = tempDir.resolve("t1.sql");
+        Files.writeString(ddl, String.join("\n",
+                "# 注释",
+                "id,int",
+                "salary,decimal(10,2)",
+                "birthday,DATETIME",
+                "`remark` VARCHAR(64) NOT NULL,",
+                "flag,boolean",
+                "nameonly",
+                ""));
+
+        TableSchema schema = SchemaParseUtil.parseTableSchemaFromDdl(ddl.toString());
+        assertEquals(SchemaParseUtil.parseColumnNamesFromDdl(ddl.toString()), schema.getColumnNames());
+
+        TableSchema.Column salary = schema.findColumn("SALARY");
+        assertEquals(Types.DECIMAL, salary.getSqlType());
+        assertEquals(10L, salary.getPrecision());
+        assertEquals(2, salary.getScale());
+
+        assertEquals(Types.INTEGER, schema.findColumn("id").getSqlType());
+        assertEquals(Types.TIMESTAMP, schema.findColumn("birthday").getSqlType());
+
+        TableSchema.Column remark = schema.findColumn("remark");
+        assertEquals(Types.VARCHAR, remark.getSqlType());
+        assertEquals(64L, remark.getPrecision());
+        assertFalse(remark.isNullable());
+
+        assertEquals(Types.OTHER, schema.findColumn("flag").getSqlType());
+        assertEquals(Types.OTHER, schema.findColumn("nameonly").getSqlType());
+    }
+}
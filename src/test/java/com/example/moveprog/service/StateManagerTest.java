@@ -37,6 +37,8 @@ class StateManagerTest {
     private QianyiDetailRepository detailRepo;
     @Mock
     private MigrationJobRepository jobRepo;
+    @Mock
+    private MetaEntityCache metaCache;
 
     @InjectMocks
     private StateManager stateManager;
@@ -82,6 +84,7 @@ class StateManagerTest {
         assertTrue(result);
         assertEquals(CsvSplitStatus.LOADING, testSplit.getStatus());
         verify(splitRepo).save(testSplit);
+        verify(metaCache).invalidateSplit(100L);
     }
 
     @Test
@@ -398,4 +401,33 @@ class StateManagerTest {
         assertEquals(DetailStatus.NEW, testDetail.getStatus()); // 保持不变
         verify(detailRepo, never()).save(any()); // 不应保存
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("测试直装中的拆分: 不能被重置为待装载或被装载领取，只能转入待验证")
+    void testDirectLoadingTransitions() {
+        assertFalse(CsvSplitStatus.DIRECT_LOADING.canTransitionTo(CsvSplitStatus.WAIT_LOAD));
+        assertFalse(CsvSplitStatus.DIRECT_LOADING.canTransitionTo(CsvSplitStatus.LOADING));
+        assertFalse(CsvSplitStatus.DIRECT_LOADING.canTransitionTo(CsvSplitStatus.FAIL_LOAD));
+        assertTrue(CsvSplitStatus.DIRECT_LOADING.canTransitionTo(CsvSplitStatus.WAIT_VERIFY));
+    }
+
+    @Test
+    @DisplayName("测试直装完成: 定向更新行数和结束位置，不回写整个拆分实体")
+    void testCompleteDirectSplit() {
+        when(splitRepo.completeDirectSplit(100L, 500L, 4096L, 8192L, 510L, "直装完成")).thenReturn(1);
+
+        stateManager.completeDirectSplit(100L, 500L, 4096L, 8192L, 510L);
+
+        verify(splitRepo, never()).save(any());
+        verify(metaCache).invalidateSplit(100L);
+    }
+
+    @Test
+    @DisplayName("测试直装完成: 拆分已不在直装中时报错")
+    void testCompleteDirectSplit_NotDirectLoading() {
+        when(splitRepo.completeDirectSplit(100L, 500L, 4096L, null, null, "直装完成")).thenReturn(0);
+
+        assertThrows(RuntimeException.class, () -> stateManager.completeDirectSplit(100L, 500L, 4096L, null, null));
+        verify(metaCache).invalidateSplit(100L);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.moveprog.service;
+
+import com.example.moveprog.entity.Qianyi;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableSchemaRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Qianyi qianyi(Path ddl) {
+        Qianyi qianyi = new Qianyi();
+        qianyi.setId(1L);
+        qianyi.setDdlFilePath(ddl.toString());
+        return qianyi;
+    }
+
+    @Test
+    @DisplayName("DDL 不变时复用缓存 (列名、语句)，DDL 文件变了重新解析")
+    void get_reloadsWhenDdlChanges() throws Exception {
+        Path ddl = tempDir.resolve("t1.sql");
+        Files.writeString(ddl, "id,int\nname,varchar(20)\n");
+        TableSchemaRegistry registry = new TableSchemaRegistry();
+        Qianyi qianyi = qianyi(ddl);
+
+        TableSchemaRegistry.Entry first = registry.get(qianyi);
+        assertEquals(List.of("id", "name"), first.getColumnNames());
+        assertEquals("sql1", first.statement(TableSchemaRegistry.Statement.INSERT, () -> "sql1"));
+        assertSame(first, registry.get(qianyi));
+        assertEquals("sql1", registry.get(qianyi).statement(TableSchemaRegistry.Statement.INSERT, () -> "sql2"));
+
+        Files.writeString(ddl, "id,int\nname,varchar(20)\nremark,varchar(64)\n");
+        Files.setLastModifiedTime(ddl, FileTime.fromMillis(Files.getLastModifiedTime(ddl).toMillis() + 2000));
+
+        TableSchemaRegistry.Entry second = registry.get(qianyi);
+        assertNotSame(first, second);
+        assertEquals(List.of("id", "name", "remark"), second.getColumnNames());
+        assertEquals("sql2", second.statement(TableSchemaRegistry.Statement.INSERT, () -> "sql2"));
+    }
+
+    @Test
+    @DisplayName("结单后移除缓存，目标表结构也一起丢弃")
+    void invalidate() throws Exception {
+        Path ddl = tempDir.resolve("t2.sql");
+        Files.writeString(ddl, "id,int\n");
+        TableSchemaRegistry registry = new TableSchemaRegistry();
+        Qianyi qianyi = qianyi(ddl);
+
+        TableSchemaRegistry.Entry first = registry.get(qianyi);
+        first.setTargetSchema(first.getDdlSchema());
+        assertNotNull(registry.get(qianyi).getTargetSchema());
+
+        registry.invalidate(qianyi.getId());
+        assertNotSame(first, registry.get(qianyi));
+        assertNull(registry.get(qianyi).getTargetSchema());
+    }
+}
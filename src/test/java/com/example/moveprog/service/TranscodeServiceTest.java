@@ -25,10 +25,12 @@ import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.*;
@@ -37,6 +39,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -57,6 +60,8 @@ class TranscodeServiceTest {
     @Mock private JobControlManager jobControlManager;
     @Mock private TargetDatabaseConnectionManager targetDatabaseConnectionManager;
     @Mock private MigrationArtifactManager migrationArtifactManager;
+    @Mock private LoadService loadService;
+    @Spy private TableSchemaRegistry schemaRegistry;
     @Mock private AppProperties config;
 
     @InjectMocks
@@ -994,6 +999,258 @@ class TranscodeServiceTest {
         verify(stateManager, never()).updateDetailStatus(eq(detailId), eq(DetailStatus.FAIL_TRANSCODE));
     }
 
+    @Test
+    @DisplayName("断点续转：源文件和转码配置都没变，保留已完成的拆分继续转码")
+    void testExecute_ResumeUnchanged() throws IOException {
+        testExecute_Resume("none");
+    }
+
+    @Test
+    @DisplayName("断点续转：源文件被更正 (修改时间变了)，清理旧拆分从头转码")
+    void testExecute_ResumeSourceChanged() throws IOException {
+        testExecute_Resume("source");
+    }
+
+    @Test
+    @DisplayName("断点续转：拆分配置变了，清理旧拆分从头转码")
+    void testExecute_ResumeSettingsChanged() throws IOException {
+        testExecute_Resume("settings");
+    }
+
+    /**
+     * 第一次转码完成后，模拟第二个拆分写到一半时中断 (只有第一个拆分完成，指纹是开始转码时记下的)，再按 change 修改后重新转码
+     * @param change none / source / settings
+     */
+    void testExecute_Resume(String change) throws IOException {
+        Long jobId = 100L;
+        Long qianyiId = 10L;
+        Long detailId = 1L;
+
+        Path sourceFile = tempDir.resolve("source_ibm.csv");
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            lines.add(String.join(",", generateRowData(i + 125L)));
+        }
+        writeWithEncoding(sourceFile.toString(), String.join("\n", lines), CHARSET_IBM);
+
+        MigrationJob job = new MigrationJob();
+        job.setId(jobId);
+        job.setOutDirectory(tempDir.resolve("output_home").toString());
+
+        Qianyi qianyi = new Qianyi();
+        qianyi.setId(qianyiId);
+        qianyi.setJobId(jobId);
+        qianyi.setDdlFilePath("schema.sql"); // 假路径
+
+        QianyiDetail detail = new QianyiDetail();
+        detail.setId(detailId);
+        detail.setQianyiId(qianyiId);
+        detail.setJobId(jobId);
+        detail.setSourceCsvPath(sourceFile.toString());
+        detail.setStatus(DetailStatus.TRANSCODING);
+
+        when(detailRepo.findById(detailId)).thenReturn(Optional.of(detail));
+        when(qianyiRepo.findById(qianyiId)).thenReturn(Optional.of(qianyi));
+        when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+
+        mockAppConfig("IBM1388", "\n", 10, 100, false);
+
+        schemaParseUtilMock.when(() -> SchemaParseUtil.parseColumnNamesFromDdl(anyString()))
+                .thenReturn(List.of("id,name,remark,weight,salary,birth,birthday,lunchtime".split(",")));
+
+        // 第一次转码：记下拆分和指纹
+        transcodeService.execute(detailId);
+        ArgumentCaptor<CsvSplit> saved = ArgumentCaptor.forClass(CsvSplit.class);
+        verify(splitRepo, times(3)).save(saved.capture());
+        ArgumentCaptor<Long> size = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> lastModified = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> settingsChecksum = ArgumentCaptor.forClass(Long.class);
+        verify(detailRepo, times(2)).updateSourceFingerprint(eq(detailId), size.capture(), lastModified.capture(),
+                any(), settingsChecksum.capture());
+
+        CsvSplit checkpoint = saved.getAllValues().get(0);
+        checkpoint.setId(1L);
+        assertNotNull(checkpoint.getSourceEndByteOffset());
+        when(splitRepo.findByDetailId(detailId)).thenReturn(List.of(checkpoint));
+        detail.setSourceFileSize(size.getValue());
+        detail.setSourceLastModified(lastModified.getValue());
+        detail.setSourceChecksum(null);
+        detail.setTranscodeSettingsChecksum(settingsChecksum.getValue());
+        detail.setStatus(DetailStatus.TRANSCODING);
+
+        switch (change) {
+            case "source" -> {
+                // 更正一个值，文件大小不变
+                lines.set(3, lines.get(3).replace("张三", "李四"));
+                writeWithEncoding(sourceFile.toString(), String.join("\n", lines), CHARSET_IBM);
+                assertEquals(size.getValue(), Files.size(sourceFile));
+                Files.setLastModifiedTime(sourceFile, FileTime.fromMillis(lastModified.getValue() + 2000));
+            }
+            case "settings" -> config.getPerformance().setSplitRows(20);
+            default -> {
+            }
+        }
+        clearInvocations(splitRepo, detailRepo, migrationArtifactManager);
+
+        transcodeService.execute(detailId);
+
+        ArgumentCaptor<CsvSplit> again = ArgumentCaptor.forClass(CsvSplit.class);
+        verify(splitRepo, atLeastOnce()).save(again.capture());
+        if (change.equals("none")) {
+            verify(splitRepo, never()).deleteByDetailId(detailId);
+            assertEquals(2, again.getAllValues().size());
+            assertEquals(11L, again.getAllValues().get(0).getStartRowNo());
+        } else {
+            verify(migrationArtifactManager).cleanTranscodeArtifacts(detail);
+            verify(splitRepo).deleteByDetailId(detailId);
+            assertEquals(1L, again.getAllValues().get(0).getStartRowNo());
+        }
+        verify(stateManager, times(2)).updateDetailStatus(eq(detailId), eq(DetailStatus.PROCESSING_CHILDS));
+    }
+
+    /**
+     * 分块转码 (含并行) 与流式转码结果一致：拆分内容、拆分起始行号/行数、错误行、行数/错误数、源文件 CRC32C
+     * 分块只有 256 字节，分块边界会落在引号内的多行记录和 SO/SI 双字节串中间
+     */
+    @Test
+    @DisplayName("分块转码、并行分块转码与流式转码输出一致")
+    void testExecute_ChunkedMatchesStreaming() throws IOException {
+        Long jobId = 100L;
+        Long qianyiId = 10L;
+        Long detailId = 1L;
+
+        Charset ibm = Charset.forName("IBM-1388");
+        Path sourceFile = tempDir.resolve("source_ibm.csv");
+        ByteArrayOutputStream source = new ByteArrayOutputStream();
+        Random random = new Random(7);
+        for (int i = 1; i <= 400; i++) {
+            switch (i % 10) {
+                case 0 -> source.writeBytes((i + ",\"多\n行,\"\"值\"\"\",张三\n").getBytes(ibm)); // 引号内换行的多行记录
+                case 3 -> source.writeBytes((i + ",缺一列\n").getBytes(ibm)); // 列数错误
+                case 5 -> { // 双字节串里的非法编码
+                    source.writeBytes((i + ",坏").getBytes(ibm));
+                    source.writeBytes(new byte[]{0x0E, (byte) 0xFE, (byte) 0xFE, 0x0F});
+                    source.writeBytes("字节,x\n".getBytes(ibm));
+                }
+                case 7 -> source.writeBytes("\n".getBytes(ibm)); // 空行
+                default -> source.writeBytes((i + ",中文" + "测".repeat(random.nextInt(40)) + ",abc\n").getBytes(ibm));
+            }
+        }
+        Files.write(sourceFile, source.toByteArray());
+
+        MigrationJob job = new MigrationJob();
+        job.setId(jobId);
+
+        Qianyi qianyi = new Qianyi();
+        qianyi.setId(qianyiId);
+        qianyi.setJobId(jobId);
+        qianyi.setDdlFilePath("schema.sql"); // 假路径
+
+        QianyiDetail detail = new QianyiDetail();
+        detail.setId(detailId);
+        detail.setQianyiId(qianyiId);
+        detail.setJobId(jobId);
+        detail.setSourceCsvPath(sourceFile.toString());
+
+        when(detailRepo.findById(detailId)).thenReturn(Optional.of(detail));
+        when(qianyiRepo.findById(qianyiId)).thenReturn(Optional.of(qianyi));
+        when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+
+        mockAppConfig("IBM1388", "\n", 50, 1000, false);
+        AppProperties.Transcode transcodeConfig = config.getTranscode();
+        transcodeConfig.setChunkSize(256);
+        transcodeConfig.setParallelMinFileSize(0);
+        transcodeConfig.setParallelism(2);
+
+        schemaParseUtilMock.when(() -> SchemaParseUtil.parseColumnNamesFromDdl(anyString()))
+                .thenReturn(List.of("a", "b", "c"));
+
+        Map<String, List<String>> results = new LinkedHashMap<>();
+        for (String mode : List.of("stream", "chunk", "parallel")) {
+            transcodeConfig.setChunkedEnabled(!mode.equals("stream"));
+            transcodeConfig.setParallelEnabled(mode.equals("parallel"));
+            job.setOutDirectory(tempDir.resolve("output_" + mode).toString());
+            detail.setStatus(DetailStatus.TRANSCODING);
+            clearInvocations(splitRepo, detailRepo, stateManager);
+
+            transcodeService.execute(detailId);
+            verify(stateManager).updateDetailStatus(eq(detailId), eq(DetailStatus.PROCESSING_CHILDS));
+
+            List<String> result = new ArrayList<>();
+            ArgumentCaptor<CsvSplit> splits = ArgumentCaptor.forClass(CsvSplit.class);
+            verify(splitRepo, atLeastOnce()).save(splits.capture());
+            for (CsvSplit split : splits.getAllValues()) {
+                result.add("split start=" + split.getStartRowNo() + " rows=" + split.getRowCount());
+                result.addAll(Files.readAllLines(Paths.get(split.getSplitFilePath()), StandardCharsets.UTF_8));
+            }
+            result.addAll(Files.readAllLines(Paths.get(MigrationOutputDirectorUtil.transcodeErrorFile(job, qianyiId, detailId)),
+                    StandardCharsets.UTF_8));
+
+            ArgumentCaptor<Long> rowCount = ArgumentCaptor.forClass(Long.class);
+            verify(detailRepo, atLeastOnce()).updateSourceRowCount(eq(detailId), rowCount.capture());
+            ArgumentCaptor<Long> errorCount = ArgumentCaptor.forClass(Long.class);
+            verify(detailRepo).updateErrorCount(eq(detailId), errorCount.capture());
+            ArgumentCaptor<Long> checksum = ArgumentCaptor.forClass(Long.class);
+            verify(detailRepo, times(2)).updateSourceFingerprint(eq(detailId), any(), any(), checksum.capture(), any());
+            result.add("rows=" + rowCount.getValue() + " errors=" + errorCount.getValue() + " crc=" + checksum.getValue());
+            results.put(mode, result);
+        }
+        transcodeService.shutdownChunkPool();
+
+        List<String> streaming = results.get("stream");
+        assertEquals(8, streaming.stream().filter(line -> line.startsWith("split ")).count());
+        assertEquals("rows=360 errors=80 crc=" + crc32c(source.toByteArray()), streaming.get(streaming.size() - 1));
+        assertEquals(streaming, results.get("chunk"));
+        assertEquals(streaming, results.get("parallel"));
+    }
+
+    private static long crc32c(byte[] data) {
+        java.util.zip.CRC32C crc = new java.util.zip.CRC32C();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    /**
+     * 单行处理的分配断言：复用 RowBuffer 后，稳态下每行不再分配对象
+     * (改造前每行约有 boolean[] / String[] / Object[] / Long / Pair / 结果对象 / 错误列表，外加回转检测的字节数组和字符串)
+     */
+    @Test
+    @DisplayName("单行处理稳态下零分配")
+    void testCheckRow_AllocationFree() {
+        java.lang.management.ThreadMXBean threadBean = java.lang.management.ManagementFactory.getThreadMXBean();
+        org.junit.jupiter.api.Assumptions.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) threadBean;
+        org.junit.jupiter.api.Assumptions.assumeTrue(mx.isThreadAllocatedMemorySupported());
+
+        Charset ibm = com.example.moveprog.util.CharsetFactory.resolveCharset(CHARSET_IBM);
+        java.nio.charset.CharsetEncoder encoder = ibm.newEncoder();
+        String[][] rows = new String[64][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new String[]{"10000" + i, "张三" + i, "abc,def", "中文数据" + (i % 7), "2024-01-01", "备注内容"};
+        }
+
+        for (boolean tunneling : new boolean[]{false, true}) {
+            TranscodeService.RowBuffer rowBuffer = new TranscodeService.RowBuffer();
+            int n = 200_000;
+            long sink = 0;
+            // 预热 (含回转安全表的一次性构建)
+            for (int i = 0; i < n; i++) {
+                transcodeService.checkRow(rows[i & 63], 6, ibm, encoder, tunneling, rowBuffer);
+                sink += rowBuffer.outputRow(rowBuffer.rowToWrite, i).length;
+            }
+            long before = mx.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < n; i++) {
+                transcodeService.checkRow(rows[i & 63], 6, ibm, encoder, tunneling, rowBuffer);
+                assertNull(rowBuffer.errorType);
+                sink += rowBuffer.outputRow(rowBuffer.rowToWrite, i).length;
+            }
+            double bytesPerRow = (mx.getCurrentThreadAllocatedBytes() - before) / (double) n;
+            assertTrue(sink > 0);
+            // 留一点余量给测量本身
+            assertTrue(bytesPerRow < 1.0, "每行分配字节数: " + bytesPerRow);
+        }
+    }
+
     // 重载版本：专门为参数化测试服务
     private void mockAppConfig(CsvScenario scenario) {
         // 1. 创建 IBM 配置 (源端)
@@ -1029,6 +1286,7 @@ class TranscodeServiceTest {
         lenient().when(config.getCsv()).thenReturn(csv);
         lenient().when(config.getPerformance()).thenReturn(perf);
         lenient().when(config.getTranscode()).thenReturn(transcodeConfig);
+        lenient().when(config.getLoadJdbc()).thenReturn(new AppProperties.LoadJdbc());
     }
 
     // --- 辅助：组装 AppProperties ---
@@ -1062,6 +1320,7 @@ class TranscodeServiceTest {
         lenient().when(config.getCsv()).thenReturn(csv);
         lenient().when(config.getPerformance()).thenReturn(perf);
         lenient().when(config.getTranscode()).thenReturn(jobConfig);
+        lenient().when(config.getLoadJdbc()).thenReturn(new AppProperties.LoadJdbc());
     }
 
     private static void writeWithEncoding(String path, String content, String encoding) throws IOException {
@@ -0,0 +1,47 @@
+package com.example.moveprog.service.impl;
+
+import com.example.moveprog.util.CharsetFactory;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRowIteratorTest {
+    private static final String CHARSET_IBM = "x-IBM1388";
+
+    @TempDir Path tempDir;
+
+    @Test
+    @DisplayName("从字节偏移量开始读源文件，行号 = 解析器行号 + 偏移量之前的换行数")
+    void readFromByteOffset() throws Exception {
+        Charset ibm = CharsetFactory.resolveCharset(CHARSET_IBM);
+        String head = "val1,张三\nval2,\"多\n行\"\nval3,t3\n";
+        String tail = "val4,李四\nval5,t5";
+        Path sourceFile = tempDir.resolve("ibm1388_source.csv");
+        Files.write(sourceFile, (head + tail).getBytes(ibm));
+
+        long offset = head.getBytes(ibm).length;
+        CsvParserSettings settings = new CsvParserSettings();
+        settings.getFormat().setLineSeparator("\n");
+        settings.setNumberOfRecordsToRead(1);
+
+        CsvRowIterator iterator = new CsvRowIterator(sourceFile.toString(), false, new CsvParser(settings), ibm, 4, offset);
+        try {
+            assertTrue(iterator.hasNext());
+            String[] row = iterator.next();
+            assertEquals("val4", row[0]);
+            assertEquals("李四", row[1]);
+            assertEquals("5", row[2]); // 前面有 4 个换行 (含引号内的换行)
+            assertFalse(iterator.hasNext());
+        } finally {
+            iterator.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.moveprog.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorRecordSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String[] record(long lineNo) {
+        return new String[]{String.valueOf(lineNo), "COLUMN_COUNT_MISMATCH", "aWJt", "dXRmOA==", ""};
+    }
+
+    @Test
+    @DisplayName("后台线程格式化写出，按索引分页读取")
+    void submit_thenReadPage() throws Exception {
+        Path errorFile = tempDir.resolve("1_error.csv");
+        try (ErrorRecordSink sink = new ErrorRecordSink(errorFile, false, 4)) {
+            for (long line = 1; line <= 25; line++) {
+                long lineNo = line;
+                sink.submit(() -> record(lineNo));
+            }
+        }
+
+        List<String> lines = Files.readAllLines(errorFile, StandardCharsets.UTF_8);
+        assertEquals(26, lines.size());
+        assertTrue(lines.get(0).startsWith("\"LineNo\""));
+        assertEquals(25 * Long.BYTES, Files.size(ErrorRecordSink.indexFile(errorFile)));
+
+        ErrorRecordSink.Page page = ErrorRecordSink.readPage(errorFile, 2, 10);
+        assertEquals(25, page.total());
+        assertEquals(lines.get(0), page.header());
+        assertEquals(lines.subList(21, 26), page.lines());
+
+        assertTrue(ErrorRecordSink.readPage(errorFile, 3, 10).lines().isEmpty());
+    }
+
+    @Test
+    @DisplayName("格式化失败的记录只记日志，不影响后续记录")
+    void submit_formatFailure() throws Exception {
+        Path errorFile = tempDir.resolve("2_error.csv");
+        try (ErrorRecordSink sink = new ErrorRecordSink(errorFile, false, 1)) {
+            sink.submit(record(1));
+            sink.submit(() -> {
+                throw new IllegalStateException("boom");
+            });
+            sink.submit(record(3));
+            sink.flush();
+            assertEquals(2 * Long.BYTES, Files.size(ErrorRecordSink.indexFile(errorFile)));
+        }
+        assertEquals(3, Files.readAllLines(errorFile, StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    @DisplayName("续转追加：没有索引的错误文件先重建索引，再接着写")
+    void append_rebuildsIndex() throws Exception {
+        Path errorFile = tempDir.resolve("3_error.csv");
+        try (ErrorRecordSink sink = new ErrorRecordSink(errorFile, false, 8)) {
+            sink.submit(record(1));
+            sink.submit(record(2));
+        }
+        Files.delete(ErrorRecordSink.indexFile(errorFile));
+
+        try (ErrorRecordSink sink = new ErrorRecordSink(errorFile, true, 8)) {
+            sink.submit(record(5));
+        }
+
+        ErrorRecordSink.Page page = ErrorRecordSink.readPage(errorFile, 0, 10);
+        assertEquals(3, page.total());
+        assertEquals(3, page.lines().size());
+        assertTrue(page.lines().get(2).startsWith("\"5\""));
+        assertEquals(page.lines(), ErrorRecordSink.readPage(errorFile, 0, 10).lines());
+        assertEquals(List.of(page.lines().get(1)), ErrorRecordSink.readPage(errorFile, 1, 1).lines());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.moveprog.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalInfileStreamTest {
+
+    @Test
+    @DisplayName("写入端分多次写，读取端读到完全相同的字节后 EOF")
+    void sameBytesAcrossThreads() throws Exception {
+        byte[] data = new byte[1_000_003];
+        new Random(42).nextBytes(data);
+        LocalInfileStream stream = new LocalInfileStream(64 * 1024, 2);
+
+        AtomicReference<byte[]> received = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[7777];
+                int n;
+                while ((n = stream.read(buf, 0, buf.length)) != -1) {
+                    out.write(buf, 0, n);
+                }
+                received.set(out.toByteArray());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        reader.start();
+
+        int pos = 0;
+        int step = 1;
+        while (pos < data.length) {
+            int n = Math.min(step, data.length - pos);
+            stream.write(data, pos, n);
+            pos += n;
+            step = step * 3 % 100_000 + 1;
+        }
+        stream.finish();
+        reader.join(10_000);
+
+        assertArrayEquals(data, received.get());
+    }
+
+    @Test
+    @DisplayName("中止后读取端抛异常 (不能当作正常结束)，写入端不再阻塞")
+    void abortFailsBothSides() throws Exception {
+        LocalInfileStream stream = new LocalInfileStream(64 * 1024, 1);
+        byte[] block = new byte[64 * 1024];
+        stream.write(block, 0, block.length); // 占满队列
+
+        AtomicReference<Throwable> writeFailure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                stream.write(block, 0, block.length);
+            } catch (Throwable e) {
+                writeFailure.set(e);
+            }
+        });
+        writer.start();
+        Thread.sleep(50);
+        assertTrue(writer.isAlive());
+
+        stream.abort();
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        assertInstanceOf(IOException.class, writeFailure.get());
+        assertThrows(IOException.class, () -> stream.read(new byte[10], 0, 10));
+    }
+}
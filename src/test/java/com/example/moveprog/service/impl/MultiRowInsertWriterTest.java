@@ -0,0 +1,149 @@
+package com.example.moveprog.service.impl;
+
+import com.example.moveprog.dto.TableSchema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiRowInsertWriterTest {
+
+    private static final String HEAD = "INSERT INTO `t` (`id`,`name`,`csv_id`,`source_row_no`) VALUES ";
+
+    /**
+     * 记录 prepareStatement 的 SQL 和每次 executeUpdate 时绑定的参数
+     */
+    private static class Recorder {
+        final List<String> prepared = new ArrayList<>();
+        final List<List<Object>> executed = new ArrayList<>();
+        int closed = 0;
+
+        Connection connection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("prepareStatement")) {
+                            prepared.add((String) args[0]);
+                            return statement();
+                        }
+                        return null;
+                    });
+        }
+
+        private PreparedStatement statement() {
+            List<Object> params = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setString", "setLong" -> {
+                                int index = (Integer) args[0];
+                                while (params.size() < index) {
+                                    params.add(null);
+                                }
+                                params.set(index - 1, args[1]);
+                            }
+                            case "executeUpdate" -> {
+                                executed.add(new ArrayList<>(params));
+                                return 0;
+                            }
+                            case "close" -> closed++;
+                            default -> {
+                            }
+                        }
+                        return null;
+                    });
+        }
+    }
+
+    private static String[] row(long lineNo) {
+        return new String[]{String.valueOf(lineNo), "name" + lineNo, String.valueOf(lineNo)};
+    }
+
+    /**
+     * 和装载的解析阶段一样：按类型转换数据列，行号转成 Long，按转换后的值量字节数
+     */
+    private static void add(MultiRowInsertWriter writer, TypedParameterBinder binder, String[] row) throws Exception {
+        int dataColumns = row.length - 1;
+        Object[] values = new Object[row.length];
+        for (int i = 0; i < dataColumns; i++) {
+            values[i] = binder.convert(i, row[i]);
+        }
+        values[dataColumns] = Long.parseLong(row[dataColumns]);
+        writer.add(values, MultiRowInsertWriter.rowBytes(values, dataColumns));
+    }
+
+    @Test
+    @DisplayName("满块语句只预编译一次，最后不满的一块单独预编译")
+    void add_reusesFullStatement() throws Exception {
+        Recorder recorder = new Recorder();
+        TypedParameterBinder binder = new TypedParameterBinder(null, List.of("id", "name"));
+        try (MultiRowInsertWriter writer = new MultiRowInsertWriter(recorder.connection(), HEAD, 2, 9L, binder,
+                64L * 1024 * 1024, 3, 0)) {
+            for (long line = 1; line <= 7; line++) {
+                add(writer, binder, row(line));
+            }
+            writer.finish();
+            assertEquals(7, writer.getRowCount());
+            assertEquals(3, writer.getStatementCount());
+            assertEquals(0, writer.getPacketLimitedCount());
+        }
+
+        assertEquals(2, recorder.prepared.size());
+        assertEquals(HEAD + "(?,?,?,?),(?,?,?,?),(?,?,?,?)", recorder.prepared.get(0));
+        assertEquals(HEAD + "(?,?,?,?)", recorder.prepared.get(1));
+        assertEquals(2, recorder.closed);
+        assertEquals(List.of("4", "name4", 9L, 4L, "5", "name5", 9L, 5L, "6", "name6", 9L, 6L), recorder.executed.get(1));
+        assertEquals(List.of("7", "name7", 9L, 7L), recorder.executed.get(2));
+    }
+
+    @Test
+    @DisplayName("按行字节数截断，每条语句不超过 max_allowed_packet")
+    void add_splitsByPacketSize() throws Exception {
+        Recorder recorder = new Recorder();
+        TypedParameterBinder binder = new TypedParameterBinder(null, List.of("id", "name"));
+        String wide = "中".repeat(1000); // 3000 字节
+        long packet = HEAD.getBytes(StandardCharsets.UTF_8).length + 1024 + 2 * 3100;
+        try (MultiRowInsertWriter writer = new MultiRowInsertWriter(recorder.connection(), HEAD, 2, 9L, binder, packet, 100, 0)) {
+            for (long line = 1; line <= 5; line++) {
+                add(writer, binder, new String[]{String.valueOf(line), wide, String.valueOf(line)});
+            }
+            writer.finish();
+            assertEquals(5, writer.getRowCount());
+            assertEquals(3, writer.getStatementCount());
+            assertEquals(2, writer.getPacketLimitedCount());
+        }
+        assertEquals(List.of(8, 8, 4), recorder.executed.stream().map(List::size).toList());
+    }
+
+    @Test
+    @DisplayName("按转换后的值量字节数：DECIMAL 按展开后的长度")
+    void rowBytes_convertedValues() {
+        TableSchema schema = new TableSchema();
+        schema.getColumns().add(new TableSchema.Column("amount", "decimal", Types.DECIMAL, 65L, 2, true));
+        schema.getColumns().add(new TableSchema.Column("name", "varchar", Types.VARCHAR, 32L, null, true));
+        TypedParameterBinder binder = new TypedParameterBinder(schema, List.of("amount", "name"));
+
+        Object[] values = {binder.convert(0, "1e300"), binder.convert(1, "ab"), 1L};
+        assertEquals(new BigDecimal("1e300"), values[0]);
+        long fixed = 3 + 2 * 21; // 括号、逗号 + csv_id 和行号
+        assertEquals(fixed + (3 + 301) + (3 + 2), MultiRowInsertWriter.rowBytes(values, 2));
+        assertEquals(fixed + 5 + (3 + 2), MultiRowInsertWriter.rowBytes(new Object[]{null, "ab", 1L}, 2));
+    }
+
+    @Test
+    @DisplayName("转义后的 UTF-8 字节数")
+    void escapedUtf8Length() {
+        assertEquals(3, MultiRowInsertWriter.escapedUtf8Length("abc"));
+        assertEquals(6, MultiRowInsertWriter.escapedUtf8Length("a'b\\"));
+        assertEquals(6, MultiRowInsertWriter.escapedUtf8Length("中文"));
+        assertEquals(4, MultiRowInsertWriter.escapedUtf8Length("😀"));
+    }
+}
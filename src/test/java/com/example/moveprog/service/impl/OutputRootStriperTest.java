@@ -0,0 +1,68 @@
+package com.example.moveprog.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutputRootStriperTest {
+    private static final List<String> ROOTS = List.of("/disk1/out", "/disk2/out", "/disk3/out");
+
+    private Map<String, Integer> pick(OutputRootStriper striper, int times) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            counts.merge(striper.next(ROOTS), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    @DisplayName("可用空间相同、没有速度样本时轮流写")
+    void roundRobinWhenEqual() {
+        OutputRootStriper striper = new OutputRootStriper(root -> 100L);
+        assertEquals("/disk1/out", striper.next(ROOTS));
+        assertEquals("/disk2/out", striper.next(ROOTS));
+        assertEquals("/disk3/out", striper.next(ROOTS));
+        assertEquals("/disk1/out", striper.next(ROOTS));
+    }
+
+    @Test
+    @DisplayName("按可用空间加权，满了的磁盘不再分配")
+    void weightedByFreeSpace() {
+        Map<String, Long> spaces = Map.of("/disk1/out", 300L, "/disk2/out", 100L, "/disk3/out", 0L);
+        OutputRootStriper striper = new OutputRootStriper(spaces::get);
+        Map<String, Integer> counts = pick(striper, 400);
+        assertEquals(300, counts.get("/disk1/out"));
+        assertEquals(100, counts.get("/disk2/out"));
+        assertNull(counts.get("/disk3/out"));
+    }
+
+    @Test
+    @DisplayName("按观测到的写入速度加权，太小的拆分不作为样本")
+    void weightedByThroughput() {
+        OutputRootStriper striper = new OutputRootStriper(root -> 100L);
+        long bytes = 1024L * 1024;
+        striper.recordWrite("/disk1/out", bytes, 1_000_000L);
+        striper.recordWrite("/disk2/out", bytes, 4_000_000L);
+        // 太小，忽略
+        striper.recordWrite("/disk2/out", 1024, 1L);
+        Map<String, Integer> counts = pick(striper, 900);
+        // disk3 没有样本，按最快的算
+        assertEquals(400, counts.get("/disk1/out"));
+        assertEquals(100, counts.get("/disk2/out"));
+        assertEquals(400, counts.get("/disk3/out"));
+    }
+
+    @Test
+    @DisplayName("只有一个输出目录时直接返回")
+    void singleRoot() {
+        OutputRootStriper striper = new OutputRootStriper(root -> {
+            throw new AssertionError("单目录不需要取可用空间");
+        });
+        assertEquals("/out", striper.next(List.of("/out")));
+    }
+}
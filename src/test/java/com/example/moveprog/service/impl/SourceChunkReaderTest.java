@@ -0,0 +1,80 @@
+package com.example.moveprog.service.impl;
+
+import com.example.moveprog.util.CharsetFactory;
+import com.example.moveprog.util.SourceRecordScanner;
+import com.univocity.parsers.csv.CsvFormat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceChunkReaderTest {
+    private static final Charset IBM1388 = CharsetFactory.resolveCharset("x-IBM1388");
+
+    @TempDir
+    Path tempDir;
+
+    private SourceRecordScanner newScanner() {
+        CsvFormat format = new CsvFormat();
+        format.setLineSeparator("\n");
+        return SourceRecordScanner.forFormat(IBM1388, format, true);
+    }
+
+    private List<SourceChunk> readAll(SourceChunkReader reader) throws Exception {
+        List<SourceChunk> chunks = new ArrayList<>();
+        SourceChunk chunk;
+        while (null != (chunk = reader.next())) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    @Test
+    @DisplayName("从分块边界续读，得到的字节和行号与从头读取的剩余部分一致")
+    void resumeFromBoundary() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append(i).append(i % 10 == 0 ? ",\"多\n行\"" : ",中文数据").append(i % 7).append('\n');
+        }
+        Path source = tempDir.resolve("source.csv");
+        byte[] data = sb.toString().getBytes(IBM1388);
+        Files.write(source, data);
+
+        List<SourceChunk> full;
+        long fullChecksum;
+        try (SourceChunkReader reader = new SourceChunkReader(source, newScanner(), 4096)) {
+            full = readAll(reader);
+            fullChecksum = reader.getChecksum();
+        }
+        assertTrue(full.size() > 3);
+
+        SourceChunk checkpoint = full.get(2);
+        List<SourceChunk> resumed;
+        try (SourceChunkReader reader = new SourceChunkReader(source, newScanner(), 4096,
+                checkpoint.getStartOffset(), checkpoint.getLineBase())) {
+            resumed = readAll(reader);
+            // 跳过的部分补算后，校验和覆盖整个文件
+            assertEquals(fullChecksum, reader.getChecksum());
+        }
+
+        assertEquals(full.size() - 2, resumed.size());
+        ByteArrayOutputStream tail = new ByteArrayOutputStream();
+        for (int i = 0; i < resumed.size(); i++) {
+            SourceChunk expected = full.get(i + 2);
+            SourceChunk actual = resumed.get(i);
+            assertEquals(expected.getStartOffset(), actual.getStartOffset());
+            assertEquals(expected.getLineBase(), actual.getLineBase());
+            tail.write(actual.getData(), 0, actual.getLength());
+        }
+        assertArrayEquals(Arrays.copyOfRange(data, (int) checkpoint.getStartOffset(), data.length), tail.toByteArray());
+    }
+}
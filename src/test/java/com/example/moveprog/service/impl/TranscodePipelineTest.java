@@ -0,0 +1,60 @@
+package com.example.moveprog.service.impl;
+
+import com.example.moveprog.util.SpscRingBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscodePipelineTest {
+
+    @Test
+    @DisplayName("阶段先关闭队列、后记录异常：驱动读到队列结束后仍能拿到原始异常")
+    void rethrowAfterQueueClosed() throws Exception {
+        SpscRingBuffer<Integer> queue = new SpscRingBuffer<>(1);
+        TranscodePipeline pipeline = new TranscodePipeline();
+        try {
+            pipeline.start("test-stage", () -> {
+                try {
+                    throw new IllegalStateException("阶段失败");
+                } finally {
+                    queue.close();
+                    // 放大关闭队列和记录异常之间的间隔
+                    Thread.sleep(200);
+                }
+            });
+
+            assertNull(queue.take(pipeline::isAborted));
+            IllegalStateException e = assertThrows(IllegalStateException.class, pipeline::rethrowIfFailed);
+            assertEquals("阶段失败", e.getMessage());
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    @DisplayName("检查型异常原样抛出 IOException，其它包成 RuntimeException")
+    void rethrowCheckedException() {
+        TranscodePipeline io = new TranscodePipeline();
+        io.fail(new IOException("读失败"));
+        assertThrows(IOException.class, io::rethrowIfFailed);
+
+        TranscodePipeline other = new TranscodePipeline();
+        other.fail(new Exception("其它"));
+        RuntimeException e = assertThrows(RuntimeException.class, other::rethrowIfFailed);
+        assertEquals("其它", e.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("阶段正常结束时不抛异常，close 后线程都已退出")
+    void noFailure() throws Exception {
+        TranscodePipeline pipeline = new TranscodePipeline();
+        Thread[] stage = new Thread[1];
+        pipeline.start("test-stage", () -> stage[0] = Thread.currentThread());
+        pipeline.rethrowIfFailed();
+        pipeline.close();
+        assertFalse(stage[0].isAlive());
+    }
+}
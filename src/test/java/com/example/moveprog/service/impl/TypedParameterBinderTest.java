@@ -0,0 +1,124 @@
+package com.example.moveprog.service.impl;
+
+import com.example.moveprog.dto.TableSchema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypedParameterBinderTest {
+
+    /**
+     * 记录 setXxx 调用的 PreparedStatement: "方法名=值"
+     */
+    private static PreparedStatement recorder(List<String> calls) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    calls.add(method.getName() + "=" + args[1]);
+                    return null;
+                });
+    }
+
+    private static TableSchema schema() {
+        TableSchema schema = new TableSchema();
+        schema.getColumns().add(new TableSchema.Column("id", "int", Types.INTEGER, null, null, false));
+        schema.getColumns().add(new TableSchema.Column("salary", "decimal", Types.DECIMAL, 10L, 2, true));
+        schema.getColumns().add(new TableSchema.Column("weight", "double", Types.DOUBLE, null, null, true));
+        schema.getColumns().add(new TableSchema.Column("birth", "date", Types.DATE, null, null, true));
+        schema.getColumns().add(new TableSchema.Column("birthday", "datetime", Types.TIMESTAMP, 6L, null, true));
+        schema.getColumns().add(new TableSchema.Column("luncherat", "time", Types.TIME, null, null, true));
+        schema.getColumns().add(new TableSchema.Column("name", "varchar", Types.VARCHAR, 32L, null, true));
+        return schema;
+    }
+
+    @Test
+    @DisplayName("数值和日期时间在客户端转换，字符串列和表结构里没有的列 setString")
+    void bind_typedValues() throws Exception {
+        List<String> columns = List.of("ID", "salary", "weight", "birth", "birthday", "luncherat", "name", "extra");
+        TypedParameterBinder binder = new TypedParameterBinder(schema(), columns);
+        assertEquals(6, binder.getTypedColumnCount());
+
+        List<String> calls = new ArrayList<>();
+        PreparedStatement ps = recorder(calls);
+        String[] row = {"42", "31215.00", "53.12", "1980-01-05", "1980-01-05 13:15:16.123456", "12:15:13", "张三", "x"};
+        for (int i = 0; i < row.length; i++) {
+            binder.bind(ps, i + 1, i, row[i]);
+        }
+        assertEquals(List.of(
+                "setLong=42",
+                "setBigDecimal=" + new BigDecimal("31215.00"),
+                "setDouble=53.12",
+                "setObject=" + LocalDate.of(1980, 1, 5),
+                "setObject=" + LocalDateTime.of(1980, 1, 5, 13, 15, 16, 123456000),
+                "setObject=" + LocalTime.of(12, 15, 13),
+                "setString=张三",
+                "setString=x"), calls);
+    }
+
+    @Test
+    @DisplayName("客户端转换不了的值按字符串交给数据库，null 绑定为 NULL")
+    void bind_fallbackToString() throws Exception {
+        List<String> columns = List.of("id", "salary", "weight", "birth", "birthday", "luncherat");
+        TypedParameterBinder binder = new TypedParameterBinder(schema(), columns);
+        List<String> calls = new ArrayList<>();
+        PreparedStatement ps = recorder(calls);
+        String[] row = {"18446744073709551615", "", "NaN", "0000-00-00", "2024-02-30 00:00:00", "838:59:59"};
+        for (int i = 0; i < row.length; i++) {
+            binder.bind(ps, i + 1, i, row[i]);
+        }
+        binder.bind(ps, 1, 0, null);
+        assertEquals(List.of(
+                "setString=18446744073709551615",
+                "setString=",
+                "setString=NaN",
+                "setString=0000-00-00",
+                "setString=2024-02-30 00:00:00",
+                "setString=838:59:59",
+                "setNull=" + Types.INTEGER), calls);
+    }
+
+    @Test
+    @DisplayName("先转换 (解析线程) 再绑定 (装载线程)，结果和直接绑定一致")
+    void convert_thenBindValue() throws Exception {
+        List<String> columns = List.of("id", "weight", "birth", "name");
+        TypedParameterBinder binder = new TypedParameterBinder(schema(), columns);
+        String[] row = {"42", "NaN", "1980-01-05", null};
+        Object[] values = new Object[row.length];
+        for (int i = 0; i < row.length; i++) {
+            values[i] = binder.convert(i, row[i]);
+        }
+        assertEquals(42L, values[0]);
+        assertEquals("NaN", values[1]);
+        assertEquals(LocalDate.of(1980, 1, 5), values[2]);
+        assertNull(values[3]);
+
+        List<String> converted = new ArrayList<>();
+        List<String> direct = new ArrayList<>();
+        for (int i = 0; i < row.length; i++) {
+            binder.bindValue(recorder(converted), i + 1, i, values[i]);
+            binder.bind(recorder(direct), i + 1, i, row[i]);
+        }
+        assertEquals(direct, converted);
+        assertEquals("setNull=" + Types.VARCHAR, converted.get(3));
+    }
+
+    @Test
+    @DisplayName("没有表结构时全部 setString")
+    void bind_withoutSchema() throws Exception {
+        TypedParameterBinder binder = new TypedParameterBinder(null, List.of("id"));
+        assertEquals(0, binder.getTypedColumnCount());
+        List<String> calls = new ArrayList<>();
+        binder.bind(recorder(calls), 1, 0, "42");
+        assertEquals(List.of("setString=42"), calls);
+    }
+}
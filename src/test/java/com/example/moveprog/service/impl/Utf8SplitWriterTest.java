@@ -0,0 +1,102 @@
+package com.example.moveprog.service.impl;
+
+import com.example.moveprog.config.AppProperties;
+import com.example.moveprog.util.SplitFileCompression;
+import com.univocity.parsers.csv.CsvWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Utf8SplitWriterTest {
+
+    @TempDir Path tempDir;
+
+    private static final List<String[]> ROWS = Arrays.asList(
+            new String[]{"1", "张三", "abc,def"},
+            new String[]{"", null, "中文"},
+            new String[]{"  前后空格  ", "a\tb", "多\n行"},
+            new String[]{"q\"q", "\\反斜杠\\", "#注释符开头"},
+            new String[]{"😀", "孤立代理\uD800", "\r\n"},
+            new String[]{" ", "x".repeat(20_000), "é"}
+    );
+
+    @Test
+    @DisplayName("FileChannel 直写与 CsvWriter + OutputStreamWriter 输出逐字节一致")
+    void sameBytesAsCsvWriter() throws Exception {
+        for (String lineSeparator : new String[]{"\n", "\r\n"}) {
+            AppProperties.CsvDetailConfig utf8Split = new AppProperties.CsvDetailConfig();
+            utf8Split.setLineSeparator(lineSeparator);
+            assertTrue(Utf8CsvRowEncoder.supports(utf8Split));
+
+            Path expected = tempDir.resolve("expected.csv");
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(expected), StandardCharsets.UTF_8))) {
+                CsvWriter csvWriter = new CsvWriter(out, utf8Split.toWriterSettings());
+                long lineNo = 1;
+                for (String[] row : ROWS) {
+                    Object[] newRow = Arrays.copyOf(row, row.length + 1, Object[].class);
+                    newRow[row.length] = lineNo++;
+                    csvWriter.writeRow(newRow);
+                }
+                csvWriter.close();
+            }
+
+            // 缓冲区按最小值 (64KB) 分配，20000 字符的行超过缓冲区，覆盖超大行直接落盘
+            Path actual = tempDir.resolve("actual.csv");
+            try (Utf8SplitWriter writer = new Utf8SplitWriter(actual, new Utf8CsvRowEncoder(utf8Split), 1024)) {
+                long lineNo = 1;
+                for (String[] row : ROWS) {
+                    writer.writeRow(row, lineNo++);
+                }
+            }
+
+            assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual));
+        }
+    }
+
+    @Test
+    @DisplayName("压缩写出是标准 gzip，解压后与不压缩的输出一致")
+    void compressedSameContent() throws Exception {
+        AppProperties.CsvDetailConfig utf8Split = new AppProperties.CsvDetailConfig();
+        Path plain = tempDir.resolve("1.csv");
+        Path gz = tempDir.resolve("1.csv" + SplitFileCompression.GZIP_SUFFIX);
+        try (Utf8SplitWriter plainWriter = new Utf8SplitWriter(plain, new Utf8CsvRowEncoder(utf8Split), 1024);
+             Utf8SplitWriter gzWriter = new Utf8SplitWriter(gz, new Utf8CsvRowEncoder(utf8Split), 1024, new Deflater(1, true))) {
+            for (long lineNo = 1; lineNo <= 20_000; lineNo++) {
+                String[] row = ROWS.get((int) (lineNo % ROWS.size()));
+                plainWriter.writeRow(row, lineNo);
+                gzWriter.writeRow(row, lineNo);
+            }
+        }
+
+        byte[] expected = Files.readAllBytes(plain);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gz))) {
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+        try (InputStream in = SplitFileCompression.openInput(gz)) {
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+        assertTrue(Files.size(gz) < expected.length / 3);
+    }
+
+    @Test
+    @DisplayName("非 UTF-8 目标编码不使用直写")
+    void notSupportedForOtherCharset() {
+        AppProperties.CsvDetailConfig gbk = new AppProperties.CsvDetailConfig();
+        gbk.setEncoding("GBK");
+        assertFalse(Utf8CsvRowEncoder.supports(gbk));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.moveprog.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockingHandoffTest {
+
+    @Test
+    @DisplayName("跨线程按序传递，生产者结束后消费者读完剩余元素")
+    void orderAcrossThreads() throws Exception {
+        BlockingHandoff<Integer> queue = new BlockingHandoff<>(1);
+        int count = 20_000;
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    assertTrue(queue.put(i, () -> false));
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                queue.close();
+            }
+        });
+        producer.start();
+
+        List<Integer> received = new ArrayList<>();
+        Integer item;
+        while (null != (item = queue.take(() -> false))) {
+            received.add(item);
+        }
+        producer.join();
+
+        assertEquals(count, received.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, received.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("队列满时关闭，消费者仍能读完已写入的元素再结束")
+    void closeWhenFull() throws Exception {
+        BlockingHandoff<Integer> queue = new BlockingHandoff<>(2);
+        assertTrue(queue.put(1, () -> false));
+        assertTrue(queue.put(2, () -> false));
+        queue.close();
+
+        assertEquals(1, queue.take(() -> false));
+        assertEquals(2, queue.take(() -> false));
+        assertNull(queue.take(() -> false));
+        assertThrows(IllegalArgumentException.class, () -> new BlockingHandoff<>(0));
+    }
+
+    @Test
+    @DisplayName("中止后阻塞的 put/take 返回")
+    void abortReleasesWaiters() throws Exception {
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        BlockingHandoff<Integer> full = new BlockingHandoff<>(1);
+        assertTrue(full.put(1, aborted::get));
+        BlockingHandoff<Integer> empty = new BlockingHandoff<>(1);
+
+        AtomicBoolean putResult = new AtomicBoolean(true);
+        AtomicBoolean takeReturned = new AtomicBoolean(false);
+        Thread producer = new Thread(() -> {
+            try {
+                putResult.set(full.put(2, aborted::get));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread consumer = new Thread(() -> {
+            try {
+                takeReturned.set(empty.take(aborted::get) == null);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        producer.start();
+        consumer.start();
+        Thread.sleep(100);
+        assertTrue(producer.isAlive());
+        assertTrue(consumer.isAlive());
+
+        aborted.set(true);
+        producer.join(5000);
+        consumer.join(5000);
+        assertFalse(producer.isAlive());
+        assertFalse(consumer.isAlive());
+        assertFalse(putResult.get());
+        assertTrue(takeReturned.get());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.moveprog.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EbcdicTableDecoderTest {
+    private static final String CHARSET_IBM = "x-IBM1388";
+
+    @Test
+    @DisplayName("IBM1388 全码表自检通过 (单字节、双字节、随机字节流均与 ICU 一致)")
+    void selfCheckPassesForIbm1388() {
+        Charset ibm = CharsetFactory.resolveCharset(CHARSET_IBM);
+        EbcdicTableDecoder decoder = EbcdicTableDecoder.forCharset(ibm, false);
+        assertNotNull(decoder);
+        assertEquals(0, decoder.selfCheck());
+    }
+
+    @Test
+    @DisplayName("非 SO/SI 编码不提供查表解码器")
+    void notShiftStatefulCharset() {
+        assertNull(EbcdicTableDecoder.forCharset(StandardCharsets.UTF_8, false));
+    }
+
+    @Test
+    @DisplayName("整块解码和流式解码结果与 ICU 一致，非法字节走 fallback 替换")
+    void decodeMatchesIcu() throws Exception {
+        Charset ibm = CharsetFactory.resolveCharset(CHARSET_IBM);
+        EbcdicTableDecoder decoder = EbcdicTableDecoder.forCharset(ibm, false);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("张三,abc\n".getBytes(ibm));
+        out.write(new byte[]{(byte) 0xFF, 0x0E, (byte) 0xFE, (byte) 0xFE, 0x0F});
+        out.write("李四,\"多\n行\"\n".getBytes(ibm));
+        byte[] bytes = out.toByteArray();
+
+        String expected = readFully(new InputStreamReader(new ByteArrayInputStream(bytes), CharsetFactory.createDecoder(ibm, false)));
+        assertTrue(expected.startsWith("张三,abc\n"));
+        assertTrue(expected.endsWith("李四,\"多\n行\"\n"));
+
+        assertEquals(expected, decoder.decode(bytes, 0, bytes.length, CharsetFactory.createDecoder(ibm, false)).toString());
+        assertEquals(expected, readFully(decoder.newReader(new ByteArrayInputStream(bytes), CharsetFactory.createDecoder(ibm, false), 3)));
+    }
+
+    @Test
+    @DisplayName("流式解码：非法字节所在的行交给 fallback，换行之后回到查表，结果仍与 ICU 一致")
+    void streamResumesTableAfterLineFeed() throws Exception {
+        Charset ibm = CharsetFactory.resolveCharset(CHARSET_IBM);
+        EbcdicTableDecoder decoder = EbcdicTableDecoder.forCharset(ibm, false);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("1,坏".getBytes(ibm));
+        out.write(new byte[]{0x0E, (byte) 0xFE, (byte) 0xFE, 0x0F, (byte) 0xFF});
+        out.write("字节\n".getBytes(ibm));
+        int badLineLength = out.size();
+        for (int i = 2; i <= 1000; i++) {
+            out.write((i + ",中文" + "测".repeat(i % 7) + ",abc\n").getBytes(ibm));
+        }
+        byte[] bytes = out.toByteArray();
+
+        String expected = readFully(new InputStreamReader(new ByteArrayInputStream(bytes), CharsetFactory.createDecoder(ibm, false)));
+        for (int bufferSize : new int[]{2, 7, 64, 8192}) {
+            CountingDecoder fallback = new CountingDecoder(CharsetFactory.createDecoder(ibm, false));
+            assertEquals(expected, readFully(decoder.newReader(new ByteArrayInputStream(bytes), fallback, bufferSize)));
+            // fallback 只解码了坏行 (从非法字节到换行)，后面 999 行都走查表
+            assertTrue(fallback.consumed > 0 && fallback.consumed <= badLineLength, "fallback 解码字节数: " + fallback.consumed);
+        }
+    }
+
+    /**
+     * 统计 fallback 实际解码了多少字节
+     */
+    private static final class CountingDecoder extends CharsetDecoder {
+        private final CharsetDecoder delegate;
+        private long consumed = 0;
+
+        CountingDecoder(CharsetDecoder delegate) {
+            super(delegate.charset(), delegate.averageCharsPerByte(), delegate.maxCharsPerByte());
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+            int start = in.position();
+            CoderResult result = delegate.decode(in, out, false);
+            consumed += in.position() - start;
+            return result;
+        }
+
+        @Override
+        protected CoderResult implFlush(CharBuffer out) {
+            return delegate.flush(out);
+        }
+
+        @Override
+        protected void implReset() {
+            delegate.reset();
+        }
+    }
+
+    private static String readFully(Reader reader) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        try (reader) {
+            char[] buf = new char[4];
+            int n;
+            while ((n = reader.read(buf)) >= 0) {
+                sb.append(buf, 0, n);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -87,4 +87,40 @@ public class FastEscapeHandlerTest {
         assertEquals(original, result.getRight(), "反斜杠经过 escape -> unescape 后应该保持原样");
     }
 
+    @Test
+    @DisplayName("流式还原：写入调用方缓冲，返回写入长度；未发生 Unicode 转换返回 UNCHANGED")
+    void unescape_streaming() {
+        char[] dst = new char[64];
+        String input = "前缀|没有\\6724\\转义|后缀";
+        int from = input.indexOf('|') + 1;
+        int to = input.lastIndexOf('|');
+        int n = FastEscapeHandler.unescape(input, from, to, dst, 3);
+        assertEquals("没有朤转义", new String(dst, 3, n));
+
+        assertEquals(FastEscapeHandler.UNCHANGED, FastEscapeHandler.unescape("C:\\\\Windows\\_1", 0, 14, dst, 0));
+        assertEquals(FastEscapeHandler.UNCHANGED, FastEscapeHandler.unescape("正常字符", 0, 4, dst, 0));
+    }
+
+    @Test
+    @DisplayName("流式还原：超出码点范围的转义按普通字符原样保留")
+    void unescape_invalidCodePoint() {
+        Pair<Boolean, String> unescape = FastEscapeHandler.unescape("a\\110000\\b\\-1\\c\\2CC56\\");
+        assertTrue(unescape.getLeft());
+        assertEquals("a\\110000\\b\\-1\\c" + new String(Character.toChars(0x2CC56)), unescape.getRight());
+    }
+
+    @Test
+    @DisplayName("流式转义：追加到复用的 StringBuilder，返回生成转义序列的个数")
+    void escape_streaming() {
+        java.nio.charset.CharsetEncoder encoder = CharsetFactory.resolveCharset(CHARSET_IBM).newEncoder();
+        StringBuilder out = new StringBuilder();
+        String input = "张" + new String(Character.toChars(0x2CC56)) + "三";
+        assertEquals(1, FastEscapeHandler.escape(input, 0, input.length(), encoder, out));
+        assertEquals("张\\2CC56\\三", out.toString());
+        assertEquals(FastEscapeHandler.escapeForCheck(input, encoder), out.toString());
+
+        out.setLength(0);
+        assertEquals(0, FastEscapeHandler.escape("张三", 0, 2, encoder, out));
+        assertEquals("张三", out.toString());
+    }
 }
@@ -0,0 +1,104 @@
+package com.example.moveprog.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileReaderTest {
+    private static final Charset IBM1388 = CharsetFactory.resolveCharset("x-IBM1388");
+
+    @TempDir
+    Path tempDir;
+
+    private byte[] sampleBytes(int rows) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            sb.append(i).append(",中文数据").append(i % 7).append(",abc\n");
+        }
+        return sb.toString().getBytes(IBM1388);
+    }
+
+    private CharsetDecoder newDecoder() {
+        return IBM1388.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private String readFully(Reader reader) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        try (reader) {
+            char[] buf = new char[333];
+            int n;
+            while ((n = reader.read(buf, 0, buf.length)) >= 0) {
+                sb.append(buf, 0, n);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    @DisplayName("段很小 (双字节字符和 SO/SI 跨段) 时解码结果与整体解码一致")
+    void decodeAcrossSegments() throws Exception {
+        // 段越小映射次数越多 (映射段靠 GC 释放)，这里用小文件
+        byte[] data = sampleBytes(30);
+        Path file = tempDir.resolve("source.csv");
+        Files.write(file, data);
+        String expected = new String(data, IBM1388);
+
+        for (int segmentSize : new int[]{1, 2, 3, 7, 64, 4096, data.length, data.length * 2}) {
+            MappedFileInputStream source = new MappedFileInputStream(file, 0, segmentSize);
+            assertEquals(expected, readFully(new MappedFileReader(source, newDecoder(), 16)), "segment " + segmentSize);
+        }
+    }
+
+    @Test
+    @DisplayName("从偏移量开始读取，字节和校验和只覆盖偏移量之后")
+    void readFromOffset() throws Exception {
+        byte[] data = sampleBytes(500);
+        Path file = tempDir.resolve("source.csv");
+        Files.write(file, data);
+        int offset = data.length / 3;
+
+        CRC32C checksum = new CRC32C();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = SourceFileReaderUtil.openInputStream(file, offset, 1000, checksum)) {
+            assertInstanceOf(MappedFileInputStream.class, in);
+            byte[] buf = new byte[777];
+            int n;
+            while ((n = in.read(buf, 0, buf.length)) >= 0) {
+                out.write(buf, 0, n);
+            }
+        }
+        byte[] tail = Arrays.copyOfRange(data, offset, data.length);
+        assertArrayEquals(tail, out.toByteArray());
+
+        CRC32C expected = new CRC32C();
+        expected.update(tail);
+        assertEquals(expected.getValue(), checksum.getValue());
+    }
+
+    @Test
+    @DisplayName("映射读取和流式读取得到相同的字符")
+    void sameAsStreamReader() throws Exception {
+        byte[] data = sampleBytes(500);
+        Path file = tempDir.resolve("source.csv");
+        Files.write(file, data);
+
+        String mapped = readFully(SourceFileReaderUtil.openReader(file, newDecoder(), 4096, 1024, null));
+        String streamed = readFully(SourceFileReaderUtil.openReader(file, newDecoder(), 0, 1024, null));
+        assertEquals(streamed, mapped);
+    }
+}
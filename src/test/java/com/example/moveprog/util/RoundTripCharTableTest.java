@@ -0,0 +1,38 @@
+package com.example.moveprog.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoundTripCharTableTest {
+    private static final String CHARSET_IBM = "x-IBM1388";
+
+    @Test
+    @DisplayName("单个 BMP 字符：位图判定与 getBytes/new String 回转结果完全一致")
+    void bitmapMatchesRoundTrip() {
+        Charset ibm = CharsetFactory.resolveCharset(CHARSET_IBM);
+        RoundTripCharTable table = RoundTripCharTable.forCharset(ibm);
+        for (int c = 0; c < 65536; c++) {
+            if (Character.isSurrogate((char) c)) {
+                assertFalse(table.isSafe((char) c));
+                continue;
+            }
+            String s = String.valueOf((char) c);
+            boolean roundTrip = s.equals(new String(s.getBytes(ibm), ibm));
+            assertEquals(roundTrip, table.isSafe((char) c), "code point " + Integer.toHexString(c));
+        }
+    }
+
+    @Test
+    @DisplayName("含生僻字/代理对/替换字符的串不安全，常用中英文混排安全")
+    void cellSafety() {
+        RoundTripCharTable table = RoundTripCharTable.forCharset(CharsetFactory.resolveCharset(CHARSET_IBM));
+        assertTrue(table.isSafe("张三 abc,123"));
+        assertTrue(table.isSafe(""));
+        assertFalse(table.isSafe("张𬡖三")); // 扩展区生僻字 (代理对)
+        assertFalse(table.isSafe("abc�"));
+    }
+}
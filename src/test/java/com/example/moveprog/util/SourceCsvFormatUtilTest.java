@@ -0,0 +1,52 @@
+package com.example.moveprog.util;
+
+import com.example.moveprog.config.AppProperties;
+import com.univocity.parsers.csv.CsvFormat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceCsvFormatUtilTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("探测到的格式保存后还原一致，注释符等其它项用配置")
+    void encodeDecode() throws Exception {
+        AppProperties.CsvDetailConfig sourceConfig = new AppProperties.CsvDetailConfig();
+        sourceConfig.setDetectDelimiter(true);
+        sourceConfig.setDetectLineSeparator(true);
+        Path source = tempDir.resolve("source.csv");
+        Files.writeString(source, "a;b;c\r\n1;2;3\r\n4;5;6\r\n", StandardCharsets.UTF_8);
+
+        CsvFormat detected = SourceCsvFormatUtil.detectFormat(source, StandardCharsets.UTF_8, sourceConfig);
+        String encoded = SourceCsvFormatUtil.encode(detected);
+        assertEquals(";\"\"\r\n", encoded);
+
+        CsvFormat decoded = SourceCsvFormatUtil.decode(sourceConfig, encoded);
+        assertEquals(';', decoded.getDelimiter());
+        assertEquals('"', decoded.getQuote());
+        assertEquals('"', decoded.getQuoteEscape());
+        assertEquals("\r\n", decoded.getLineSeparatorString());
+        assertEquals(sourceConfig.getComment(), decoded.getComment());
+    }
+
+    @Test
+    @DisplayName("多字符分隔符不保存，保存的格式为空或无法识别时不还原")
+    void unsupported() {
+        CsvFormat format = new CsvFormat();
+        format.setDelimiter("||");
+        assertNull(SourceCsvFormatUtil.encode(format));
+
+        AppProperties.CsvDetailConfig sourceConfig = new AppProperties.CsvDetailConfig();
+        assertNull(SourceCsvFormatUtil.decode(sourceConfig, null));
+        assertNull(SourceCsvFormatUtil.decode(sourceConfig, ",\""));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.moveprog.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceFingerprintUtilTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("文件 CRC32C 与整体计算一致，前缀补算后接着算结果相同")
+    void crc32cOfFile() throws Exception {
+        byte[] data = new byte[3 * 1024 * 1024 + 123];
+        new Random(7).nextBytes(data);
+        Path file = tempDir.resolve("source.csv");
+        Files.write(file, data);
+
+        CRC32C expected = new CRC32C();
+        expected.update(data);
+        assertEquals(expected.getValue(), SourceFingerprintUtil.crc32c(file));
+
+        CRC32C resumed = new CRC32C();
+        SourceFingerprintUtil.update(resumed, file, 1_500_001);
+        resumed.update(data, 1_500_001, data.length - 1_500_001);
+        assertEquals(expected.getValue(), resumed.getValue());
+    }
+
+    @Test
+    @DisplayName("配置文本不同校验和不同")
+    void crc32cOfText() {
+        assertEquals(SourceFingerprintUtil.crc32c("a|b"), SourceFingerprintUtil.crc32c("a|b"));
+        assertNotEquals(SourceFingerprintUtil.crc32c("a|b"), SourceFingerprintUtil.crc32c("a|c"));
+    }
+}
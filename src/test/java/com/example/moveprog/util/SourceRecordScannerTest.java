@@ -0,0 +1,75 @@
+package com.example.moveprog.util;
+
+import com.univocity.parsers.csv.CsvFormat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceRecordScannerTest {
+    private static final Charset IBM1388 = CharsetFactory.resolveCharset("x-IBM1388");
+
+    private SourceRecordScanner newScanner() {
+        CsvFormat format = new CsvFormat();
+        format.setLineSeparator("\n");
+        return SourceRecordScanner.forFormat(IBM1388, format, true);
+    }
+
+    @Test
+    @DisplayName("IBM1388 是 SO/SI 有状态编码")
+    void shiftStateful() {
+        assertTrue(SourceRecordScanner.isShiftStateful(IBM1388));
+        assertFalse(SourceRecordScanner.isShiftStateful(Charset.forName("UTF-8")));
+    }
+
+    @Test
+    @DisplayName("普通行：最后一个换行之后是安全边界")
+    void scan_simpleRows() {
+        byte[] bytes = "1,张三\n2,李四\n3,王".getBytes(IBM1388);
+        SourceRecordScanner scanner = newScanner();
+        int boundary = scanner.scan(bytes, 0, bytes.length);
+        assertEquals("1,张三\n2,李四\n", new String(bytes, 0, boundary, IBM1388));
+        assertEquals(2, scanner.getLineFeeds());
+        assertEquals(2, scanner.getLineFeedsAtBoundary());
+    }
+
+    @Test
+    @DisplayName("引号内的换行不是边界，但计入换行数")
+    void scan_quotedLineFeed() {
+        byte[] bytes = "1,\"多\n行\"\n2,\"未闭合\n".getBytes(IBM1388);
+        SourceRecordScanner scanner = newScanner();
+        int boundary = scanner.scan(bytes, 0, bytes.length);
+        assertEquals("1,\"多\n行\"\n", new String(bytes, 0, boundary, IBM1388));
+        assertEquals(3, scanner.getLineFeeds());
+        assertEquals(2, scanner.getLineFeedsAtBoundary());
+    }
+
+    @Test
+    @DisplayName("转义引号 \"\" 不结束引号字段")
+    void scan_escapedQuote() {
+        byte[] bytes = "1,\"a\"\"\n\"\"b\"\n".getBytes(IBM1388);
+        SourceRecordScanner scanner = newScanner();
+        assertEquals(bytes.length, scanner.scan(bytes, 0, bytes.length));
+        assertEquals(2, scanner.getLineFeedsAtBoundary());
+    }
+
+    @Test
+    @DisplayName("分多次扫描，状态可以跨缓冲区延续")
+    void scan_acrossBuffers() {
+        byte[] bytes = "1,\"x\ny\"\n".getBytes(IBM1388);
+        SourceRecordScanner scanner = newScanner();
+        int split = 4;
+        assertEquals(-1, scanner.scan(bytes, 0, split));
+        assertEquals(bytes.length, scanner.scan(bytes, split, bytes.length));
+    }
+
+    @Test
+    @DisplayName("注释行中的引号不影响边界")
+    void scan_commentLine() {
+        byte[] bytes = "#注释\"\n1,a\n".getBytes(IBM1388);
+        SourceRecordScanner scanner = newScanner();
+        assertEquals(bytes.length, scanner.scan(bytes, 0, bytes.length));
+    }
+}
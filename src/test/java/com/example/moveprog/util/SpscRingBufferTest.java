@@ -0,0 +1,78 @@
+package com.example.moveprog.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpscRingBufferTest {
+
+    @Test
+    @DisplayName("容量向上取 2 的幂，满了 offer 失败")
+    void capacity() {
+        SpscRingBuffer<Integer> queue = new SpscRingBuffer<>(3);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(4));
+        assertEquals(4, queue.size());
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingBuffer<>(0));
+    }
+
+    @Test
+    @DisplayName("跨线程按序传递，生产者结束后消费者读完剩余元素")
+    void orderAcrossThreads() throws Exception {
+        SpscRingBuffer<Integer> queue = new SpscRingBuffer<>(2);
+        int count = 100_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                assertTrue(queue.put(i, () -> false));
+            }
+            queue.close();
+        });
+        producer.start();
+
+        List<Integer> received = new ArrayList<>();
+        Integer item;
+        while (null != (item = queue.take(() -> false))) {
+            received.add(item);
+        }
+        producer.join();
+
+        assertEquals(count, received.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, received.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("中止后阻塞的 put/take 返回")
+    void abortReleasesWaiters() throws Exception {
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        SpscRingBuffer<Integer> full = new SpscRingBuffer<>(1);
+        assertTrue(full.offer(1));
+        SpscRingBuffer<Integer> empty = new SpscRingBuffer<>(1);
+
+        AtomicBoolean putResult = new AtomicBoolean(true);
+        Thread producer = new Thread(() -> putResult.set(full.put(2, aborted::get)));
+        Thread consumer = new Thread(() -> assertNull(empty.take(aborted::get)));
+        producer.start();
+        consumer.start();
+        Thread.sleep(50);
+        assertTrue(producer.isAlive());
+        assertTrue(consumer.isAlive());
+
+        aborted.set(true);
+        producer.join(5000);
+        consumer.join(5000);
+        assertFalse(producer.isAlive());
+        assertFalse(consumer.isAlive());
+        assertFalse(putResult.get());
+    }
+}